@@ -0,0 +1,95 @@
+package ex5.scan;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Indexes source text a whole vector of characters at a time, using the incubating vector API.
+ * Each step loads 16 characters into a 256-bit vector and compares all of them at once against
+ * every structural character. Each comparison is turned into bitmap bits by selecting one lane
+ * weight per matching character and OR-reducing the weights, which the JIT compiles into a few
+ * vector instructions; {@code VectorMask.toLong()} would instead fall back to a lane-by-lane loop
+ * on JDK 17. The last partial word is indexed by {@link ScalarScanner}.
+ * This class links against the jdk.incubator.vector module, so it lives in the separate
+ * 'src-vector' source root, is only compiled on request, and is only ever loaded reflectively,
+ * once the module is known to be present.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class VectorScanner implements StructuralScanner {
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_256;
+    private static final ShortVector NO_BITS = ShortVector.zero(SPECIES);
+    private static final ShortVector LANE_BITS = laneBits();
+    private static final long LANE_MASK = (1L << SPECIES.length()) - 1;
+    private static final short LINE_FEED = '\n';
+    private static final short CARRIAGE_RETURN = '\r';
+    private static final short SPACE = ' ';
+    private static final short TAB = '\t';
+    private static final short CONTROL_SPACING_RANGE = '\r' - '\t';
+    private static final short OPEN_PARENTHESIS = '(';
+
+    /**
+     * Constructs a VectorScanner.
+     *
+     * @throws UnsupportedOperationException If the platform has no 256-bit vectors.
+     */
+    public VectorScanner() {
+        if (VectorShape.preferredShape().vectorBitSize() < SPECIES.vectorBitSize()) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void index(char[] text, int length, StructuralIndex index) {
+        index.reset(length);
+        int lanes = SPECIES.length();
+        int fullWords = length / Long.SIZE;
+        for (int word = 0; word < fullWords; word++) {
+            long lineBreaks = 0;
+            long visible = 0;
+            long spacing = 0;
+            long openParentheses = 0;
+            int start = word * Long.SIZE;
+            for (int lane = 0; lane < Long.SIZE; lane += lanes) {
+                ShortVector chars = ShortVector.fromCharArray(SPECIES, text, start + lane);
+                lineBreaks |= toBits(chars.eq(LINE_FEED).or(chars.eq(CARRIAGE_RETURN))) << lane;
+                visible |= toBits(chars.compare(VectorOperators.UNSIGNED_GT, SPACE)) << lane;
+                // '\t' to '\r' are consecutive, so a single unsigned comparison covers them
+                spacing |= toBits(chars.eq(SPACE)
+                        .or(chars.sub(TAB).compare(VectorOperators.UNSIGNED_LE, CONTROL_SPACING_RANGE))) << lane;
+                openParentheses |= toBits(chars.eq(OPEN_PARENTHESIS)) << lane;
+            }
+            index.setWord(word, lineBreaks, visible, spacing, openParentheses);
+        }
+        ScalarScanner.indexWords(text, fullWords * Long.SIZE, length, index);
+    }
+
+    /**
+     * Turns a comparison into bitmap bits, bit i being set if lane i matched.
+     *
+     * @param matches The comparison.
+     * @return The bits.
+     */
+    private static long toBits(VectorMask<Short> matches) {
+        return NO_BITS.blend(LANE_BITS, matches).reduceLanes(VectorOperators.OR) & LANE_MASK;
+    }
+
+    /**
+     * Builds the vector holding the weight of every lane, 1 << i in lane i.
+     *
+     * @return The lane weights.
+     */
+    private static ShortVector laneBits() {
+        short[] bits = new short[SPECIES.length()];
+        for (int lane = 0; lane < bits.length; lane++) {
+            bits[lane] = (short) (1 << lane);
+        }
+        return ShortVector.fromArray(SPECIES, bits, 0);
+    }
+}
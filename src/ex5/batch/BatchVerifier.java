@@ -0,0 +1,377 @@
+package ex5.batch;
+
+import ex5.input.SourceInput;
+import ex5.util.CancellationToken;
+import ex5.verifier.Outcome;
+import ex5.verifier.ShadowVerifier;
+import ex5.verifier.VerificationResult;
+import ex5.verifier.Verifier;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Pipelined verifier for large batches of SJava sources.
+ * Verification runs in three stages:
+ * <ol>
+ *     <li>Reading: I/O threads prefetch whole sources into memory. Virtual threads are used when
+ *     the running JVM provides them, so a thread blocked on a cold file costs almost nothing;
+ *     otherwise a bounded pool of daemon platform threads is used.</li>
+ *     <li>Verifying: a fixed pool of platform threads parses and validates the prefetched text.</li>
+ *     <li>Reporting: results are handed to the caller's consumer in input order.</li>
+ * </ol>
+ * At most {@code prefetchLimit} sources are held in memory between being read and being
+ * verified, so memory use stays predictable however much faster reading is than verifying.
+ * With a timeout, each source is abandoned once its verification runs longer than the timeout;
+ * a batch that is abandoned by its caller cancels the verifications still in progress.
+ * A tiered batch runs the syntax-only check over every source, and fully verifies only the
+ * sources that pass it, so sources with plain syntax errors never reach the semantic validator.
+ * Sources are started in the order of the batch's {@link SchedulingPolicy}; starting the largest
+ * sources first keeps a huge source from running alone at the end of the batch. Every run returns
+ * a {@link ScheduleReport} of its per-source latencies and makespan.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class BatchVerifier {
+    private static final String VIRTUAL_EXECUTOR_FACTORY = "newVirtualThreadPerTaskExecutor";
+    private static final String READER_THREAD_NAME = "sjava-reader-";
+    private static final String WORKER_THREAD_NAME = "sjava-worker-";
+    private static final String FEEDER_THREAD_NAME = "sjava-feeder";
+    private static final int MAX_PLATFORM_READERS = 32;
+
+    private final Verifier verifier; // Verifier shared by all worker threads
+    private final int workers; // Number of parse/validate threads
+    private final int prefetchLimit; // Maximum number of sources held in memory at once
+    private final Duration timeout; // Maximum verification time per source, or null
+    private final SchedulingPolicy policy; // Order in which sources are started
+    private final Set<CancellationToken> inFlight; // Tokens of the verifications in progress
+
+    /**
+     * Constructs a BatchVerifier without a time limit.
+     *
+     * @param verifier The verifier shared by all worker threads.
+     * @param workers The number of parse/validate threads.
+     * @param prefetchLimit The maximum number of sources held in memory at once.
+     */
+    public BatchVerifier(Verifier verifier, int workers, int prefetchLimit) {
+        this(verifier, workers, prefetchLimit, null);
+    }
+
+    /**
+     * Constructs a BatchVerifier that limits the verification time of each source.
+     *
+     * @param verifier The verifier shared by all worker threads.
+     * @param workers The number of parse/validate threads.
+     * @param prefetchLimit The maximum number of sources held in memory at once.
+     * @param timeout The maximum verification time per source, or null for no limit.
+     */
+    public BatchVerifier(Verifier verifier, int workers, int prefetchLimit, Duration timeout) {
+        this(verifier, workers, prefetchLimit, timeout, SchedulingPolicy.INPUT_ORDER);
+    }
+
+    /**
+     * Constructs a BatchVerifier that limits the verification time of each source and starts the
+     * sources in the order of a scheduling policy.
+     *
+     * @param verifier The verifier shared by all worker threads.
+     * @param workers The number of parse/validate threads.
+     * @param prefetchLimit The maximum number of sources held in memory at once.
+     * @param timeout The maximum verification time per source, or null for no limit.
+     * @param policy The order in which sources are started.
+     * @throws IllegalArgumentException If the timeout is not positive.
+     */
+    public BatchVerifier(Verifier verifier, int workers, int prefetchLimit, Duration timeout,
+                         SchedulingPolicy policy) {
+        this.verifier = verifier;
+        this.workers = workers;
+        this.prefetchLimit = prefetchLimit;
+        this.timeout = CancellationToken.requireValidTimeout(timeout);
+        this.policy = policy;
+        this.inFlight = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * A verification tier applied to the text of each source.
+     */
+    private interface Tier {
+        /**
+         * Verifies source text.
+         *
+         * @param source The source the text was read from.
+         * @param content The source text.
+         * @param cancellation The token of the verification.
+         * @return The verification result.
+         */
+        VerificationResult apply(SourceInput source, String content, CancellationToken cancellation);
+    }
+
+    /**
+     * Verifies a batch of sources, reporting each result in input order as soon as it and all
+     * results before it are available.
+     *
+     * @param sources The sources to verify.
+     * @param consumer Receives each source together with its verification result.
+     * @return The timing of the batch.
+     * @throws InterruptedException If the calling thread is interrupted while waiting for results.
+     */
+    public ScheduleReport verifyAll(List<SourceInput> sources, BiConsumer<SourceInput, VerificationResult> consumer)
+            throws InterruptedException {
+        return runAll(sources, consumer, (source, content, cancellation) -> verifier.verify(content, cancellation));
+    }
+
+    /**
+     * Verifies a batch of sources with the engines of a shadow verifier, reporting the reference
+     * engine's results in input order. Both engines verify each source at the same time, so the
+     * batch takes about as long as with the slower engine alone.
+     *
+     * @param sources The sources to verify.
+     * @param shadow The shadow verifier comparing the engines.
+     * @param consumer Receives each source together with the reference engine's result.
+     * @return The timing of the batch.
+     * @throws InterruptedException If the calling thread is interrupted while waiting for results.
+     */
+    public ScheduleReport verifyAllShadowed(List<SourceInput> sources, ShadowVerifier shadow,
+                                            BiConsumer<SourceInput, VerificationResult> consumer)
+            throws InterruptedException {
+        return runAll(sources, consumer, shadow::verify);
+    }
+
+    /**
+     * Checks that every source of a batch is well-formed, without validating it semantically,
+     * reporting each result in input order.
+     *
+     * @param sources The sources to check.
+     * @param consumer Receives each source together with the result of its check.
+     * @return The timing of the batch.
+     * @throws InterruptedException If the calling thread is interrupted while waiting for results.
+     */
+    public ScheduleReport checkSyntaxAll(List<SourceInput> sources,
+                                         BiConsumer<SourceInput, VerificationResult> consumer)
+            throws InterruptedException {
+        return runAll(sources, consumer,
+                (source, content, cancellation) -> verifier.checkSyntax(content, cancellation));
+    }
+
+    /**
+     * Verifies a batch of sources in two tiers: each source is first checked with the syntax-only
+     * tier, and fully verified only if it passes, from the text already read for the check. A
+     * source that fails the first tier fails full verification with the same error, so the
+     * results are those of {@link #verifyAll(List, BiConsumer)}, reported in input order as well.
+     * Both tiers of a source run while it holds its prefetch permit, so each source is read once
+     * and memory stays within the prefetch limit.
+     *
+     * @param sources The sources to verify.
+     * @param consumer Receives each source together with its verification result.
+     * @return The timing of the batch, both tiers included.
+     * @throws InterruptedException If the calling thread is interrupted while waiting for results.
+     */
+    public ScheduleReport verifyAllTiered(List<SourceInput> sources,
+                                          BiConsumer<SourceInput, VerificationResult> consumer)
+            throws InterruptedException {
+        return runAll(sources, consumer, (source, content, cancellation) -> {
+            VerificationResult syntax = verifier.checkSyntax(content, cancellation);
+            return syntax.isSuccess() ? verifier.verify(content, cancellation) : syntax;
+        });
+    }
+
+    /**
+     * Runs a verification tier over a batch of sources, reporting each result in input order as
+     * soon as it and all results before it are available.
+     *
+     * @param sources The sources to verify.
+     * @param consumer Receives each source together with its verification result.
+     * @param tier The verification applied to each source.
+     * @return The timing of the run.
+     * @throws InterruptedException If the calling thread is interrupted while waiting for results.
+     */
+    private ScheduleReport runAll(List<SourceInput> sources, BiConsumer<SourceInput, VerificationResult> consumer,
+                                  Tier tier) throws InterruptedException {
+        List<CompletableFuture<VerificationResult>> results = new ArrayList<>(sources.size());
+        for (int i = 0; i < sources.size(); i++) {
+            results.add(new CompletableFuture<>());
+        }
+        ExecutorService readers = newReaderExecutor();
+        ExecutorService verifiers = Executors.newFixedThreadPool(workers, namedDaemonThreads(WORKER_THREAD_NAME));
+        Semaphore prefetchPermits = new Semaphore(prefetchLimit);
+        int[] order = policy.order(sources);
+        ScheduleReport report = new ScheduleReport(policy, sources.size());
+        Thread feeder = new Thread(
+                () -> feed(sources, order, results, readers, verifiers, prefetchPermits, tier, report),
+                FEEDER_THREAD_NAME);
+        feeder.setDaemon(true);
+        feeder.start();
+        try {
+            for (int i = 0; i < sources.size(); i++) {
+                consumer.accept(sources.get(i), await(results.get(i)));
+            }
+            return report;
+        } finally {
+            inFlight.forEach(CancellationToken::cancel); // Stop work whose results nobody will read
+            feeder.interrupt();
+            readers.shutdownNow();
+            verifiers.shutdownNow();
+        }
+    }
+
+    /**
+     * Schedules the reading and verification of every source in the order of the scheduling
+     * policy, blocking whenever the prefetch limit is reached until a worker finishes with a
+     * previously read source.
+     *
+     * @param sources The sources to verify.
+     * @param order The source indices, in starting order.
+     * @param results The pending results, one per source.
+     * @param readers The executor of the reading stage.
+     * @param verifiers The executor of the verifying stage.
+     * @param prefetchPermits Permits bounding the number of sources held in memory.
+     * @param tier The verification applied to each source.
+     * @param report The timing of the run.
+     */
+    private void feed(List<SourceInput> sources, int[] order, List<CompletableFuture<VerificationResult>> results,
+                      ExecutorService readers, ExecutorService verifiers, Semaphore prefetchPermits,
+                      Tier tier, ScheduleReport report) {
+        try {
+            for (int index : order) {
+                prefetchPermits.acquire();
+                SourceInput source = sources.get(index);
+                CompletableFuture<VerificationResult> result = results.get(index);
+                readers.execute(() -> read(index, source, result, verifiers, prefetchPermits, tier, report));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // The batch was abandoned
+        }
+    }
+
+    /**
+     * Reads a source into memory and hands it to the verifying stage.
+     * Whatever happens, the source's permit is released and its result completed, so neither
+     * the feeder nor the caller waits forever on a source that could not be read.
+     *
+     * @param index The index of the source in the batch.
+     * @param source The source to read.
+     * @param result The pending result of the source.
+     * @param verifiers The executor of the verifying stage.
+     * @param prefetchPermits Permits bounding the number of sources held in memory.
+     * @param tier The verification applied to the source.
+     * @param report The timing of the run.
+     */
+    private void read(int index, SourceInput source, CompletableFuture<VerificationResult> result,
+                      ExecutorService verifiers, Semaphore prefetchPermits, Tier tier, ScheduleReport report) {
+        String content;
+        long readStarted = System.nanoTime();
+        try {
+            content = source.readContent();
+        } catch (IOException e) {
+            prefetchPermits.release();
+            report.record(index, 0);
+            result.complete(new VerificationResult(Outcome.IO_ERROR, e.getMessage()));
+            return;
+        } catch (RuntimeException | Error e) {
+            prefetchPermits.release();
+            report.record(index, System.nanoTime() - readStarted);
+            result.completeExceptionally(e);
+            return;
+        }
+        try {
+            verifiers.execute(() -> verify(index, source, content, result, prefetchPermits, tier, report));
+        } catch (RejectedExecutionException e) {
+            // The verifying stage was shut down because the batch was abandoned
+            prefetchPermits.release();
+            report.record(index, 0);
+            result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Verifies a source that was read into memory.
+     *
+     * @param index The index of the source in the batch.
+     * @param source The source.
+     * @param content The text of the source.
+     * @param result The pending result of the source.
+     * @param prefetchPermits Permits bounding the number of sources held in memory.
+     * @param tier The verification applied to the source.
+     * @param report The timing of the run.
+     */
+    private void verify(int index, SourceInput source, String content, CompletableFuture<VerificationResult> result,
+                        Semaphore prefetchPermits, Tier tier, ScheduleReport report) {
+        // The deadline starts when verification does, not while the source waits in the queue
+        CancellationToken cancellation = (timeout == null)
+                ? new CancellationToken() : new CancellationToken(timeout);
+        inFlight.add(cancellation);
+        long started = System.nanoTime();
+        VerificationResult verified;
+        try {
+            verified = tier.apply(source, content, cancellation);
+        } catch (RuntimeException | Error e) {
+            report.record(index, System.nanoTime() - started);
+            result.completeExceptionally(e);
+            return;
+        } finally {
+            inFlight.remove(cancellation);
+            prefetchPermits.release();
+        }
+        // Recorded before completing, so the report is whole once every result is
+        report.record(index, System.nanoTime() - started);
+        result.complete(verified);
+    }
+
+    /**
+     * Waits for a result of the batch.
+     *
+     * @param result The pending result.
+     * @return The verification result, or an I/O error result if verification failed unexpectedly.
+     * @throws InterruptedException If the calling thread is interrupted while waiting.
+     */
+    private static VerificationResult await(CompletableFuture<VerificationResult> result)
+            throws InterruptedException {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            return new VerificationResult(Outcome.IO_ERROR, e.getCause().toString());
+        }
+    }
+
+    /**
+     * Creates the executor of the reading stage, preferring virtual threads when available.
+     *
+     * @return The reading executor.
+     */
+    private ExecutorService newReaderExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod(VIRTUAL_EXECUTOR_FACTORY).invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // Virtual threads are not available on this JVM
+            int readers = Math.min(prefetchLimit, MAX_PLATFORM_READERS);
+            return Executors.newFixedThreadPool(readers, namedDaemonThreads(READER_THREAD_NAME));
+        }
+    }
+
+    /**
+     * Creates a factory of numbered daemon threads, so an abandoned batch never keeps the JVM alive.
+     *
+     * @param prefix The thread name prefix.
+     * @return The thread factory.
+     */
+    private static ThreadFactory namedDaemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,102 @@
+package ex5.batch;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The timing of a scheduled batch: how long each source took to verify, and how long the batch
+ * took from its start until its last source was verified (the makespan).
+ * Each source's latency is its verification time on a verifying thread, not counting the time
+ * it spent being read or waiting for a thread. Latencies are kept per source and sorted only when
+ * the report is formatted, so the percentiles are exact.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class ScheduleReport {
+    private static final String JSON_FORMAT = "{\"policy\": \"%s\", \"sources\": %d, \"makespanMs\": %.1f, "
+            + "\"latencyMs\": {\"p50\": %.2f, \"p95\": %.2f, \"p99\": %.2f, \"max\": %.2f}}";
+    private static final double P50 = 0.50;
+    private static final double P95 = 0.95;
+    private static final double P99 = 0.99;
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final SchedulingPolicy policy; // The policy the batch was scheduled with
+    private final long[] latencies; // Verification time of each source in nanoseconds, by source index
+    private final long start; // System.nanoTime() when the batch started
+    private final AtomicLong end; // System.nanoTime() when the last verification completed
+
+    /**
+     * Constructs a ScheduleReport for a batch starting now.
+     *
+     * @param policy The policy the batch is scheduled with.
+     * @param sourceCount The number of sources in the batch.
+     */
+    ScheduleReport(SchedulingPolicy policy, int sourceCount) {
+        this.policy = policy;
+        this.latencies = new long[sourceCount];
+        this.start = System.nanoTime();
+        this.end = new AtomicLong(start);
+    }
+
+    /**
+     * Records the verification of a source. Each source is recorded by the thread that verified
+     * it, before its result is completed, so the report is complete once every result is.
+     *
+     * @param index The index of the source.
+     * @param latency The verification time in nanoseconds.
+     */
+    void record(int index, long latency) {
+        latencies[index] = latency;
+        end.accumulateAndGet(System.nanoTime(), Math::max);
+    }
+
+    /**
+     * Retrieves the time from the start of the batch until its last source was verified.
+     *
+     * @return The makespan in nanoseconds.
+     */
+    public long getMakespan() {
+        return end.get() - start;
+    }
+
+    /**
+     * Formats the report as a JSON object, times in milliseconds.
+     *
+     * @return The JSON text.
+     */
+    public String toJson() {
+        long[] sorted = sortedLatencies();
+        return String.format(Locale.ROOT, JSON_FORMAT, policy, sorted.length,
+                getMakespan() / NANOS_PER_MILLI, percentile(sorted, P50) / NANOS_PER_MILLI,
+                percentile(sorted, P95) / NANOS_PER_MILLI, percentile(sorted, P99) / NANOS_PER_MILLI,
+                percentile(sorted, 1) / NANOS_PER_MILLI);
+    }
+
+    /**
+     * Copies and sorts the per-source latencies.
+     *
+     * @return The latencies, in ascending order.
+     */
+    private long[] sortedLatencies() {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Picks a percentile of sorted latencies, by the nearest-rank method.
+     *
+     * @param sorted The latencies, in ascending order.
+     * @param fraction The percentile as a fraction.
+     * @return The latency, or 0 if there are none.
+     */
+    private static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+}
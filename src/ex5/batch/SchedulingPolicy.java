@@ -0,0 +1,48 @@
+package ex5.batch;
+
+import ex5.input.SourceInput;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Enum representing the order in which a batch hands its sources to the verifying threads.
+ * Results are reported in input order whatever the policy; only the order of the work changes.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public enum SchedulingPolicy {
+    /**
+     * Sources are started in input order.
+     */
+    INPUT_ORDER,
+
+    /**
+     * Sources are started largest first, by estimated size, so a few huge sources start while
+     * the many small ones keep the other threads busy, instead of one thread grinding on a huge
+     * source at the end of the run. Sources of unknown size keep their input order, after the
+     * sources of known size.
+     */
+    LONGEST_FIRST;
+
+    /**
+     * Computes the order in which sources are started.
+     *
+     * @param sources The sources of the batch.
+     * @return The source indices, in starting order.
+     */
+    public int[] order(List<SourceInput> sources) {
+        if (this == INPUT_ORDER) {
+            return IntStream.range(0, sources.size()).toArray();
+        }
+        long[] sizes = new long[sources.size()];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = sources.get(i).estimateSize();
+        }
+        return IntStream.range(0, sources.size()).boxed()
+                .sorted(Comparator.<Integer>comparingLong(i -> sizes[i]).reversed().thenComparingInt(i -> i))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+}
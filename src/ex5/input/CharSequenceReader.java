@@ -0,0 +1,52 @@
+package ex5.input;
+
+import java.io.Reader;
+
+/**
+ * A reader over an in-memory character sequence.
+ * Unlike a StringReader, the sequence (for example a CharBuffer or a StringBuilder)
+ * is read in place and never copied into a new String.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class CharSequenceReader extends Reader {
+    private final CharSequence source; // The text being read
+    private int position; // Index of the next character to read
+
+    /**
+     * Constructs a CharSequenceReader.
+     *
+     * @param source The text to read.
+     */
+    public CharSequenceReader(CharSequence source) {
+        this.source = source;
+        this.position = 0;
+    }
+
+    /**
+     * Reads characters into a portion of an array.
+     *
+     * @param buffer The destination buffer.
+     * @param offset The offset at which to start storing characters.
+     * @param length The maximum number of characters to read.
+     * @return The number of characters read, or -1 at the end of the sequence.
+     */
+    @Override
+    public int read(char[] buffer, int offset, int length) {
+        if (position >= source.length()) {
+            return -1;
+        }
+        int count = Math.min(length, source.length() - position);
+        for (int i = 0; i < count; i++) {
+            buffer[offset + i] = source.charAt(position++);
+        }
+        return count;
+    }
+
+    /**
+     * Closing an in-memory reader has no effect.
+     */
+    @Override
+    public void close() {
+    }
+}
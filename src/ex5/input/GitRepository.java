@@ -0,0 +1,285 @@
+package ex5.input;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Access to a local git repository through the git command-line client.
+ * File contents are read straight from the object database with a single long-running
+ * 'git cat-file --batch' process, so nothing is ever checked out; file sizes are looked up the
+ * same way by a 'git cat-file --batch-check' process, without reading the contents. Each batch
+ * process is started on first use and serves one blob at a time; both are stopped when the
+ * repository is closed.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class GitRepository implements Closeable {
+    private static final String GIT = "git";
+    private static final String RANGE_OPERATOR = "..";
+    private static final String SYMMETRIC_RANGE_OPERATOR = "...";
+    private static final String DEFAULT_REVISION = "HEAD";
+    private static final String COMMIT_SUFFIX = "^{commit}";
+    private static final String OBJECT_PATH_SEPARATOR = ":";
+    private static final String MISSING_OBJECT_SUFFIX = " missing";
+    private static final String NOT_A_RANGE_MESSAGE = "Not a revision range (expected <from>..<to>): %s";
+    private static final String GIT_FAILED_MESSAGE = "git %s failed: %s";
+    private static final String MISSING_OBJECT_MESSAGE = "No such file in git: %s";
+    private static final String MALFORMED_RESPONSE_MESSAGE = "Unexpected response from git cat-file: %s";
+    private static final char PATH_TERMINATOR = '\0';
+    private static final char LINE_TERMINATOR = '\n';
+
+    private final Path directory; // The repository's working directory
+    private CatFile contents; // The 'git cat-file --batch' process, or null until first use
+    private CatFile sizes; // The 'git cat-file --batch-check' process, or null until first use
+
+    /**
+     * Constructs a GitRepository.
+     *
+     * @param directory A directory inside the repository.
+     */
+    public GitRepository(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Resolves the end revision of a range to a commit id, so that the listing of the range and
+     * the file contents read afterwards agree even if refs move in between.
+     *
+     * @param range A range of the form "from..to" or "from...to"; an empty end means HEAD.
+     * @return The commit id of the range's end.
+     * @throws IOException If the range is malformed or git fails.
+     */
+    public String resolveRangeEnd(String range) throws IOException {
+        String end = range.substring(rangeOperatorIndex(range) + rangeOperator(range).length());
+        String revision = (end.isEmpty() ? DEFAULT_REVISION : end) + COMMIT_SUFFIX;
+        return new String(runGit("rev-parse", "--verify", revision), StandardCharsets.UTF_8).strip();
+    }
+
+    /**
+     * Lists the files added or modified in a revision range.
+     *
+     * @param range A range of the form "from..to" or "from...to".
+     * @param endCommit The commit id the range's end resolves to.
+     * @return The paths of the changed files relative to the repository root, in git's order.
+     * @throws IOException If the range is malformed or git fails.
+     */
+    public List<String> listChangedFiles(String range, String endCommit) throws IOException {
+        String pinnedRange = range.substring(0, rangeOperatorIndex(range)) + rangeOperator(range) + endCommit;
+        byte[] listing = runGit("diff", "--name-only", "-z", "--no-renames", "--diff-filter=AM",
+                pinnedRange, "--");
+        List<String> files = new ArrayList<>();
+        int from = 0;
+        for (int i = 0; i < listing.length; i++) {
+            if (listing[i] == PATH_TERMINATOR) {
+                files.add(new String(listing, from, i - from, StandardCharsets.UTF_8));
+                from = i + 1;
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Locates the operator of a revision range.
+     *
+     * @param range The revision range.
+     * @return The index of the operator.
+     * @throws IOException If the range has no start revision or no operator.
+     */
+    private static int rangeOperatorIndex(String range) throws IOException {
+        int index = range.indexOf(RANGE_OPERATOR);
+        if (index <= 0) {
+            throw new IOException(String.format(NOT_A_RANGE_MESSAGE, range));
+        }
+        return index;
+    }
+
+    /**
+     * Retrieves the operator of a revision range, keeping the "..." (merge base) form intact.
+     *
+     * @param range The revision range.
+     * @return Either ".." or "...".
+     * @throws IOException If the range has no start revision or no operator.
+     */
+    private static String rangeOperator(String range) throws IOException {
+        return range.startsWith(SYMMETRIC_RANGE_OPERATOR, rangeOperatorIndex(range))
+                ? SYMMETRIC_RANGE_OPERATOR : RANGE_OPERATOR;
+    }
+
+    /**
+     * A long-running 'git cat-file' process answering one request at a time.
+     */
+    private static class CatFile {
+        private final Process process; // The batch process
+        private final InputStream out; // Responses of the batch process
+        private final OutputStream in; // Requests to the batch process
+
+        /**
+         * Starts a CatFile process.
+         *
+         * @param directory The repository's working directory.
+         * @param mode The batch mode, "--batch" or "--batch-check".
+         * @throws IOException If git cannot be started.
+         */
+        private CatFile(Path directory, String mode) throws IOException {
+            this.process = new ProcessBuilder(GIT, "cat-file", mode)
+                    .directory(directory.toFile())
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            this.out = new BufferedInputStream(process.getInputStream());
+            this.in = process.getOutputStream();
+        }
+
+        /**
+         * Requests an object and reads the header of the response, "&lt;id&gt; &lt;type&gt; &lt;size&gt;",
+         * which is all of the response in "--batch-check" mode and is followed by the contents in
+         * "--batch" mode.
+         *
+         * @param objectName The object, as "revision:path".
+         * @return The size of the object in bytes.
+         * @throws IOException If the object does not exist or the response is malformed.
+         */
+        private int request(String objectName) throws IOException {
+            in.write((objectName + LINE_TERMINATOR).getBytes(StandardCharsets.UTF_8));
+            in.flush();
+
+            // A missing object is answered with "<name> missing" instead
+            String header = readHeaderLine();
+            if (header.endsWith(MISSING_OBJECT_SUFFIX)) {
+                throw new IOException(String.format(MISSING_OBJECT_MESSAGE, objectName));
+            }
+            String[] fields = header.split(" ");
+            try {
+                return Integer.parseInt(fields[fields.length - 1]);
+            } catch (NumberFormatException e) {
+                throw new IOException(String.format(MALFORMED_RESPONSE_MESSAGE, header), e);
+            }
+        }
+
+        /**
+         * Reads a single response header line.
+         *
+         * @return The line, without its terminator.
+         * @throws IOException If the process ended prematurely.
+         */
+        private String readHeaderLine() throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while ((b = out.read()) != LINE_TERMINATOR) {
+                if (b == -1) {
+                    throw new IOException(String.format(MALFORMED_RESPONSE_MESSAGE, line));
+                }
+                line.write(b);
+            }
+            return line.toString(StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Stops the process.
+         *
+         * @throws IOException If the process's input cannot be closed.
+         */
+        private void close() throws IOException {
+            try {
+                in.close(); // The batch process exits at the end of its input
+            } finally {
+                process.destroy();
+            }
+        }
+    }
+
+    /**
+     * Reads the contents of a file at a revision straight from the object database.
+     * Safe for concurrent use; requests are served one at a time.
+     *
+     * @param revision The revision, preferably a commit id.
+     * @param path The path of the file relative to the repository root.
+     * @return The file contents.
+     * @throws IOException If the file does not exist at the revision or git fails.
+     */
+    public synchronized byte[] readFile(String revision, String path) throws IOException {
+        String objectName = revision + OBJECT_PATH_SEPARATOR + path;
+        if (contents == null) {
+            contents = new CatFile(directory, "--batch");
+        }
+        int size = contents.request(objectName);
+
+        // The contents follow the header, terminated by a line break
+        byte[] data = contents.out.readNBytes(size);
+        if (data.length != size || contents.out.read() != LINE_TERMINATOR) {
+            throw new IOException(String.format(MALFORMED_RESPONSE_MESSAGE, objectName));
+        }
+        return data;
+    }
+
+    /**
+     * Retrieves the size of a file at a revision from the object database, without reading its
+     * contents. Safe for concurrent use; requests are served one at a time.
+     *
+     * @param revision The revision, preferably a commit id.
+     * @param path The path of the file relative to the repository root.
+     * @return The size of the stored file in bytes.
+     * @throws IOException If the file does not exist at the revision or git fails.
+     */
+    public synchronized long readSize(String revision, String path) throws IOException {
+        if (sizes == null) {
+            sizes = new CatFile(directory, "--batch-check");
+        }
+        return sizes.request(revision + OBJECT_PATH_SEPARATOR + path);
+    }
+
+    /**
+     * Runs a git command to completion.
+     *
+     * @param args The git arguments.
+     * @return The command's standard output.
+     * @throws IOException If git cannot be started or exits with an error.
+     */
+    private byte[] runGit(String... args) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(GIT);
+        command.addAll(Arrays.asList(args));
+        Process process = new ProcessBuilder(command).directory(directory.toFile()).start();
+        byte[] output = process.getInputStream().readAllBytes();
+        String errors = new String(process.getErrorStream().readAllBytes(), StandardCharsets.UTF_8).strip();
+        try {
+            if (process.waitFor() != 0) {
+                throw new IOException(String.format(GIT_FAILED_MESSAGE, args[0],
+                        errors.isEmpty() ? String.join(" ", args) : errors));
+            }
+        } catch (InterruptedException e) {
+            process.destroy();
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+        return output;
+    }
+
+    /**
+     * Stops the batch processes that were started.
+     *
+     * @throws IOException If a process's input cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (contents != null) {
+                contents.close();
+            }
+        } finally {
+            contents = null;
+            if (sizes != null) {
+                sizes.close();
+                sizes = null;
+            }
+        }
+    }
+}
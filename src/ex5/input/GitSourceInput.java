@@ -0,0 +1,89 @@
+package ex5.input;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A source stored in a git repository's object database at a given revision.
+ * The contents are read from git when the source is opened, without any checkout.
+ * Files named '.sjava.gz' are decompressed after being read.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class GitSourceInput implements SourceInput {
+    private static final String NAME_FORMAT = "%s:%s";
+
+    private final GitRepository repository; // The repository holding the source
+    private final String revision; // The revision the source is read at
+    private final String path; // The path of the source relative to the repository root
+
+    /**
+     * Constructs a GitSourceInput.
+     *
+     * @param repository The repository holding the source.
+     * @param revision The revision the source is read at.
+     * @param path The path of the source relative to the repository root.
+     */
+    public GitSourceInput(GitRepository repository, String revision, String path) {
+        this.repository = repository;
+        this.revision = revision;
+        this.path = path;
+    }
+
+    /**
+     * Retrieves the name of the source in git's "revision:path" notation.
+     *
+     * @return The name of the source.
+     */
+    @Override
+    public String getName() {
+        return String.format(NAME_FORMAT, revision, path);
+    }
+
+    /**
+     * Retrieves the size of the stored blob, compressed for a '.sjava.gz' file, from git's
+     * object database without reading the blob.
+     *
+     * @return The size of the blob in bytes, or 0 if it cannot be determined.
+     */
+    @Override
+    public long estimateSize() {
+        try {
+            return repository.readSize(revision, path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BufferedReader openReader() throws IOException {
+        InputStream in = new ByteArrayInputStream(repository.readFile(revision, path));
+        if (path.endsWith(SourceCollection.GZIP_SOURCE_SUFFIX)) {
+            in = new GZIPInputStream(in);
+        }
+        // Decode like FileReader does, replacing malformed input instead of failing
+        return new BufferedReader(new InputStreamReader(in, Charset.defaultCharset()));
+    }
+
+    /**
+     * Reads the whole source with a single request to git.
+     *
+     * @return The source text.
+     * @throws IOException If the source cannot be read.
+     */
+    @Override
+    public String readContent() throws IOException {
+        if (path.endsWith(SourceCollection.GZIP_SOURCE_SUFFIX)) {
+            return SourceInput.super.readContent();
+        }
+        return new String(repository.readFile(revision, path), Charset.defaultCharset());
+    }
+}
@@ -0,0 +1,63 @@
+package ex5.input;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A gzip-compressed source ('.sjava.gz') that is decompressed while it is being read.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class GzipSourceInput implements SourceInput {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path path; // Location of the compressed source
+    private final String name; // Name reported for this source
+
+    /**
+     * Constructs a GzipSourceInput.
+     *
+     * @param path The location of the compressed source.
+     * @param name The name reported for this source.
+     */
+    public GzipSourceInput(Path path, String name) {
+        this.path = path;
+        this.name = name;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Retrieves the size of the compressed file.
+     *
+     * @return The size of the file in bytes, or 0 if it cannot be determined.
+     */
+    @Override
+    public long estimateSize() {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BufferedReader openReader() throws IOException {
+        GZIPInputStream in = new GZIPInputStream(Files.newInputStream(path), BUFFER_SIZE);
+        return new BufferedReader(new InputStreamReader(in, Charset.defaultCharset()));
+    }
+}
@@ -0,0 +1,72 @@
+package ex5.input;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A source stored as uncompressed text at a {@link Path}.
+ * The path may belong to any file system provider, including entries of a mounted zip/jar archive.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class PathSourceInput implements SourceInput {
+    private final Path path; // Location of the source text
+    private final String name; // Name reported for this source
+
+    /**
+     * Constructs a PathSourceInput.
+     *
+     * @param path The location of the source text.
+     * @param name The name reported for this source.
+     */
+    public PathSourceInput(Path path, String name) {
+        this.path = path;
+        this.name = name;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Retrieves the size of the stored file.
+     *
+     * @return The size of the file in bytes, or 0 if it cannot be determined.
+     */
+    @Override
+    public long estimateSize() {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BufferedReader openReader() throws IOException {
+        // Decode like FileReader does, replacing malformed input instead of failing
+        return new BufferedReader(new InputStreamReader(Files.newInputStream(path), Charset.defaultCharset()));
+    }
+
+    /**
+     * Reads the whole file with a single bulk read.
+     *
+     * @return The source text.
+     * @throws IOException If the file cannot be read.
+     */
+    @Override
+    public String readContent() throws IOException {
+        return new String(Files.readAllBytes(path), Charset.defaultCharset());
+    }
+}
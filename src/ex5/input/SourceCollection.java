@@ -0,0 +1,186 @@
+package ex5.input;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * The set of SJava sources named by a single command-line argument.
+ * A plain '.sjava' file or a '.sjava.gz' file yields one source, a directory yields every
+ * '.sjava' / '.sjava.gz' file below it, and a '.zip' or '.jar' archive is mounted through the
+ * zip file system provider and yields one source per '.sjava' / '.sjava.gz' entry.
+ * Archives stay mounted until the collection is closed.
+ * A git revision range yields one source per '.sjava' / '.sjava.gz' file added or modified in the
+ * range, read from the repository at the range's end revision.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class SourceCollection implements Closeable {
+    public static final String SOURCE_SUFFIX = ".sjava";
+    public static final String GZIP_SOURCE_SUFFIX = ".sjava.gz";
+    private static final String ZIP_SUFFIX = ".zip";
+    private static final String JAR_SUFFIX = ".jar";
+    private static final String ENTRY_SEPARATOR = "!";
+
+    private final List<SourceInput> sources; // Sources in a deterministic order
+    private final Closeable resource; // Mounted archive or git repository, or null
+
+    /**
+     * Constructs a SourceCollection.
+     *
+     * @param sources The sources of the collection.
+     * @param resource The mounted archive file system or the git repository, or null.
+     */
+    private SourceCollection(List<SourceInput> sources, Closeable resource) {
+        this.sources = Collections.unmodifiableList(sources);
+        this.resource = resource;
+    }
+
+    /**
+     * Opens the sources named by the given path.
+     *
+     * @param filePath The path of a directory or of a '.sjava', '.sjava.gz', '.zip' or '.jar' file.
+     * @return The collection of sources.
+     * @throws IOException If the archive cannot be mounted or listed.
+     */
+    public static SourceCollection open(String filePath) throws IOException {
+        Path path = Path.of(filePath);
+        if (isArchivePath(filePath)) {
+            return openArchive(path);
+        }
+        if (Files.isDirectory(path)) {
+            return new SourceCollection(collectSources(path, ""), null);
+        }
+        List<SourceInput> single = new ArrayList<>();
+        single.add(forPath(path, filePath));
+        return new SourceCollection(single, null);
+    }
+
+    /**
+     * Opens the sources added or modified in a git revision range, read from the repository's
+     * object database as of the range's end revision.
+     *
+     * @param repositoryPath A directory inside the git repository.
+     * @param range A revision range of the form "from..to" or "from...to".
+     * @return The collection of sources, sorted by path.
+     * @throws IOException If the range is malformed or git fails.
+     */
+    public static SourceCollection openGitRange(String repositoryPath, String range) throws IOException {
+        GitRepository repository = new GitRepository(Path.of(repositoryPath));
+        List<SourceInput> changed = new ArrayList<>();
+        try {
+            String endCommit = repository.resolveRangeEnd(range);
+            repository.listChangedFiles(range, endCommit).stream()
+                    .filter(SourceCollection::isSourceName)
+                    .sorted()
+                    .forEach(path -> changed.add(new GitSourceInput(repository, endCommit, path)));
+        } catch (IOException e) {
+            repository.close();
+            throw e;
+        }
+        return new SourceCollection(changed, repository);
+    }
+
+    /**
+     * Checks whether the given path names a zip or jar archive.
+     *
+     * @param filePath The path to check.
+     * @return True if the path is an archive, otherwise false.
+     */
+    public static boolean isArchivePath(String filePath) {
+        return filePath.endsWith(ZIP_SUFFIX) || filePath.endsWith(JAR_SUFFIX);
+    }
+
+    /**
+     * Checks whether the given name is an SJava source, compressed or not.
+     *
+     * @param name The file or entry name.
+     * @return True if the name ends with '.sjava' or '.sjava.gz', otherwise false.
+     */
+    public static boolean isSourceName(String name) {
+        return name.endsWith(SOURCE_SUFFIX) || name.endsWith(GZIP_SOURCE_SUFFIX);
+    }
+
+    /**
+     * Creates the source for a single path, decompressing it if it is gzip-compressed.
+     *
+     * @param path The path of the source.
+     * @param name The name reported for the source.
+     * @return The corresponding source.
+     */
+    public static SourceInput forPath(Path path, String name) {
+        if (name.endsWith(GZIP_SOURCE_SUFFIX)) {
+            return new GzipSourceInput(path, name);
+        }
+        return new PathSourceInput(path, name);
+    }
+
+    /**
+     * Mounts an archive and collects its SJava entries, sorted by entry name.
+     *
+     * @param path The archive path.
+     * @return The collection of entries.
+     * @throws IOException If the archive cannot be mounted or listed.
+     */
+    private static SourceCollection openArchive(Path path) throws IOException {
+        FileSystem zipFs = FileSystems.newFileSystem(path);
+        List<SourceInput> entries = new ArrayList<>();
+        try {
+            for (Path root : zipFs.getRootDirectories()) {
+                entries.addAll(collectSources(root, path + ENTRY_SEPARATOR));
+            }
+        } catch (IOException e) {
+            zipFs.close();
+            throw e;
+        }
+        return new SourceCollection(entries, zipFs);
+    }
+
+    /**
+     * Collects the SJava sources below a directory, sorted by path.
+     *
+     * @param root The directory to walk.
+     * @param namePrefix The prefix of the reported names (the archive name, if any).
+     * @return The sources found below the directory.
+     * @throws IOException If the directory cannot be walked.
+     */
+    private static List<SourceInput> collectSources(Path root, String namePrefix) throws IOException {
+        List<SourceInput> sources = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(root)) {
+            walk.filter(Files::isRegularFile)
+                    .filter(entry -> isSourceName(entry.toString()))
+                    .sorted()
+                    .forEach(entry -> sources.add(forPath(entry,
+                            namePrefix.isEmpty() ? entry.toString() : namePrefix + entry)));
+        }
+        return sources;
+    }
+
+    /**
+     * Retrieves the sources of the collection.
+     *
+     * @return An unmodifiable list of sources.
+     */
+    public List<SourceInput> getSources() {
+        return sources;
+    }
+
+    /**
+     * Unmounts the archive or releases the git repository, if any.
+     *
+     * @throws IOException If the archive or the repository cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (resource != null) {
+            resource.close();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package ex5.input;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * A single SJava source that can be opened for reading.
+ * Implementations hide where the text actually lives (a plain file, an entry inside a zip/jar
+ * archive or a gzip-compressed file), so the parser never has to extract anything to disk.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public interface SourceInput {
+    /**
+     * Size of the chunks in which {@link #readContent()} reads the source.
+     */
+    int READ_BUFFER_SIZE = 8192;
+
+    /**
+     * Retrieves the display name of the source, used when reporting results.
+     *
+     * @return The name of the source.
+     */
+    String getName();
+
+    /**
+     * Opens a fresh reader over the source text.
+     *
+     * @return A buffered reader positioned at the start of the source.
+     * @throws IOException If the source cannot be opened.
+     */
+    BufferedReader openReader() throws IOException;
+
+    /**
+     * Estimates the size of the source without reading it, so that work can be balanced before
+     * any source is read.
+     *
+     * @return The size of the stored source in bytes, or 0 if it is not known.
+     */
+    default long estimateSize() {
+        return 0;
+    }
+
+    /**
+     * Reads the whole source text into memory, separately from parsing it.
+     *
+     * @return The source text.
+     * @throws IOException If the source cannot be read.
+     */
+    default String readContent() throws IOException {
+        StringBuilder content = new StringBuilder();
+        char[] buffer = new char[READ_BUFFER_SIZE];
+        try (BufferedReader reader = openReader()) {
+            int count;
+            while ((count = reader.read(buffer)) != -1) {
+                content.append(buffer, 0, count);
+            }
+        }
+        return content.toString();
+    }
+}
@@ -0,0 +1,66 @@
+package ex5.lint;
+
+import ex5.model.Method;
+import ex5.model.statements.Statement;
+import ex5.model.statements.StatementKind;
+import ex5.model.statements.VarDeclarationStatement;
+import ex5.validator.Analysis;
+import ex5.validator.Environment;
+
+import java.util.function.Consumer;
+
+/**
+ * Reports local variables that hide a variable of an enclosing block, a parameter or a global
+ * variable. SJava allows such declarations, but a later read of the name easily refers to the
+ * wrong variable. The enclosing declarations are looked up in the walk's environments, which the
+ * semantic validation fills in before this analysis is called.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class ShadowingAnalysis implements Analysis {
+    private static final String SHADOWING_MESSAGE = "Variable %s in method %s hides a variable of an enclosing scope";
+
+    private final Consumer<String> warnings; // Receives every warning
+    private Method method; // The method being walked, or null in the global scope
+
+    /**
+     * Constructs a ShadowingAnalysis.
+     *
+     * @param warnings Receives every warning.
+     */
+    public ShadowingAnalysis(Consumer<String> warnings) {
+        this.warnings = warnings;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void enterMethod(Method method, Environment environment) {
+        this.method = method;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void exitMethod(Method method, Environment environment) {
+        this.method = null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void visitStatement(Statement statement, Environment environment) {
+        if (method == null || statement.getKind() != StatementKind.VAR_DECLARATION) {
+            return;
+        }
+        Environment enclosing = environment.getParent();
+        for (CharSequence name : ((VarDeclarationStatement) statement).getNames()) {
+            if (enclosing.findVariable(name) != null) {
+                warnings.accept(String.format(SHADOWING_MESSAGE, name, method.getMethodName()));
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package ex5.lint;
+
+import ex5.model.GlobalScope;
+import ex5.model.Method;
+import ex5.model.statements.MethodCallStatement;
+import ex5.model.statements.Statement;
+import ex5.model.statements.StatementKind;
+import ex5.validator.Analysis;
+import ex5.validator.Environment;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Reports methods that no walked method body calls, other than from their own body.
+ * Entry methods are called from outside the program, so they are never reported.
+ * An instance serves a single walk.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class UnusedMethodAnalysis implements Analysis {
+    private static final String UNUSED_METHOD_MESSAGE = "Method %s is never called";
+
+    private final Consumer<String> warnings; // Receives every warning
+    private final Set<String> entryMethods; // Names of the methods called from outside the program
+    private final Set<CharSequence> called; // Names of the methods called by another method
+    private Method method; // The method being walked, or null in the global scope
+
+    /**
+     * Constructs an UnusedMethodAnalysis.
+     *
+     * @param entryMethods The names of the methods called from outside the program.
+     * @param warnings Receives every warning.
+     */
+    public UnusedMethodAnalysis(Set<String> entryMethods, Consumer<String> warnings) {
+        this.warnings = warnings;
+        this.entryMethods = Set.copyOf(entryMethods);
+        this.called = new HashSet<>();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void enterMethod(Method method, Environment environment) {
+        this.method = method;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void exitMethod(Method method, Environment environment) {
+        this.method = null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void visitStatement(Statement statement, Environment environment) {
+        if (method != null && statement.getKind() == StatementKind.METHOD_CALL) {
+            CharSequence callee = ((MethodCallStatement) statement).getMethodName();
+            if (!callee.equals(method.getMethodName())) {
+                called.add(callee);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void finish(GlobalScope program, Environment globals) {
+        for (Method declared : program.getMethods()) {
+            CharSequence name = declared.getMethodName();
+            if (!called.contains(name) && !entryMethods.contains(name)) {
+                warnings.accept(String.format(UNUSED_METHOD_MESSAGE, name));
+            }
+        }
+    }
+}
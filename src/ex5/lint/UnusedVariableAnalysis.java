@@ -0,0 +1,160 @@
+package ex5.lint;
+
+import ex5.model.GlobalScope;
+import ex5.model.Method;
+import ex5.model.Variable;
+import ex5.model.statements.AssignmentStatement;
+import ex5.model.statements.IfWhileStatement;
+import ex5.model.statements.MethodCallStatement;
+import ex5.model.statements.Statement;
+import ex5.model.statements.VarDeclarationStatement;
+import ex5.parser.RegexPatterns;
+import ex5.parser.ValueKind;
+import ex5.validator.Analysis;
+import ex5.validator.Environment;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reports variables that are declared but never read.
+ * A variable is read when it is the value of a declaration or an assignment, an argument of a
+ * method call or a condition of an if/while block; being assigned to does not count. Names are
+ * resolved against the declarations of the enclosing blocks, innermost first, so a read of a
+ * shadowing variable does not count for the variable it hides. Local variables are reported when
+ * their block ends, global variables once every walked method body is done. Parameters are never
+ * reported. An instance serves a single walk.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class UnusedVariableAnalysis implements Analysis {
+    private static final String UNUSED_LOCAL_MESSAGE = "Variable %s in method %s is never used";
+    private static final String UNUSED_GLOBAL_MESSAGE = "Global variable %s is never used";
+
+    private final Consumer<String> warnings; // Receives every warning
+    private final Deque<Map<CharSequence, Boolean>> declarations; // Whether each declared name was read, innermost block first
+    private Method method; // The method being walked, or null in the global scope
+
+    /**
+     * Constructs an UnusedVariableAnalysis.
+     *
+     * @param warnings Receives every warning.
+     */
+    public UnusedVariableAnalysis(Consumer<String> warnings) {
+        this.warnings = warnings;
+        this.declarations = new ArrayDeque<>();
+        declarations.push(new LinkedHashMap<>()); // The global variables
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void enterMethod(Method method, Environment environment) {
+        this.method = method;
+        Map<CharSequence, Boolean> body = new LinkedHashMap<>();
+        for (Variable parameter : method.getParameters()) {
+            body.put(parameter.getName(), true);
+        }
+        declarations.push(body);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void exitMethod(Method method, Environment environment) {
+        reportUnused(declarations.pop());
+        this.method = null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void enterBlock(IfWhileStatement block, Environment environment) {
+        declarations.push(new LinkedHashMap<>());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void exitBlock(IfWhileStatement block, Environment environment) {
+        reportUnused(declarations.pop());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void finish(GlobalScope program, Environment globals) {
+        reportUnused(declarations.pop());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void visitStatement(Statement statement, Environment environment) {
+        switch (statement.getKind()) {
+            case VAR_DECLARATION -> {
+                VarDeclarationStatement declaration = (VarDeclarationStatement) statement;
+                List<CharSequence> values = declaration.getValues();
+                for (int i = 0; i < values.size(); i++) {
+                    if (values.get(i) != null) {
+                        markRead(values.get(i));
+                    }
+                    declarations.peek().put(declaration.getNames().get(i), false);
+                }
+            }
+            case ASSIGNMENT -> markRead(((AssignmentStatement) statement).getAssignedValue());
+            case METHOD_CALL -> {
+                for (CharSequence argument : ((MethodCallStatement) statement).getArguments()) {
+                    markRead(argument);
+                }
+            }
+            case IF_WHILE -> {
+                for (CharSequence condition : ((IfWhileStatement) statement).getConditions()) {
+                    markRead(condition);
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks the variable an operand names as read, if the operand is a variable.
+     *
+     * @param operand The operand, a literal or a variable name.
+     */
+    private void markRead(CharSequence operand) {
+        if (RegexPatterns.findValueKind(operand) != ValueKind.IDENTIFIER) {
+            return;
+        }
+        for (Map<CharSequence, Boolean> block : declarations) {
+            if (block.containsKey(operand)) {
+                block.put(operand, true);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reports the variables of a completed block that were never read.
+     *
+     * @param block The declarations of the block.
+     */
+    private void reportUnused(Map<CharSequence, Boolean> block) {
+        for (Map.Entry<CharSequence, Boolean> entry : block.entrySet()) {
+            if (!entry.getValue()) {
+                warnings.accept((method == null)
+                        ? String.format(UNUSED_GLOBAL_MESSAGE, entry.getKey())
+                        : String.format(UNUSED_LOCAL_MESSAGE, entry.getKey(), method.getMethodName()));
+            }
+        }
+    }
+}
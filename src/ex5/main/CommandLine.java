@@ -0,0 +1,140 @@
+package ex5.main;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parsed command-line arguments of the SJava compiler.
+ * Options have the form "--name" or "--name=value"; every other argument is positional.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class CommandLine {
+    private static final String OPTION_PREFIX = "--";
+    private static final char VALUE_SEPARATOR = '=';
+    private static final String UNKNOWN_OPTION_MESSAGE = "Unknown option: %s";
+    private static final String MISSING_VALUE_MESSAGE = "Option --%s requires a value";
+    private static final String INVALID_NUMBER_MESSAGE = "Option --%s expects a positive number, got '%s'";
+
+    private final Map<String, String> options; // Option values keyed by name ("" for flags)
+    private final List<String> arguments; // Positional arguments, in order
+
+    /**
+     * Constructs a CommandLine.
+     *
+     * @param options The option values keyed by name.
+     * @param arguments The positional arguments.
+     */
+    private CommandLine(Map<String, String> options, List<String> arguments) {
+        this.options = options;
+        this.arguments = Collections.unmodifiableList(arguments);
+    }
+
+    /**
+     * Parses command-line arguments.
+     *
+     * @param args The raw arguments.
+     * @param knownOptions The names of the options the caller accepts.
+     * @return The parsed command line.
+     * @throws IllegalArgumentException If an unknown option is given.
+     */
+    public static CommandLine parse(String[] args, Set<String> knownOptions) {
+        Map<String, String> options = new HashMap<>();
+        List<String> arguments = new ArrayList<>();
+        for (String arg : args) {
+            if (!arg.startsWith(OPTION_PREFIX)) {
+                arguments.add(arg);
+                continue;
+            }
+            String option = arg.substring(OPTION_PREFIX.length());
+            int separator = option.indexOf(VALUE_SEPARATOR);
+            String name = separator < 0 ? option : option.substring(0, separator);
+            String value = separator < 0 ? "" : option.substring(separator + 1);
+            if (!knownOptions.contains(name)) {
+                throw new IllegalArgumentException(String.format(UNKNOWN_OPTION_MESSAGE, arg));
+            }
+            options.put(name, value);
+        }
+        return new CommandLine(options, arguments);
+    }
+
+    /**
+     * Checks whether an option was given.
+     *
+     * @param name The option name.
+     * @return True if the option was given, otherwise false.
+     */
+    public boolean hasOption(String name) {
+        return options.containsKey(name);
+    }
+
+    /**
+     * Retrieves the value of an option that requires one.
+     *
+     * @param name The option name.
+     * @return The option value, or null if the option was not given.
+     * @throws IllegalArgumentException If the option was given without a value.
+     */
+    public String getOption(String name) {
+        String value = options.get(name);
+        if (value != null && value.isEmpty()) {
+            throw new IllegalArgumentException(String.format(MISSING_VALUE_MESSAGE, name));
+        }
+        return value;
+    }
+
+    /**
+     * Retrieves the value of a positive numeric option.
+     *
+     * @param name The option name.
+     * @param defaultValue The value used when the option was not given.
+     * @return The option value.
+     * @throws IllegalArgumentException If the value is not a positive number.
+     */
+    public int getIntOption(String name, int defaultValue) {
+        String value = getOption(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int number = Integer.parseInt(value);
+            if (number > 0) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException(String.format(INVALID_NUMBER_MESSAGE, name, value));
+    }
+
+    /**
+     * Formats some of the given options back into command-line arguments, in the order of the
+     * given names, so that they can be passed on to another process.
+     *
+     * @param names The names of the options to pass on; options that were not given are skipped.
+     * @return The arguments.
+     */
+    public List<String> formatOptions(List<String> names) {
+        List<String> formatted = new ArrayList<>();
+        for (String name : names) {
+            String value = options.get(name);
+            if (value != null) {
+                formatted.add(value.isEmpty() ? OPTION_PREFIX + name : OPTION_PREFIX + name + VALUE_SEPARATOR + value);
+            }
+        }
+        return formatted;
+    }
+
+    /**
+     * Retrieves the positional arguments.
+     *
+     * @return An unmodifiable list of positional arguments.
+     */
+    public List<String> getArguments() {
+        return arguments;
+    }
+}
@@ -1,12 +1,41 @@
 package ex5.main;
 
-import ex5.model.GlobalScope;
+import ex5.batch.BatchVerifier;
+import ex5.batch.ScheduleReport;
+import ex5.batch.SchedulingPolicy;
+import ex5.input.SourceCollection;
+import ex5.input.SourceInput;
+import ex5.lint.ShadowingAnalysis;
+import ex5.lint.UnusedMethodAnalysis;
+import ex5.lint.UnusedVariableAnalysis;
+import ex5.parser.OperandCache;
+import ex5.profile.CorpusAnalyzer;
+import ex5.profile.LineProfiler;
+import ex5.serial.ParseTreeReader;
+import ex5.shard.ProcessTransport;
+import ex5.shard.ShardCoordinator;
+import ex5.shard.ShardWorker;
+import ex5.shard.WorkerTransport;
+import ex5.util.CancellationToken;
 import ex5.parser.SJavaFileParser;
-import ex5.parser.SyntaxException;
-import ex5.validator.SJavaValidator;
-import ex5.validator.SemanticException;
+import ex5.validator.Analysis;
+import ex5.validator.MethodMemoCache;
+import ex5.verifier.Outcome;
+import ex5.verifier.ShadowVerifier;
+import ex5.verifier.VerificationResult;
+import ex5.verifier.Verifier;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
 
 /**
  * The main compiler class for the SJava language.
@@ -18,50 +47,530 @@ import java.io.IOException;
  * <ul>
  *     <li>0 - Compilation successful, no errors.</li>
  *     <li>1 - Compilation failed due to syntax or semantic errors.</li>
- *     <li>2 - Compilation failed due to incorrect usage or I/O errors.</li>
+ *     <li>2 - Compilation failed due to incorrect usage or I/O errors, or was abandoned, including
+ *     when a source line is too complex to verify within the thread's stack.</li>
  * </ul>
+ * The source may also be gzip-compressed ('.sjava.gz'). When a '.zip' or '.jar' archive or a
+ * directory is given, every '.sjava' / '.sjava.gz' source in it is verified through the batch
+ * pipeline ("--workers" parse/validate threads, at most "--prefetch" sources read ahead), and one
+ * line of the form "&lt;source&gt; &lt;exit code&gt;" is printed per source, in name order.
+ * With "--git-range=&lt;from&gt;..&lt;to&gt;", the argument is a git repository, and only the
+ * sources added or modified in the revision range are verified, read straight from git at the
+ * range's end revision.
+ * With "--timeout=&lt;ms&gt;", a source whose verification takes longer is abandoned and reported
+ * as timed out, with exit code 2.
+ * With "--memo-cache=&lt;entries&gt;", identical method bodies shared by several entries are
+ * validated once, and the memo's hit statistics are reported on the standard error stream.
+ * With "--max-nesting=&lt;depth&gt;", sources whose blocks nest deeper than the limit are
+ * rejected with a compilation error; by default any depth is accepted.
+ * With "--emit-tree=&lt;file&gt;", the parse tree of a single source is saved in a binary format;
+ * passing the saved '.sjpt' file instead of the source later skips parsing altogether.
+ * With "--profile-lines", the time spent classifying, parsing and validating each line of a single
+ * source is recorded, and the "--profile-top" most expensive lines (10 by default) and a histogram
+ * of match attempt durations per line pattern are reported on the standard error stream.
+ * With "--operand-cache=&lt;entries&gt;", operand classifications are cached and the cache's
+ * hit statistics are reported on the standard error stream.
+ * With "--off-heap", the names and literals of every parsed source are stored outside the Java
+ * heap, each distinct name once, and released as soon as the source is verified, which keeps
+ * very large inputs from exhausting the heap.
+ * With "--pipelined", each source is validated while it is still being parsed, on a separate
+ * thread; the results are the same as without it.
+ * With "--syntax-only", sources are only checked to be well-formed: line structure, brackets,
+ * nesting and method declarations are verified, but nothing is validated semantically.
+ * With "--tiered", each source of a batch is first checked with the syntax-only tier, and only
+ * the sources that pass it are then fully verified, from the text already read; the results are
+ * the same as without it.
+ * With "--schedule", the sources of a batch are verified largest first, so that no large source is
+ * left running alone at the end of the batch; the results are still printed in name order, and the
+ * batch's makespan and the 50th, 95th and 99th percentiles of the per-source verification times
+ * are printed as JSON on the standard error stream.
+ * With "--roots=&lt;method&gt;,...", only the global scope and the methods reachable from the
+ * named entry methods are validated; the bodies of the other methods are only checked for syntax
+ * errors. A source that does not declare every entry method fails to compile.
+ * With "--shadow=&lt;directory&gt;", every source is also verified by the reference engine (parsing
+ * and then validating, without any of the options selecting another engine) at the same time as
+ * by the engine the other options select. The reference results are printed; sources on which
+ * the engines disagree are saved in the directory, and the latency histograms of both engines
+ * are printed as JSON on the standard error stream.
+ * At most one of "--syntax-only", "--shadow", "--tiered", "--emit-tree", "--profile-lines" and
+ * "--lint" may be given, and none of them with a saved '.sjpt' parse tree; conflicting options
+ * are reported as incorrect usage, as is "--lint" with a batch.
+ * With "--shards=&lt;count&gt;", a batch is verified by that many worker processes instead, each
+ * a JVM of its own (with "--worker-heap=&lt;size&gt;" as its maximum heap, such as "512m"). The
+ * sources are partitioned between the workers by size and streamed to them over pipes; a source
+ * whose worker crashes is retried on a fresh worker, and reported with exit code 2 if it keeps
+ * failing. The output is the same as that of a single process; "--syntax-only" is passed on to
+ * the workers, while "--tiered", "--shadow" and "--schedule" cannot be combined with "--shards".
+ * Workers run this class with "--worker", reading sources from the standard input and writing
+ * results to the standard output.
+ * With "--lint", a single source is also checked for unused variables, unused methods (other than
+ * the "--roots" entry methods) and variables hiding others, in the same walk as its semantic
+ * validation; the warnings are reported on the standard error stream and do not change the
+ * exit code.
+ * With "--analyze", nothing is verified: the sources (a single file, a directory, an archive or a
+ * git revision range) are characterized in parallel instead, and histograms of their line lengths,
+ * line types, operand kinds and method, block and call shapes are printed as JSON.
  *
  * @author Joshua Kolodny, Itamar Lev Ari
  */
 public class Sjavac {
 
-    private static final String ARG_LENGTH_ERR = "Usage: java ex5.main.Sjavac <source_file.sjava>";
+    private static final String ARG_LENGTH_ERR =
+            "Usage: java ex5.main.Sjavac [--memo-cache=<entries>] [--operand-cache=<entries>] "
+                    + "[--max-nesting=<depth>] [--emit-tree=<file.sjpt>] "
+                    + "[--profile-lines] [--profile-top=<lines>] [--git-range=<from>..<to>] "
+                    + "[--timeout=<ms>] [--off-heap] [--pipelined] [--analyze] "
+                    + "[--syntax-only] [--tiered] [--schedule] [--roots=<method>,...] [--shadow=<directory>] [--lint] "
+                    + "[--shards=<count>] [--worker-heap=<size>] "
+                    + "[--workers=<threads>] [--prefetch=<files>] "
+                    + "<source_file.sjava | source_file.sjava.gz | parse_tree.sjpt | sources.zip | directory | git_repository>";
     private static final String IO_ERROR = "IO Error: ";
-    private static final String COMPILATION_ERROR = "Compilation Error: ";
+    private static final String ENTRY_PREFIX = "%s: ";
+    private static final String ENTRY_RESULT = "%s %d";
+    private static final int IO_ERROR_CODE = 2;
+    private static final String MEMO_CACHE_OPTION = "memo-cache";
+    private static final String OPERAND_CACHE_OPTION = "operand-cache";
+    private static final String MAX_NESTING_OPTION = "max-nesting";
+    private static final String EMIT_TREE_OPTION = "emit-tree";
+    private static final String PROFILE_LINES_OPTION = "profile-lines";
+    private static final String PROFILE_TOP_OPTION = "profile-top";
+    private static final String GIT_RANGE_OPTION = "git-range";
+    private static final String TIMEOUT_OPTION = "timeout";
+    private static final String OFF_HEAP_OPTION = "off-heap";
+    private static final String PIPELINED_OPTION = "pipelined";
+    private static final String ANALYZE_OPTION = "analyze";
+    private static final String SYNTAX_ONLY_OPTION = "syntax-only";
+    private static final String TIERED_OPTION = "tiered";
+    private static final String SCHEDULE_OPTION = "schedule";
+    private static final String ROOTS_OPTION = "roots";
+    private static final String ROOTS_SEPARATOR = ",";
+    private static final String SHADOW_OPTION = "shadow";
+    private static final String LINT_OPTION = "lint";
+    private static final String WARNING_PREFIX = "Warning: ";
+    private static final String SHARDS_OPTION = "shards";
+    private static final String WORKER_HEAP_OPTION = "worker-heap";
+    private static final String WORKER_OPTION = "worker";
+    private static final String HEAP_FLAG = "-Xmx";
+    private static final int SHARD_ATTEMPTS = 3;
+    // Options configuring the verifier, passed on to worker processes
+    private static final List<String> WORKER_OPTIONS = List.of(MEMO_CACHE_OPTION, OPERAND_CACHE_OPTION,
+            MAX_NESTING_OPTION, TIMEOUT_OPTION, OFF_HEAP_OPTION, PIPELINED_OPTION, ROOTS_OPTION,
+            SYNTAX_ONLY_OPTION);
+    // Options that only apply to a batch verified within this process
+    private static final List<String> IN_PROCESS_BATCH_OPTIONS = List.of(TIERED_OPTION, SHADOW_OPTION,
+            SCHEDULE_OPTION);
+    private static final String SHARDS_CONFLICT_MESSAGE = "Option --%s cannot be combined with --shards";
+    // Options selecting how sources are verified, of which at most one may be given
+    private static final List<String> MODE_OPTIONS = List.of(SYNTAX_ONLY_OPTION, SHADOW_OPTION, TIERED_OPTION,
+            EMIT_TREE_OPTION, PROFILE_LINES_OPTION, LINT_OPTION);
+    private static final String LINT_BATCH_MESSAGE = "Option --lint only applies to a single source";
+    private static final String MODE_CONFLICT_MESSAGE = "Options --%s and --%s cannot be combined";
+    private static final String PARSE_TREE_CONFLICT_MESSAGE = "Option --%s cannot be applied to a saved parse tree";
+    private static final String WORKERS_OPTION = "workers";
+    private static final String PREFETCH_OPTION = "prefetch";
+    private static final Set<String> KNOWN_OPTIONS = Set.of(MEMO_CACHE_OPTION, OPERAND_CACHE_OPTION,
+            MAX_NESTING_OPTION, EMIT_TREE_OPTION, PROFILE_LINES_OPTION, PROFILE_TOP_OPTION, GIT_RANGE_OPTION,
+            TIMEOUT_OPTION, OFF_HEAP_OPTION, PIPELINED_OPTION, ANALYZE_OPTION, SYNTAX_ONLY_OPTION, TIERED_OPTION,
+            SCHEDULE_OPTION, ROOTS_OPTION, SHADOW_OPTION, LINT_OPTION, SHARDS_OPTION, WORKER_HEAP_OPTION,
+            WORKER_OPTION, WORKERS_OPTION, PREFETCH_OPTION);
+    private static final int DEFAULT_PREFETCH_LIMIT = 64;
+    private static final int DEFAULT_PROFILE_TOP = 10;
+    private static final String RESTART_STATS = "Worker restarts: %d";
+    private static final String SCHEDULE_STATS = "Schedule: ";
+    private static final String MEMO_STATS =
+            "Method memo: %d hits, %d misses (%.1f%% hit rate), %d/%d entries";
+    private static final String OPERAND_STATS =
+            "Operand cache: %d hits, %d misses (%.1f%% hit rate), %d/%d entries";
+    private static final double PERCENT = 100.0;
 
     /**
      * The main method for the SJava compiler.
      * It parses the given file, validates it, and prints the appropriate exit code.
      *
-     * @param args Command-line arguments. Expected: a single file path.
+     * @param args Command-line arguments. Expected: options followed by a single file path.
      */
     public static void main(String[] args) {
-        // Check if the correct number of arguments is provided
-        if (args.length != 1) {
-            System.err.println(ARG_LENGTH_ERR);
-            System.out.println(2);
+        CommandLine commandLine;
+        MethodMemoCache memo;
+        OperandCache operandCache;
+        int maxNestingDepth, workers, prefetchLimit, profileTop, shards;
+        String emitTreePath, gitRange, shadowDirectory, workerHeap;
+        Duration timeout;
+        Set<String> roots;
+        try {
+            commandLine = CommandLine.parse(args, KNOWN_OPTIONS);
+            memo = commandLine.hasOption(MEMO_CACHE_OPTION)
+                    ? new MethodMemoCache(commandLine.getIntOption(MEMO_CACHE_OPTION, 0)) : null;
+            operandCache = commandLine.hasOption(OPERAND_CACHE_OPTION)
+                    ? new OperandCache(commandLine.getIntOption(OPERAND_CACHE_OPTION, 0)) : null;
+            maxNestingDepth = commandLine.getIntOption(MAX_NESTING_OPTION, SJavaFileParser.UNLIMITED_NESTING);
+            workers = commandLine.getIntOption(WORKERS_OPTION, Runtime.getRuntime().availableProcessors());
+            prefetchLimit = commandLine.getIntOption(PREFETCH_OPTION, DEFAULT_PREFETCH_LIMIT);
+            emitTreePath = commandLine.getOption(EMIT_TREE_OPTION);
+            shadowDirectory = commandLine.getOption(SHADOW_OPTION);
+            shards = commandLine.getIntOption(SHARDS_OPTION, 0);
+            workerHeap = commandLine.getOption(WORKER_HEAP_OPTION);
+            gitRange = commandLine.getOption(GIT_RANGE_OPTION);
+            // Repeated entry methods are only listed once, in the order they are first given
+            roots = commandLine.hasOption(ROOTS_OPTION)
+                    ? new LinkedHashSet<>(Arrays.asList(commandLine.getOption(ROOTS_OPTION).split(ROOTS_SEPARATOR)))
+                    : null;
+            timeout = commandLine.hasOption(TIMEOUT_OPTION)
+                    ? Duration.ofMillis(commandLine.getIntOption(TIMEOUT_OPTION, 0)) : null;
+            profileTop = commandLine.getIntOption(PROFILE_TOP_OPTION, DEFAULT_PROFILE_TOP);
+            if (commandLine.hasOption(SHARDS_OPTION)) {
+                for (String option : IN_PROCESS_BATCH_OPTIONS) {
+                    if (commandLine.hasOption(option)) {
+                        throw new IllegalArgumentException(String.format(SHARDS_CONFLICT_MESSAGE, option));
+                    }
+                }
+            }
+            checkModeOptions(commandLine);
+        } catch (IllegalArgumentException e) {
+            printUsage(e.getMessage());
             return;
         }
 
-        String filePath = args[0];
+        try (Verifier verifier = Verifier.builder().charset(Charset.defaultCharset()).memo(memo)
+                    .maxNestingDepth(maxNestingDepth).offHeapOperands(commandLine.hasOption(OFF_HEAP_OPTION))
+                    .pipelined(commandLine.hasOption(PIPELINED_OPTION)).roots(roots).operandCache(operandCache)
+                    .build()) {
+            if (commandLine.hasOption(WORKER_OPTION)) {
+                serveCoordinator(verifier, timeout, commandLine.hasOption(SYNTAX_ONLY_OPTION));
+                return;
+            }
+
+            // Check if the correct number of arguments is provided
+            if (commandLine.getArguments().size() != 1) {
+                printUsage(null);
+                return;
+            }
+
+            String filePath = commandLine.getArguments().get(0);
+
+            if (commandLine.hasOption(ANALYZE_OPTION)) {
+                analyzeCorpus(filePath, gitRange, workers);
+                return;
+            }
+
+            ShadowVerifier shadow = null;
+            if (shadowDirectory != null) {
+                try {
+                    Verifier reference = Verifier.builder().charset(Charset.defaultCharset())
+                            .maxNestingDepth(maxNestingDepth).roots(roots).build();
+                    shadow = new ShadowVerifier(reference, verifier, Path.of(shadowDirectory));
+                } catch (IOException e) {
+                    System.err.println(IO_ERROR + e.getMessage());
+                    System.out.println(IO_ERROR_CODE);
+                    return;
+                }
+            }
+
+            boolean batch = gitRange != null || SourceCollection.isArchivePath(filePath)
+                    || Files.isDirectory(Path.of(filePath));
+            if (!batch) {
+                try {
+                    validateSourcePath(filePath);
+                } catch (IOException e) {
+                    System.out.println(report(new VerificationResult(Outcome.IO_ERROR, e.getMessage()), ""));
+                    return;
+                }
+            }
+            if (batch && commandLine.hasOption(LINT_OPTION)) {
+                printUsage(LINT_BATCH_MESSAGE);
+                return;
+            }
+            if (!batch && commandLine.hasOption(LINT_OPTION)) {
+                System.out.println(lintFile(verifier, filePath, roots, timeout));
+                printOperandStats(operandCache);
+                return;
+            }
+            if (!batch) {
+                LineProfiler profiler = commandLine.hasOption(PROFILE_LINES_OPTION) ? new LineProfiler() : null;
+                System.out.println(verifyFile(verifier, filePath, emitTreePath, profiler, timeout,
+                        commandLine.hasOption(SYNTAX_ONLY_OPTION), shadow));
+                if (profiler != null) {
+                    profiler.printReport(System.err, profileTop);
+                }
+                printShadowStats(shadow);
+                printOperandStats(operandCache);
+                return;
+            }
+
+            try (SourceCollection collection = (gitRange != null)
+                    ? SourceCollection.openGitRange(filePath, gitRange) : SourceCollection.open(filePath)) {
+                if (shards > 0) {
+                    List<String> jvmOptions = (workerHeap != null) ? List.of(HEAP_FLAG + workerHeap) : List.of();
+                    verifySharded(collection.getSources(), shards,
+                            new ProcessTransport(jvmOptions, commandLine.formatOptions(WORKER_OPTIONS)));
+                } else {
+                    SchedulingPolicy policy = commandLine.hasOption(SCHEDULE_OPTION)
+                            ? SchedulingPolicy.LONGEST_FIRST : SchedulingPolicy.INPUT_ORDER;
+                    ScheduleReport schedule = verifyBatch(verifier, collection.getSources(), workers, prefetchLimit,
+                            timeout, policy, commandLine.hasOption(SYNTAX_ONLY_OPTION),
+                            commandLine.hasOption(TIERED_OPTION), shadow);
+                    if (schedule != null && commandLine.hasOption(SCHEDULE_OPTION)) {
+                        System.err.println(SCHEDULE_STATS + schedule.toJson());
+                    }
+                }
+            } catch (IOException e) {
+                // Handle archives, directories or revision ranges that cannot be mounted or listed
+                System.err.println(IO_ERROR + e.getMessage());
+                System.out.println(IO_ERROR_CODE);
+            }
+            if (memo != null) {
+                System.err.println(String.format(MEMO_STATS, memo.getHitCount(), memo.getMissCount(),
+                        memo.getHitRate() * PERCENT, memo.size(), memo.getCapacity()));
+            }
+            printOperandStats(operandCache);
+            printShadowStats(shadow);
+        }
+    }
+
+    /**
+     * Characterizes a corpus and prints its statistics as JSON.
+     *
+     * @param filePath The path of a source file, a directory, an archive or a git repository.
+     * @param gitRange The revision range whose changed sources are analyzed, or null.
+     * @param workers The number of analysis threads.
+     */
+    private static void analyzeCorpus(String filePath, String gitRange, int workers) {
+        try (SourceCollection collection = (gitRange != null)
+                ? SourceCollection.openGitRange(filePath, gitRange) : SourceCollection.open(filePath)) {
+            System.out.println(new CorpusAnalyzer(workers).analyzeAll(collection.getSources()).toJson());
+        } catch (IOException e) {
+            System.err.println(IO_ERROR + e.getMessage());
+            System.out.println(IO_ERROR_CODE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reports the operand cache's hit statistics on the standard error stream.
+     *
+     * @param operandCache The operand cache, or null if caching is disabled.
+     */
+    private static void printOperandStats(OperandCache operandCache) {
+        if (operandCache != null) {
+            System.err.println(String.format(OPERAND_STATS, operandCache.getHitCount(),
+                    operandCache.getMissCount(), operandCache.getHitRate() * PERCENT,
+                    operandCache.size(), operandCache.getCapacity()));
+        }
+    }
+
+    /**
+     * Reports the engine comparison of shadow mode on the standard error stream.
+     *
+     * @param shadow The shadow verifier, or null if shadow mode is disabled.
+     */
+    private static void printShadowStats(ShadowVerifier shadow) {
+        if (shadow != null) {
+            System.err.println(shadow.toJson());
+        }
+    }
+
+    /**
+     * Reports incorrect usage.
+     *
+     * @param error A description of the problem, or null.
+     */
+    private static void printUsage(String error) {
+        if (error != null) {
+            System.err.println(error);
+        }
+        System.err.println(ARG_LENGTH_ERR);
+        System.out.println(IO_ERROR_CODE);
+    }
+
+    /**
+     * Checks that at most one option selecting how sources are verified is given, and none for a
+     * saved parse tree, which is always verified from the tree; the verification would otherwise
+     * silently ignore all but one of them.
+     *
+     * @param commandLine The parsed command line.
+     * @throws IllegalArgumentException If the options conflict.
+     */
+    private static void checkModeOptions(CommandLine commandLine) {
+        String selected = null;
+        for (String option : MODE_OPTIONS) {
+            if (!commandLine.hasOption(option)) {
+                continue;
+            }
+            if (selected != null) {
+                throw new IllegalArgumentException(String.format(MODE_CONFLICT_MESSAGE, selected, option));
+            }
+            selected = option;
+        }
+        List<String> arguments = commandLine.getArguments();
+        if (selected != null && arguments.size() == 1 && arguments.get(0).endsWith(ParseTreeReader.FILE_SUFFIX)) {
+            throw new IllegalArgumentException(String.format(PARSE_TREE_CONFLICT_MESSAGE, selected));
+        }
+    }
+
+    /**
+     * Checks that a single source has one of the accepted suffixes: '.sjava', '.sjava.gz' or
+     * '.sjpt'. Every single-source mode runs this check first, whichever way it reads the source.
+     *
+     * @param filePath The path of the source.
+     * @throws IOException If the path has none of the accepted suffixes.
+     */
+    private static void validateSourcePath(String filePath) throws IOException {
+        if (!filePath.endsWith(SourceCollection.GZIP_SOURCE_SUFFIX)
+                && !filePath.endsWith(ParseTreeReader.FILE_SUFFIX)) {
+            SJavaFileParser.validateFileSuffix(filePath);
+        }
+    }
 
+    /**
+     * Verifies a single plain or gzip-compressed source file, or a saved parse tree.
+     *
+     * @param verifier The verifier to use.
+     * @param filePath The path of the source file.
+     * @param emitTreePath The file receiving the source's parse tree, or null to save nothing.
+     * @param profiler The profiler recording the source's per-line costs, or null.
+     * @param timeout The maximum verification time, or null for no limit.
+     * @param syntaxOnly Whether the source is only checked to be well-formed.
+     * @param shadow The shadow verifier also running the reference engine, or null.
+     * @return The exit code of the verification.
+     */
+    private static int verifyFile(Verifier verifier, String filePath, String emitTreePath,
+                                  LineProfiler profiler, Duration timeout, boolean syntaxOnly,
+                                  ShadowVerifier shadow) {
+        // The deadline applies to whichever mode runs, so it is created before choosing one
+        CancellationToken cancellation = (timeout == null) ? null : new CancellationToken(timeout);
+        SourceInput source = SourceCollection.forPath(Path.of(filePath), filePath);
+        VerificationResult result;
+        if (filePath.endsWith(ParseTreeReader.FILE_SUFFIX)) {
+            result = verifier.verifyParseTree(Path.of(filePath), cancellation);
+        } else if (syntaxOnly) {
+            result = verifier.checkSyntax(source, cancellation);
+        } else if (shadow != null) {
+            result = shadow.verify(source, cancellation);
+        } else if (emitTreePath != null) {
+            result = verifier.verify(source, Path.of(emitTreePath), cancellation);
+        } else if (profiler != null) {
+            result = verifier.verify(source, profiler, cancellation);
+        } else if (cancellation != null || filePath.endsWith(SourceCollection.GZIP_SOURCE_SUFFIX)) {
+            result = verifier.verify(source, cancellation);
+        } else {
+            result = verifier.verifyFile(filePath);
+        }
+        return report(result, "");
+    }
+
+    /**
+     * Verifies a single source and lints it in the same walk, reporting every warning on the
+     * standard error stream.
+     *
+     * @param verifier The verifier.
+     * @param filePath The path of the source.
+     * @param roots The names of the entry methods, or null if there are none.
+     * @param timeout The maximum verification time, or null for no limit.
+     * @return The exit code of the verification.
+     */
+    private static int lintFile(Verifier verifier, String filePath, Set<String> roots, Duration timeout) {
+        List<String> warnings = new ArrayList<>();
+        List<Analysis> analyses = List.of(new UnusedVariableAnalysis(warnings::add),
+                new UnusedMethodAnalysis((roots == null) ? Set.of() : roots, warnings::add),
+                new ShadowingAnalysis(warnings::add));
+        VerificationResult result = verifier.verify(SourceCollection.forPath(Path.of(filePath), filePath), analyses,
+                (timeout == null) ? null : new CancellationToken(timeout));
+        for (String warning : warnings) {
+            System.err.println(WARNING_PREFIX + warning);
+        }
+        return report(result, "");
+    }
+
+    /**
+     * Verifies every source of a directory or an archive through the batch pipeline and prints
+     * one result line per source, in source order.
+     *
+     * @param verifier The verifier shared by all sources.
+     * @param sources The sources, in the order their results are printed.
+     * @param workers The number of parse/validate threads.
+     * @param prefetchLimit The maximum number of sources held in memory at once.
+     * @param timeout The maximum verification time per source, or null for no limit.
+     * @param policy The order in which sources are started.
+     * @param syntaxOnly Whether the sources are only checked to be well-formed.
+     * @param tiered Whether full verification is limited to the sources passing the syntax check.
+     * @param shadow The shadow verifier also running the reference engine, or null.
+     * @return The timing of the batch, or null if it was interrupted.
+     */
+    private static ScheduleReport verifyBatch(Verifier verifier, List<SourceInput> sources, int workers,
+                                              int prefetchLimit, Duration timeout, SchedulingPolicy policy,
+                                              boolean syntaxOnly, boolean tiered, ShadowVerifier shadow) {
+        BatchVerifier batchVerifier = new BatchVerifier(verifier, workers, prefetchLimit, timeout, policy);
+        BiConsumer<SourceInput, VerificationResult> printer = (source, result) -> {
+            int exitCode = report(result, String.format(ENTRY_PREFIX, source.getName()));
+            System.out.println(String.format(ENTRY_RESULT, source.getName(), exitCode));
+        };
         try {
-            // Parse the file and create a GlobalScope representation
-            GlobalScope globalScope = SJavaFileParser.parseFile(filePath);
+            if (syntaxOnly) {
+                return batchVerifier.checkSyntaxAll(sources, printer);
+            } else if (shadow != null) {
+                return batchVerifier.verifyAllShadowed(sources, shadow, printer);
+            } else if (tiered) {
+                return batchVerifier.verifyAllTiered(sources, printer);
+            } else {
+                return batchVerifier.verifyAll(sources, printer);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
 
-            // Validate the parsed file for syntax and semantic correctness
-            SJavaValidator.validate(globalScope);
+    /**
+     * Verifies every source of a batch across worker processes and prints one result line per
+     * source, in source order.
+     *
+     * @param sources The sources, in the order their results are printed.
+     * @param shards The number of worker processes.
+     * @param transport The transport starting the worker processes.
+     */
+    private static void verifySharded(List<SourceInput> sources, int shards, WorkerTransport transport) {
+        ShardCoordinator coordinator = new ShardCoordinator(transport, shards, SHARD_ATTEMPTS);
+        try {
+            coordinator.verifyAll(sources, (source, result) -> {
+                int exitCode = report(result, String.format(ENTRY_PREFIX, source.getName()));
+                System.out.println(String.format(ENTRY_RESULT, source.getName(), exitCode));
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (coordinator.getRestartCount() > 0) {
+            System.err.println(String.format(RESTART_STATS, coordinator.getRestartCount()));
+        }
+    }
 
-            // If no exceptions were thrown, the compilation is successful
-            System.out.println(0);
+    /**
+     * Serves a coordinating process as one of its workers, over the standard streams.
+     *
+     * @param verifier The verifier of the received sources.
+     * @param timeout The maximum verification time per source, or null for no limit.
+     * @param syntaxOnly Whether sources are only checked to be well-formed.
+     */
+    private static void serveCoordinator(Verifier verifier, Duration timeout, boolean syntaxOnly) {
+        try {
+            new ShardWorker(verifier, timeout, syntaxOnly).serve(System.in, System.out);
         } catch (IOException e) {
-            // Handle file reading errors and other I/O issues
+            // The coordinator is gone; there is nobody left to report to
             System.err.println(IO_ERROR + e.getMessage());
-            System.out.println(2);
-        } catch (SyntaxException | SemanticException e) {
-            // Handle syntax or semantic validation errors
-            System.err.println(COMPILATION_ERROR + e.getMessage());
-            System.out.println(1);
         }
     }
+
+    /**
+     * Reports the error of a failed verification on the standard error stream.
+     *
+     * @param result The verification result.
+     * @param errorPrefix A prefix identifying the source in error messages.
+     * @return The exit code of the verification.
+     */
+    private static int report(VerificationResult result, String errorPrefix) {
+        if (!result.isSuccess()) {
+            System.err.println(errorPrefix + result.formatMessage());
+        }
+        return result.getExitCode();
+    }
 }
@@ -1,7 +1,10 @@
 package ex5.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Represents the global scope in SJava.
@@ -12,6 +15,7 @@ import java.util.List;
  */
 public class GlobalScope extends Scope {
     private final List<Method> methods; // List of declared methods in the global scope
+    private final Map<CharSequence, Method> methodsByName; // The first method declared under each name
 
     /**
      * Constructs a new GlobalScope instance.
@@ -21,15 +25,16 @@ public class GlobalScope extends Scope {
     public GlobalScope(Scope parent) {
         super(parent);
         this.methods = new ArrayList<>();
+        this.methodsByName = new HashMap<>();
     }
 
     /**
      * Retrieves the list of methods declared in the global scope.
      *
-     * @return A list of Method objects.
+     * @return An unmodifiable list of Method objects.
      */
     public List<Method> getMethods() {
-        return methods;
+        return Collections.unmodifiableList(methods);
     }
 
     /**
@@ -39,20 +44,19 @@ public class GlobalScope extends Scope {
      */
     public void addMethod(Method method) {
         methods.add(method);
+        methodsByName.putIfAbsent(method.getMethodName(), method);
     }
 
     /**
      * Searches for a method by its name in the global scope.
+     * Names are compared by content. The names of one program are either all strings or all
+     * views shared through its off-heap arena; a view finds a method named by a string, but a
+     * string only finds methods named by strings.
      *
      * @param methodName The name of the method to find.
      * @return The Method object if found, otherwise null.
      */
-    public Method findMethod(String methodName) {
-        for (Method method : methods) {
-            if (method.getMethodName().equals(methodName)) {
-                return method;
-            }
-        }
-        return null;
+    public Method findMethod(CharSequence methodName) {
+        return methodsByName.get(methodName);
     }
 }
@@ -1,18 +1,22 @@
 package ex5.model;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Represents a method in the SJava language.
  * A method has a unique name, parameters, and a dedicated scope for its body.
  * This class provides access to method metadata and parameters.
+ * The types the parameters accept are precomputed as a {@link TypeVector} when the method is
+ * created, so checking a call's argument types takes a single mask.
  *
  * @author Joshua Kolodny, Itamar Lev Ari
  */
 public class Method {
-    private final String methodName; // Unique method name
+    private final CharSequence methodName; // Unique method name, possibly off-heap
     private final List<Variable> parameters; // List of parameters
     private final Scope bodyScope; // Scope containing method statements
+    private final long acceptedArguments; // Types each parameter accepts, or 0 if they do not fit a vector
 
     /**
      * Constructs a Method with a name, parameters, and a body scope.
@@ -21,10 +25,11 @@ public class Method {
      * @param parameters  The list of parameters required by the method.
      * @param bodyScope   The scope containing the method's statements.
      */
-    public Method(String methodName, List<Variable> parameters, Scope bodyScope) {
+    public Method(CharSequence methodName, List<Variable> parameters, Scope bodyScope) {
         this.methodName = methodName;
-        this.parameters = parameters;
+        this.parameters = Collections.unmodifiableList(parameters);
         this.bodyScope = bodyScope;
+        this.acceptedArguments = TypeVector.fits(parameters.size()) ? TypeVector.acceptanceOf(parameters) : 0;
     }
 
     /**
@@ -32,14 +37,14 @@ public class Method {
      *
      * @return The method name as a string.
      */
-    public String getMethodName() {
+    public CharSequence getMethodName() {
         return methodName;
     }
 
     /**
      * Retrieves the list of parameters associated with the method.
      *
-     * @return A list of Variable objects representing the method's parameters.
+     * @return An unmodifiable list of Variable objects representing the method's parameters.
      */
     public List<Variable> getParameters() {
         return parameters;
@@ -53,4 +58,15 @@ public class Method {
     public Scope getBodyScope() {
         return bodyScope;
     }
+
+    /**
+     * Finds the first argument of a call that this method's parameters do not accept.
+     *
+     * @param argumentTypes The {@link TypeVector} of the call's argument types, which must have
+     *                      as many arguments as the method has parameters, and fit a vector.
+     * @return The position of the argument, or -1 if the call is compatible.
+     */
+    public int firstRejectedArgument(long argumentTypes) {
+        return TypeVector.firstRejected(argumentTypes, acceptedArguments);
+    }
 }
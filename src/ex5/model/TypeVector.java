@@ -0,0 +1,81 @@
+package ex5.model;
+
+import java.util.List;
+
+/**
+ * Packs a list of types into a single long, {@value #TYPE_BITS} bits per position.
+ * An argument vector sets, at each position, the bit of the argument's type; an acceptance vector
+ * sets, at each position, the bit of every type the parameter accepts. A call is then compatible
+ * with a method exactly when no bit of its argument vector falls outside the method's acceptance
+ * vector, which a single mask answers for every argument at once. Lists longer than
+ * {@link #MAX_LENGTH} do not fit and are checked type by type instead.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public final class TypeVector {
+    private static final int TYPE_BITS = VariableType.values().length;
+
+    /**
+     * The maximum number of types a vector holds.
+     */
+    public static final int MAX_LENGTH = Long.SIZE / TYPE_BITS;
+
+    /**
+     * Prevents instantiation.
+     */
+    private TypeVector() {
+    }
+
+    /**
+     * Checks whether a list of types fits in a vector.
+     *
+     * @param length The number of types.
+     * @return True if the list fits, otherwise false.
+     */
+    public static boolean fits(int length) {
+        return length <= MAX_LENGTH;
+    }
+
+    /**
+     * Adds an argument type to an argument vector.
+     *
+     * @param vector The argument vector so far.
+     * @param position The position of the argument.
+     * @param type The type of the argument.
+     * @return The extended argument vector.
+     */
+    public static long withArgument(long vector, int position, VariableType type) {
+        return vector | (1L << type.ordinal()) << (position * TYPE_BITS);
+    }
+
+    /**
+     * Builds the acceptance vector of a parameter list.
+     *
+     * @param parameters The parameters, at most {@link #MAX_LENGTH} of them.
+     * @return The acceptance vector.
+     */
+    static long acceptanceOf(List<Variable> parameters) {
+        long vector = 0;
+        for (int position = 0; position < parameters.size(); position++) {
+            VariableType parameterType = parameters.get(position).getType();
+            for (VariableType argumentType : VariableType.values()) {
+                if (!VariableType.isTypeIncompatible(parameterType, argumentType)) {
+                    vector = withArgument(vector, position, argumentType);
+                }
+            }
+        }
+        return vector;
+    }
+
+    /**
+     * Finds the first argument of an argument vector that an acceptance vector rejects.
+     *
+     * @param arguments The argument vector.
+     * @param acceptance The acceptance vector.
+     * @return The position of the argument, or -1 if every argument is accepted.
+     */
+    static int firstRejected(long arguments, long acceptance) {
+        long rejected = arguments & ~acceptance;
+        return (rejected == 0) ? -1 : Long.numberOfTrailingZeros(rejected) / TYPE_BITS;
+    }
+}
@@ -8,10 +8,10 @@ package ex5.model;
  * @author Joshua Kolodny, Itamar Lev Ari
  */
 public class Variable {
-    private final String name; // Variable name
+    private final CharSequence name; // Variable name, possibly off-heap
     private final VariableType type; // Declared variable type
     private final boolean isFinal; // Whether the variable is final
-    private VariableType valueType; // The type of the assigned value (optional)
+    private final VariableType valueType; // The type of the assigned value (optional)
 
     /**
      * Constructs a Variable with a name, type, and optional value type.
@@ -21,7 +21,7 @@ public class Variable {
      * @param isFinal   Whether the variable is final.
      * @param valueType The assigned value type, if initialized.
      */
-    public Variable(String name, VariableType type, boolean isFinal, VariableType valueType) {
+    public Variable(CharSequence name, VariableType type, boolean isFinal, VariableType valueType) {
         this.name = name;
         this.type = type;
         this.isFinal = isFinal;
@@ -31,9 +31,9 @@ public class Variable {
     /**
      * Retrieves the name of the variable.
      *
-     * @return The variable name as a string.
+     * @return The variable name, a string or a view of an off-heap arena.
      */
-    public String getName() {
+    public CharSequence getName() {
         return name;
     }
 
@@ -1,10 +1,11 @@
 package ex5.model.statements;
 
 import ex5.Constants.Constants;
-import ex5.model.Scope;
 import ex5.model.Variable;
 import ex5.model.VariableType;
 import ex5.parser.RegexPatterns;
+import ex5.parser.ValueKind;
+import ex5.validator.Environment;
 import ex5.validator.SemanticException;
 
 /**
@@ -13,14 +14,14 @@ import ex5.validator.SemanticException;
  *
  * @author Joshua Kolodny, Itamar Lev Ari
  */
-public class AssignmentStatement implements Statement {
+public final class AssignmentStatement extends Statement {
 
     private static final String INCOMPATIBLE_VARIABLE_TYPES = "incompatible variable types: %s and %s";
     private static final String VARIABLE_NOT_DECLARED_MESSAGE = "Variable %s not declared in scope";
     private static final String FINAL_VAR_REASSIGNMENT_MESSAGE = "Final variable %s cannot be reassigned";
 
-    private final String variableName;
-    private final String assignedValue; // e.g., "5", "anotherVar", "true"
+    private final CharSequence variableName; // Name of the assigned variable, possibly off-heap
+    private final CharSequence assignedValue; // e.g., "5", "anotherVar", "true"; possibly off-heap
 
     /**
      * Constructs an AssignmentStatement with a variable name and an assigned value.
@@ -28,46 +29,64 @@ public class AssignmentStatement implements Statement {
      * @param variableName  The name of the variable being assigned a value.
      * @param assignedValue The value being assigned to the variable.
      */
-    public AssignmentStatement(String variableName, String assignedValue) {
+    public AssignmentStatement(CharSequence variableName, CharSequence assignedValue) {
+        super(StatementKind.ASSIGNMENT);
         this.variableName = variableName;
         this.assignedValue = assignedValue;
     }
 
     /**
-     * Validates the assignment statement within the given scope.
+     * Retrieves the name of the variable being assigned.
+     *
+     * @return The variable name.
+     */
+    public CharSequence getVariableName() {
+        return variableName;
+    }
+
+    /**
+     * Retrieves the value being assigned.
+     *
+     * @return The assigned literal or variable name.
+     */
+    public CharSequence getAssignedValue() {
+        return assignedValue;
+    }
+
+    /**
+     * Validates the assignment statement within the given environment.
      * Ensures the variable exists, is not final, and that the types are compatible.
      *
-     * @param scope The current scope in which the assignment occurs.
+     * @param environment The current environment in which the assignment occurs.
      * @throws SemanticException If the assignment violates SJava's semantic rules.
      */
-    @Override
-    public void validate(Scope scope) throws SemanticException {
+    public void validate(Environment environment) throws SemanticException {
         // Find and validate the variable being assigned
-        Variable assignedToVar = findAndValidateVariable(scope);
+        Variable assignedToVar = findAndValidateVariable(environment);
 
         // Ensure that the variable is not final before assignment
         validateFinalVariable(assignedToVar);
 
         // Determine the type of the assigned value
-        VariableType assignedVariableType = determineAssignedVariableType(scope);
+        VariableType assignedVariableType = determineAssignedVariableType(environment);
 
         // Validate that the assigned value is compatible with the variable's type
         validateTypeCompatibility(assignedToVar, assignedVariableType);
 
-        // Add the updated variable to the scope
-        scope.addVariable(new Variable(assignedToVar.getName(), assignedToVar.getType(),
+        // Add the updated variable to the environment
+        environment.addVariable(new Variable(assignedToVar.getName(), assignedToVar.getType(),
                 false, assignedVariableType));
     }
 
     /**
      * Finds the variable in the given scope and ensures it exists.
      *
-     * @param scope The current scope.
+     * @param environment The current environment.
      * @return The found variable.
      * @throws SemanticException If the variable is not declared in scope.
      */
-    private Variable findAndValidateVariable(Scope scope) throws SemanticException {
-        Variable assignedToVar = scope.findVariable(variableName);
+    private Variable findAndValidateVariable(Environment environment) throws SemanticException {
+        Variable assignedToVar = environment.findVariable(variableName);
         if (assignedToVar == null) {
             throw new SemanticException(String.format(VARIABLE_NOT_DECLARED_MESSAGE, variableName));
         }
@@ -88,32 +107,32 @@ public class AssignmentStatement implements Statement {
 
     /**
      * Determines the type of the assigned value.
-     * If the assigned value is another variable, its type is retrieved from the scope.
+     * If the assigned value is another variable, its type is retrieved from the environment.
      *
-     * @param scope The current scope.
+     * @param environment The current environment.
      * @return The type of the assigned value.
      * @throws SemanticException If the assigned value is an undeclared variable.
      */
-    private VariableType determineAssignedVariableType(Scope scope) throws SemanticException {
+    private VariableType determineAssignedVariableType(Environment environment) throws SemanticException {
         // Check if the assigned value is a known primitive type or an identifier
-        String assignedVarTypeString = RegexPatterns.findValueTypePattern(assignedValue);
-        if (assignedVarTypeString.equals(Constants.IDENTIFIER)) {
+        ValueKind assignedValueKind = RegexPatterns.findValueKind(assignedValue);
+        if (assignedValueKind == ValueKind.IDENTIFIER) {
             // Retrieve the type of the variable from the scope
-            return getVariableTypeFromScope(scope);
+            return getVariableTypeFromScope(environment);
         } else {
-            return VariableType.fromString(assignedVarTypeString);
+            return assignedValueKind.getLiteralType();
         }
     }
 
     /**
-     * Retrieves the type of an assigned variable from the scope.
+     * Retrieves the type of an assigned variable from the environment.
      *
-     * @param scope The current scope.
+     * @param environment The current environment.
      * @return The type of the assigned variable.
      * @throws SemanticException If the variable is not declared or has no known type.
      */
-    private VariableType getVariableTypeFromScope(Scope scope) throws SemanticException {
-        Variable variable = scope.findVariable(assignedValue);
+    private VariableType getVariableTypeFromScope(Environment environment) throws SemanticException {
+        Variable variable = environment.findVariable(assignedValue);
         if (variable == null || variable.getValueType() == null) {
             throw new SemanticException(String.format(Constants.INCOMPATIBLE_ASSIGNMENT_MESSAGE, assignedValue));
         }
@@ -5,8 +5,14 @@ import ex5.model.Scope;
 import ex5.model.Variable;
 import ex5.model.VariableType;
 import ex5.parser.RegexPatterns;
+import ex5.parser.ValueKind;
+import ex5.validator.Environment;
 import ex5.validator.SemanticException;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Represents an if or while statement in the SJava language.
  * This statement ensures the conditions are valid and checks for semantic correctness
@@ -14,50 +20,66 @@ import ex5.validator.SemanticException;
  *
  * @author Joshua Kolodny, Itamar Lev Ari
  */
-public class IfWhileStatement implements Statement {
+public final class IfWhileStatement extends Statement {
 
     private static final String INVALID_CONDITION_TYPE_MESSAGE =
             "Argument '%s' is not a valid condition type";
 
     private final Scope innerScope; // Scope for statements within the block
-    private final String[] conditions; // Conditions controlling the if/while block
+    private final List<CharSequence> conditions; // Conditions controlling the block, the literals possibly off-heap
 
     /**
      * Constructs an IfWhileStatement with an inner scope and conditions.
      *
      * @param innerScope The scope containing statements within the block.
-     * @param conditions The conditions that control execution.
+     * @param conditions The conditions that control execution; strings where they are variable names.
      */
-    public IfWhileStatement(Scope innerScope, String[] conditions) {
+    public IfWhileStatement(Scope innerScope, CharSequence[] conditions) {
+        super(StatementKind.IF_WHILE);
         this.innerScope = innerScope;
-        this.conditions = conditions;
+        this.conditions = Collections.unmodifiableList(Arrays.asList(conditions));
     }
 
     /**
-     * Validates the if/while statement by ensuring valid conditions
-     * and checking the inner scope's statements.
+     * Retrieves the scope containing the statements within the block.
      *
-     * @param scope The current scope in which the if/while statement occurs.
+     * @return The inner scope.
+     */
+    public Scope getInnerScope() {
+        return innerScope;
+    }
+
+    /**
+     * Retrieves the conditions controlling the block.
+     *
+     * @return An unmodifiable view of the conditions, as literals or variable names.
+     */
+    public List<CharSequence> getConditions() {
+        return conditions;
+    }
+
+    /**
+     * Validates the if/while statement by ensuring valid conditions.
+     * The statements of the inner scope are validated afterwards by the validator,
+     * which walks nested blocks with an explicit work stack rather than by recursion.
+     *
+     * @param environment The current environment in which the if/while statement occurs.
      * @throws SemanticException If the statement violates SJava's semantic rules.
      */
-    @Override
-    public void validate(Scope scope) throws SemanticException {
+    public void validate(Environment environment) throws SemanticException {
         // Validate the conditions controlling the if/while block
-        validateConditions(scope);
-
-        // Validate statements inside the block's scope
-        validateInnerScopeStatements();
+        validateConditions(environment);
     }
 
     /**
      * Validates the conditions used in the if/while statement.
      *
-     * @param scope The current scope in which conditions are checked.
+     * @param environment The current environment in which conditions are checked.
      * @throws SemanticException If any condition is invalid.
      */
-    private void validateConditions(Scope scope) throws SemanticException {
-        for (String condition : conditions) {
-            VariableType conditionType = determineConditionType(scope, condition);
+    private void validateConditions(Environment environment) throws SemanticException {
+        for (CharSequence condition : conditions) {
+            VariableType conditionType = determineConditionType(environment, condition);
             validateConditionType(condition, conditionType);
         }
     }
@@ -65,29 +87,30 @@ public class IfWhileStatement implements Statement {
     /**
      * Determines the type of a given condition.
      *
-     * @param scope The current scope in which the condition exists.
+     * @param environment The current environment in which the condition exists.
      * @param condition The condition to evaluate.
      * @return The determined variable type of the condition.
      * @throws SemanticException If the condition is not declared.
      */
-    private VariableType determineConditionType(Scope scope, String condition) throws SemanticException {
-        String conditionTypeString = RegexPatterns.findValueTypePattern(condition);
-        if (conditionTypeString.equals(Constants.IDENTIFIER)) {
-            return getVariableType(scope, condition);
+    private VariableType determineConditionType(Environment environment, CharSequence condition)
+            throws SemanticException {
+        ValueKind conditionKind = RegexPatterns.findValueKind(condition);
+        if (conditionKind == ValueKind.IDENTIFIER) {
+            return getVariableType(environment, condition);
         }
-        return VariableType.fromString(conditionTypeString);
+        return conditionKind.getLiteralType();
     }
 
     /**
-     * Retrieves the type of a condition variable from the scope.
+     * Retrieves the type of a condition variable from the environment.
      *
-     * @param scope The current scope.
+     * @param environment The current environment.
      * @param condition The variable representing the condition.
      * @return The type of the variable.
      * @throws SemanticException If the variable is not declared or has no known type.
      */
-    private VariableType getVariableType(Scope scope, String condition) throws SemanticException {
-        Variable variable = scope.findVariable(condition);
+    private VariableType getVariableType(Environment environment, CharSequence condition) throws SemanticException {
+        Variable variable = environment.findVariable(condition);
         if (variable == null || variable.getValueType() == null) {
             throw new SemanticException(String.format(Constants.INCOMPATIBLE_ASSIGNMENT_MESSAGE, condition));
         }
@@ -101,20 +124,10 @@ public class IfWhileStatement implements Statement {
      * @param conditionType The type of the condition.
      * @throws SemanticException If the condition type is invalid.
      */
-    private void validateConditionType(String condition, VariableType conditionType) throws SemanticException {
+    private void validateConditionType(CharSequence condition, VariableType conditionType) throws SemanticException {
         if (conditionType != VariableType.INT && conditionType != VariableType.DOUBLE && conditionType != VariableType.BOOLEAN) {
             throw new SemanticException(String.format(INVALID_CONDITION_TYPE_MESSAGE, condition));
         }
     }
 
-    /**
-     * Validates the statements inside the inner scope of the if/while block.
-     *
-     * @throws SemanticException If any statement within the block is invalid.
-     */
-    private void validateInnerScopeStatements() throws SemanticException {
-        for (Statement stmt : innerScope.getStatements()) {
-            stmt.validate(innerScope);
-        }
-    }
-}
\ No newline at end of file
+}
@@ -3,9 +3,11 @@ package ex5.model.statements;
 import ex5.Constants.Constants;
 import ex5.model.*;
 import ex5.parser.RegexPatterns;
+import ex5.parser.ValueKind;
+import ex5.validator.Environment;
 import ex5.validator.SemanticException;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -15,15 +17,16 @@ import java.util.List;
  *
  * @author Joshua Kolodny, Itamar Lev Ari
  */
-public class MethodCallStatement implements Statement {
+public final class MethodCallStatement extends Statement {
     private static final String ARGUMENT_TYPE_MISMATCH_MESSAGE =
             "Argument %s is not compatible with '%s'";
     private static final String METHOD_NOT_FOUND_MESSAGE = "Method %s not found";
     private static final String METHOD_ARGUMENT_MISMATCH_MESSAGE =
             "Method %s expected %d args, but got %d";
 
-    private final String methodName; // The name of the method being called
-    private final List<String> arguments; // List of argument names or literals
+    private final CharSequence methodName; // The name of the method being called, possibly off-heap
+    private final List<CharSequence> arguments; // Argument names or literals, possibly off-heap
+    private volatile ValueKind[] argumentKinds; // Kinds of the arguments, or null until first validated
 
     /**
      * Constructs a MethodCallStatement with a method name and arguments.
@@ -31,66 +34,127 @@ public class MethodCallStatement implements Statement {
      * @param methodName The name of the method being called.
      * @param arguments The arguments provided in the method call.
      */
-    public MethodCallStatement(String methodName, List<String> arguments) {
+    public MethodCallStatement(CharSequence methodName, List<? extends CharSequence> arguments) {
+        super(StatementKind.METHOD_CALL);
         this.methodName = methodName;
-        this.arguments = arguments;
+        this.arguments = Collections.unmodifiableList(arguments);
+    }
+
+    /**
+     * Retrieves the name of the method being called.
+     *
+     * @return The method name.
+     */
+    public CharSequence getMethodName() {
+        return methodName;
+    }
+
+    /**
+     * Retrieves the arguments provided in the method call.
+     *
+     * @return An unmodifiable view of the arguments, as literals or variable names.
+     */
+    public List<CharSequence> getArguments() {
+        return arguments;
     }
 
     /**
      * Validates the method call by ensuring the method exists,
      * has the correct number of arguments, and their types match.
+     * The argument types are collected into a {@link TypeVector} and checked against the method's
+     * precomputed parameter types at once; the mismatching argument is only looked for when the
+     * check fails. The kind of every argument is classified once per statement and reused by
+     * every later validation.
      *
-     * @param scope The current scope in which the method call occurs.
+     * @param environment The current environment in which the method call occurs.
      * @throws SemanticException If the method call is invalid.
      */
-    @Override
-    public void validate(Scope scope) throws SemanticException {
-        List<Variable> paramList = getVariables(scope);
+    public void validate(Environment environment) throws SemanticException {
+        Method method = findMethod(environment);
+        ValueKind[] kinds = getArgumentKinds();
+        if (!TypeVector.fits(arguments.size())) {
+            for (int i = 0; i < arguments.size(); i++) {
+                VariableType argumentType = determineVariableType(i, kinds[i], environment);
+                checkTypeCompatibility(method.getParameters().get(i), argumentType, arguments.get(i));
+            }
+            return;
+        }
+        long argumentTypes = 0;
         for (int i = 0; i < arguments.size(); i++) {
-            validateArgument(arguments.get(i), paramList.get(i), scope);
+            VariableType argumentType;
+            try {
+                argumentType = determineVariableType(i, kinds[i], environment);
+            } catch (SemanticException e) {
+                // An incompatible argument before this one is reported first
+                checkArgumentTypes(method, argumentTypes);
+                throw e;
+            }
+            argumentTypes = TypeVector.withArgument(argumentTypes, i, argumentType);
         }
+        checkArgumentTypes(method, argumentTypes);
     }
 
     /**
-     * Validates an individual argument by checking its type compatibility with the corresponding parameter.
+     * Ensures the method accepts the types of the call's arguments.
      *
-     * @param arg The argument name or literal.
-     * @param param The expected parameter variable.
-     * @param scope The current scope.
-     * @throws SemanticException If the argument type is incompatible.
+     * @param method The called method.
+     * @param argumentTypes The vector of the argument types determined so far.
+     * @throws SemanticException If an argument is incompatible with its parameter.
      */
-    private void validateArgument(String arg, Variable param, Scope scope) throws SemanticException {
-        VariableType assignedVariableType = determineVariableType(arg, scope);
-        checkTypeCompatibility(param, assignedVariableType, arg);
+    private void checkArgumentTypes(Method method, long argumentTypes) throws SemanticException {
+        int rejected = method.firstRejectedArgument(argumentTypes);
+        if (rejected >= 0) {
+            throw new SemanticException(String.format(ARGUMENT_TYPE_MISMATCH_MESSAGE, arguments.get(rejected).toString(),
+                    method.getParameters().get(rejected).getType()));
+        }
+    }
+
+    /**
+     * Retrieves the kind of every argument, classifying them on first use.
+     *
+     * @return The argument kinds, in order.
+     */
+    private ValueKind[] getArgumentKinds() {
+        ValueKind[] kinds = argumentKinds;
+        if (kinds == null) {
+            // Classification is deterministic, so threads racing here compute the same kinds
+            kinds = new ValueKind[arguments.size()];
+            for (int i = 0; i < kinds.length; i++) {
+                kinds[i] = RegexPatterns.findValueKind(arguments.get(i));
+            }
+            argumentKinds = kinds;
+        }
+        return kinds;
     }
 
     /**
      * Determines the type of a given argument.
      *
-     * @param arg The argument value.
-     * @param scope The current scope.
+     * @param index The position of the argument.
+     * @param kind The kind of the argument.
+     * @param environment The current environment.
      * @return The determined variable type of the argument.
      * @throws SemanticException If the argument is not declared.
      */
-    private VariableType determineVariableType(String arg, Scope scope) throws SemanticException {
-        String assignedVarTypeString = RegexPatterns.findValueTypePattern(arg);
-        if (assignedVarTypeString.equals(Constants.IDENTIFIER)) {
-            return getIdentifierVariableType(arg, scope);
+    private VariableType determineVariableType(int index, ValueKind kind, Environment environment)
+            throws SemanticException {
+        if (kind == ValueKind.IDENTIFIER) {
+            return getIdentifierVariableType(arguments.get(index), environment);
         } else {
-            return VariableType.fromString(assignedVarTypeString);
+            return kind.getLiteralType();
         }
     }
 
     /**
-     * Retrieves the type of an identifier argument from the scope.
+     * Retrieves the type of an identifier argument from the environment.
      *
      * @param arg The identifier representing a variable.
-     * @param scope The current scope.
+     * @param environment The current environment.
      * @return The type of the identifier variable.
      * @throws SemanticException If the variable is not declared.
      */
-    private VariableType getIdentifierVariableType(String arg, Scope scope) throws SemanticException {
-        Variable variable = scope.findVariable(arg);
+    private VariableType getIdentifierVariableType(CharSequence arg, Environment environment) throws SemanticException {
+        Variable variable = environment.findVariable(arg);
         if (variable == null || variable.getValueType() == null) {
             throw new SemanticException(String.format(Constants.INCOMPATIBLE_ASSIGNMENT_MESSAGE, arg));
         }
@@ -105,40 +169,26 @@ public class MethodCallStatement implements Statement {
      * @param arg The argument name or value.
      * @throws SemanticException If the types are incompatible.
      */
-    private void checkTypeCompatibility(Variable param, VariableType assignedVariableType, String arg) throws SemanticException {
+    private void checkTypeCompatibility(Variable param, VariableType assignedVariableType, CharSequence arg) throws SemanticException {
         if (VariableType.isTypeIncompatible(param.getType(), assignedVariableType)) {
             throw new SemanticException(String.format(ARGUMENT_TYPE_MISMATCH_MESSAGE, arg, param.getType()));
         }
     }
 
     /**
-     * Retrieves the expected parameters of the method from the global scope.
+     * Finds the called method in the program.
      *
-     * @param scope The current scope.
-     * @return The list of expected parameters.
+     * @param environment The current environment.
+     * @return The called method.
      * @throws SemanticException If the method does not exist or has incorrect arguments.
      */
-    private List<Variable> getVariables(Scope scope) throws SemanticException {
-        GlobalScope globalScope = getGlobalScope(scope);
-        Method method = globalScope.findMethod(methodName);
+    private Method findMethod(Environment environment) throws SemanticException {
+        Method method = environment.findMethod(methodName);
         if (method == null) {
             throw new SemanticException(String.format(METHOD_NOT_FOUND_MESSAGE, methodName));
         }
         validateArgumentCount(method);
-        return new ArrayList<>(method.getParameters());
-    }
-
-    /**
-     * Retrieves the global scope from a nested scope.
-     *
-     * @param scope The current scope.
-     * @return The global scope.
-     */
-    private GlobalScope getGlobalScope(Scope scope) {
-        while (scope.getParent() != null) {
-            scope = scope.getParent();
-        }
-        return (GlobalScope) scope;
+        return method;
     }
 
     /**
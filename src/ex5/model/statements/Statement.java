@@ -1,21 +1,34 @@
 package ex5.model.statements;
 
-import ex5.model.Scope;
-import ex5.validator.SemanticException;
-
 /**
- * Base interface for all statements in SJava.
- * Each statement must implement its own validation logic within the provided scope.
+ * Base class for all statements in SJava.
+ * The hierarchy is sealed: every statement is one of the four final subclasses, identified by
+ * its {@link StatementKind}. The kind is a final field of this class, read by a final method, so
+ * retrieving it is a plain field load rather than a call the JIT has to profile. Validation
+ * switches on the kind and calls the concrete statement's validate method directly, so each
+ * call site stays monomorphic.
  *
  * @author Joshua Kolodny, Itamar Lev Ari
  */
-public interface Statement {
+public abstract sealed class Statement
+        permits VarDeclarationStatement, AssignmentStatement, MethodCallStatement, IfWhileStatement {
+    private final StatementKind kind; // The kind identifying the subclass
+
+    /**
+     * Constructs a Statement.
+     *
+     * @param kind The kind identifying the subclass.
+     */
+    Statement(StatementKind kind) {
+        this.kind = kind;
+    }
+
     /**
-     * Validates the statement within the given scope.
-     * Implementations check for semantic correctness based on SJava rules.
+     * Retrieves the kind of this statement.
      *
-     * @param scope The current scope in which the statement resides.
-     * @throws SemanticException If the statement is semantically invalid.
+     * @return The StatementKind identifying the subclass.
      */
-    void validate(Scope scope) throws SemanticException;
+    public final StatementKind getKind() {
+        return kind;
+    }
 }
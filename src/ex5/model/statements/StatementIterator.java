@@ -0,0 +1,79 @@
+package ex5.model.statements;
+
+import ex5.model.Scope;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the statements of a scope and of every block nested in it, in source order.
+ * An if/while statement is followed by the statements of its inner block, and then by the
+ * statements following it in its own block. Nested blocks are tracked on an explicit work stack,
+ * so arbitrarily deep nesting cannot overflow the thread's call stack.
+ * Callers that need the block structure can ask how many blocks ended before each statement;
+ * every block counts, the outermost scope included, so the ends of all blocks have been counted
+ * once {@link #hasNext()} returns false.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class StatementIterator implements Iterator<Statement> {
+    private final Deque<Iterator<Statement>> blocks; // The open blocks, the innermost on top
+    private int closedBlocks; // Blocks ended since the count was last retrieved
+
+    /**
+     * Constructs a StatementIterator.
+     *
+     * @param scope The outermost scope.
+     */
+    public StatementIterator(Scope scope) {
+        this.blocks = new ArrayDeque<>();
+        blocks.push(scope.getStatements().iterator());
+    }
+
+    /**
+     * Checks whether a statement remains, ending every block that has none left.
+     *
+     * @return True if there is another statement.
+     */
+    @Override
+    public boolean hasNext() {
+        while (!blocks.isEmpty() && !blocks.peek().hasNext()) {
+            blocks.pop();
+            closedBlocks++;
+        }
+        return !blocks.isEmpty();
+    }
+
+    /**
+     * Retrieves the next statement, opening its inner block if it is an if/while statement.
+     *
+     * @return The next statement.
+     * @throws NoSuchElementException If no statement remains.
+     */
+    @Override
+    public Statement next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Statement statement = blocks.peek().next();
+        if (statement.getKind() == StatementKind.IF_WHILE) {
+            blocks.push(((IfWhileStatement) statement).getInnerScope().getStatements().iterator());
+        }
+        return statement;
+    }
+
+    /**
+     * Retrieves the number of blocks that ended since this method was last called: before the
+     * statement about to be returned by {@link #next()}, or at the end of the iteration.
+     * Blocks end when {@link #hasNext()} finds them exhausted.
+     *
+     * @return The number of blocks ended.
+     */
+    public int takeClosedBlocks() {
+        int closed = closedBlocks;
+        closedBlocks = 0;
+        return closed;
+    }
+}
@@ -0,0 +1,13 @@
+package ex5.model.statements;
+
+/**
+ * Enum representing the kinds of statements in SJava, one per {@link Statement} implementation.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public enum StatementKind {
+    VAR_DECLARATION,
+    ASSIGNMENT,
+    METHOD_CALL,
+    IF_WHILE
+}
@@ -1,12 +1,17 @@
 package ex5.model.statements;
 
 import ex5.Constants.Constants;
-import ex5.model.Scope;
 import ex5.model.Variable;
 import ex5.model.VariableType;
 import ex5.parser.RegexPatterns;
+import ex5.parser.ValueKind;
+import ex5.validator.Environment;
 import ex5.validator.SemanticException;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Represents a variable declaration statement in SJava.
  * This class handles the declaration of variables, including initialization
@@ -14,41 +19,129 @@ import ex5.validator.SemanticException;
  *
  * @author Joshua Kolodny, Itamar Lev Ari
  */
-public class VarDeclarationStatement implements Statement {
+public final class VarDeclarationStatement extends Statement {
     private static final String INCOMPATIBLE_VARIABLE_DECLARATION_MESSAGE =
             "Incompatible variable types in declaration: %s with %s";
     private static final String VARIABLE_ALREADY_DECLARED_MESSAGE =
             "Variable %s already declared in this scope";
     private static final String FINAL_VAR_NOT_INITIALIZED_MESSAGE =
             "Final variable %s not initialized";
+    private static final String ASSIGNMENT_OPERATOR = "=";
+    private static final String DECLARATION_FORMAT = "%s = %s";
 
     private final boolean isFinal; // Whether the variable is final
     private final VariableType type; // The declared type of the variable
-    private final String[] declarations; // Array of variable declarations
+    private final CharSequence[] names; // Names of the declared variables, possibly off-heap
+    private final CharSequence[] values; // Initial value of each variable, or null; possibly off-heap
 
     /**
      * Constructs a VarDeclarationStatement with specified properties.
      *
-     * @param isFinal      Whether the variable is final.
-     * @param type         The declared type of the variable.
-     * @param declarations The array of variable declarations.
+     * @param isFinal Whether the variable is final.
+     * @param type    The declared type of the variable.
+     * @param names   The names of the declared variables.
+     * @param values  The initial value of each variable, null where it is not initialized.
      */
-    public VarDeclarationStatement(boolean isFinal, VariableType type, String[] declarations) {
+    public VarDeclarationStatement(boolean isFinal, VariableType type, CharSequence[] names, CharSequence[] values) {
+        super(StatementKind.VAR_DECLARATION);
         this.isFinal = isFinal;
         this.type = type;
-        this.declarations = declarations;
+        this.names = names;
+        this.values = values;
+    }
+
+    /**
+     * Constructs a VarDeclarationStatement from raw variable declarations.
+     *
+     * @param isFinal      Whether the variable is final.
+     * @param type         The declared type of the variable.
+     * @param declarations The variable declarations, e.g. "a" or "b = 5".
+     * @return The statement.
+     */
+    public static VarDeclarationStatement fromDeclarations(boolean isFinal, VariableType type, String[] declarations) {
+        String[] names = new String[declarations.length];
+        CharSequence[] values = new CharSequence[declarations.length];
+        for (int i = 0; i < declarations.length; i++) {
+            String[] parts = splitDeclaration(declarations[i]);
+            names[i] = parts[0];
+            values[i] = (parts.length == 2) ? parts[1] : null;
+        }
+        return new VarDeclarationStatement(isFinal, type, names, values);
+    }
+
+    /**
+     * Splits a raw variable declaration into the variable's name and its initial value.
+     *
+     * @param declaration The declaration, e.g. "a" or "b = 5".
+     * @return The name, followed by the value if the variable is initialized.
+     */
+    public static String[] splitDeclaration(String declaration) {
+        String[] parts = declaration.split(ASSIGNMENT_OPERATOR, 2);
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = parts[i].strip();
+        }
+        return parts;
+    }
+
+    /**
+     * Checks whether the declared variables are final.
+     *
+     * @return True if the variables are final, otherwise false.
+     */
+    public boolean isFinal() {
+        return isFinal;
+    }
+
+    /**
+     * Retrieves the declared type of the variables.
+     *
+     * @return The declared VariableType.
+     */
+    public VariableType getType() {
+        return type;
+    }
+
+    /**
+     * Retrieves the names of the declared variables.
+     *
+     * @return An unmodifiable view of the names, in declaration order.
+     */
+    public List<CharSequence> getNames() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    /**
+     * Retrieves the initial values of the declared variables.
+     *
+     * @return An unmodifiable view of the values, in declaration order, null where a variable is
+     *         not initialized.
+     */
+    public List<CharSequence> getValues() {
+        return Collections.unmodifiableList(Arrays.asList(values));
+    }
+
+    /**
+     * Rebuilds the variable declarations as text, e.g. "a" or "b = 5".
+     *
+     * @return A new array of the variable declarations.
+     */
+    public String[] getDeclarations() {
+        String[] texts = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            texts[i] = (values[i] == null) ? names[i].toString() : String.format(DECLARATION_FORMAT, names[i], values[i]);
+        }
+        return texts;
     }
 
     /**
      * Validates the variable declaration by processing each declaration.
      *
-     * @param scope The scope in which the variables are being declared.
+     * @param environment The environment in which the variables are being declared.
      * @throws SemanticException If there are semantic errors in the declaration.
      */
-    @Override
-    public void validate(Scope scope) throws SemanticException {
-        for (String decl : declarations) {
-            processDeclaration(scope, decl);
+    public void validate(Environment environment) throws SemanticException {
+        for (int i = 0; i < names.length; i++) {
+            processDeclaration(environment, names[i], values[i]);
         }
     }
 
@@ -56,39 +149,40 @@ public class VarDeclarationStatement implements Statement {
      * Processes a single variable declaration, checking type compatibility,
      * ensuring it is not already defined, and enforcing final variable initialization.
      *
-     * @param scope The current scope.
-     * @param decl  The variable declaration string.
+     * @param environment The current environment.
+     * @param varName The variable name.
+     * @param varValue The initial value, or null if the variable is not initialized.
      * @throws SemanticException If there are errors in the declaration.
      */
-    private void processDeclaration(Scope scope, String decl) throws SemanticException {
-        String[] eqSplit = decl.split("=", 2);
-        String varName = eqSplit[0].strip();
+    private void processDeclaration(Environment environment, CharSequence varName, CharSequence varValue)
+            throws SemanticException {
         VariableType assignedVariableType = null;
 
         // If the variable is initialized, determine its assigned type
-        if (eqSplit.length == 2) {
-            assignedVariableType = determineAssignedVariableType(scope, eqSplit[1].strip());
+        if (varValue != null) {
+            assignedVariableType = determineAssignedVariableType(environment, varValue);
         }
 
         validateTypeCompatibility(varName, assignedVariableType);
-        ensureVariableNotRedefined(scope, varName);
+        ensureVariableNotRedefined(environment, varName);
         ensureFinalVariableIsInitialized(varName, assignedVariableType);
 
-        // Add the new variable to the scope
+        // Add the new variable to the environment
         Variable var = new Variable(varName, type, isFinal, assignedVariableType);
-        scope.addVariable(var);
+        environment.addVariable(var);
     }
 
     /**
      * Determines the type of the assigned value in a variable declaration.
      *
-     * @param scope   The current scope.
+     * @param environment   The current environment.
      * @param varValue The assigned value.
      * @return The determined variable type.
      * @throws SemanticException If there are issues with the assigned value.
      */
-    private VariableType determineAssignedVariableType(Scope scope, String varValue) throws SemanticException {
-        return getVariableType(scope, varValue);
+    private VariableType determineAssignedVariableType(Environment environment, CharSequence varValue)
+            throws SemanticException {
+        return getVariableType(environment, varValue);
     }
 
     /**
@@ -98,21 +192,21 @@ public class VarDeclarationStatement implements Statement {
      * @param assignedVariableType The type of the assigned value.
      * @throws SemanticException If the types are incompatible.
      */
-    private void validateTypeCompatibility(String varName, VariableType assignedVariableType) throws SemanticException {
+    private void validateTypeCompatibility(CharSequence varName, VariableType assignedVariableType) throws SemanticException {
         if (assignedVariableType != null && VariableType.isTypeIncompatible(type, assignedVariableType)) {
             throw new SemanticException(String.format(INCOMPATIBLE_VARIABLE_DECLARATION_MESSAGE, type, assignedVariableType));
         }
     }
 
     /**
-     * Ensures the variable is not already declared in the current scope.
+     * Ensures the variable is not already declared in the current environment.
      *
-     * @param scope   The current scope.
+     * @param environment   The current environment.
      * @param varName The variable name.
      * @throws SemanticException If the variable is already declared.
      */
-    private void ensureVariableNotRedefined(Scope scope, String varName) throws SemanticException {
-        if (scope.findVariableInCurrentScope(varName) != null) {
+    private void ensureVariableNotRedefined(Environment environment, CharSequence varName) throws SemanticException {
+        if (environment.findVariableInCurrentScope(varName) != null) {
             throw new SemanticException(String.format(VARIABLE_ALREADY_DECLARED_MESSAGE, varName));
         }
     }
@@ -124,7 +218,7 @@ public class VarDeclarationStatement implements Statement {
      * @param assignedVariableType The assigned variable type.
      * @throws SemanticException If a final variable is not initialized.
      */
-    private void ensureFinalVariableIsInitialized(String varName, VariableType assignedVariableType) throws SemanticException {
+    private void ensureFinalVariableIsInitialized(CharSequence varName, VariableType assignedVariableType) throws SemanticException {
         if (isFinal && assignedVariableType == null) {
             throw new SemanticException(String.format(FINAL_VAR_NOT_INITIALIZED_MESSAGE, varName));
         }
@@ -133,24 +227,24 @@ public class VarDeclarationStatement implements Statement {
     /**
      * Retrieves the type of variable or literal value.
      *
-     * @param currentScope The current scope.
+     * @param environment The current environment.
      * @param varValue The value being assigned.
      * @return The determined variable type.
      * @throws SemanticException If the value is not recognized.
      */
-    private VariableType getVariableType(Scope currentScope, String varValue) throws SemanticException {
+    private VariableType getVariableType(Environment environment, CharSequence varValue) throws SemanticException {
         VariableType variableType = null;
-        String variableString = RegexPatterns.findValueTypePattern(varValue);
+        ValueKind valueKind = RegexPatterns.findValueKind(varValue);
 
-        // If the value is a variable identifier, retrieve its type from scope
-        if (variableString != null && variableString.equals(Constants.IDENTIFIER)) {
-            Variable var = currentScope.findVariable(varValue);
+        // If the value is a variable identifier, retrieve its type from the environment
+        if (valueKind == ValueKind.IDENTIFIER) {
+            Variable var = environment.findVariable(varValue);
             if (var == null || var.getValueType() == null) {
                 throw new SemanticException(String.format(Constants.INCOMPATIBLE_ASSIGNMENT_MESSAGE, varValue));
             }
             variableType = var.getType();
-        } else if (variableString != null) {
-            variableType = VariableType.fromString(variableString);
+        } else if (valueKind != null) {
+            variableType = valueKind.getLiteralType();
         }
         return variableType;
     }
@@ -0,0 +1,19 @@
+package ex5.parser;
+
+/**
+ * Enum representing the kinds of lines recognized in an SJava source.
+ * Every kind except {@link #BLOCK_CLOSE} is recognized by a pattern in {@link RegexPatterns};
+ * the declaration order is the order in which the patterns are tried.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public enum LineType {
+    VAR_DECLARATION,
+    ASSIGNMENT,
+    METHOD_CALL,
+    IF_WHILE,
+    RETURN,
+    METHOD_DECLARATION,
+    COMMENT,
+    BLOCK_CLOSE
+}
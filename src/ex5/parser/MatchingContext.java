@@ -0,0 +1,193 @@
+package ex5.parser;
+
+import ex5.profile.LineProfiler;
+
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A per-thread set of preallocated matchers, one for every pattern in {@link RegexPatterns}.
+ * Classifying a line or an operand resets an existing matcher onto the new input instead of
+ * allocating a fresh Matcher (and its group arrays) for every candidate pattern.
+ * A context is not thread-safe; obtain the calling thread's context with
+ * {@link RegexPatterns#matchingContext()}.
+ * Operands are classified through the {@link OperandCache} bound to the context, if any. A
+ * verifier binds its own cache for the duration of each verification it runs on the thread, so
+ * verifiers with different caches, or none, can share a thread.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class MatchingContext {
+    private static final char STATEMENT_END = ';';
+    private static final char BLOCK_OPEN = '{';
+    private static final char COMMENT_START = '/';
+
+    private final LineType[] lineTypes; // Line types, in matching order
+    private final Matcher[] lineMatchers; // Matchers for the line patterns
+    private final ValueKind[] valueKinds; // Operand kinds, in matching order
+    private final Matcher[] valueMatchers; // Matchers for the operand patterns
+    private final Matcher blankMatcher; // Matcher for whitespace-only lines
+    private OperandCache operandCache; // Cache of the verification running on this thread, or null
+
+    /**
+     * Constructs a MatchingContext over the given patterns.
+     *
+     * @param patterns The line patterns, keyed by line type in matching order.
+     * @param valueTypePatterns The operand patterns, keyed by operand kind in matching order.
+     * @param blankPattern The whitespace-only line pattern.
+     */
+    MatchingContext(Map<LineType, Pattern> patterns, Map<ValueKind, Pattern> valueTypePatterns,
+                    Pattern blankPattern) {
+        this.lineTypes = patterns.keySet().toArray(new LineType[0]);
+        this.lineMatchers = createMatchers(patterns);
+        this.valueKinds = valueTypePatterns.keySet().toArray(new ValueKind[0]);
+        this.valueMatchers = createMatchers(valueTypePatterns);
+        this.blankMatcher = blankPattern.matcher("");
+    }
+
+    /**
+     * Creates one reusable matcher per pattern, preserving the map's iteration order.
+     *
+     * @param patterns The patterns.
+     * @return The matchers, in the map's iteration order.
+     */
+    private static Matcher[] createMatchers(Map<?, Pattern> patterns) {
+        Matcher[] matchers = new Matcher[patterns.size()];
+        int i = 0;
+        for (Pattern pattern : patterns.values()) {
+            matchers[i++] = pattern.matcher("");
+        }
+        return matchers;
+    }
+
+    /**
+     * Finds the type of the line pattern that fully matches the given line.
+     *
+     * @param line The line to classify.
+     * @return The line type, or null if no pattern matches.
+     */
+    public LineType findMatchingPattern(CharSequence line) {
+        for (int i = 0; i < lineMatchers.length; i++) {
+            if (lineMatchers[i].reset(line).matches()) {
+                return lineTypes[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the type of the line pattern that fully matches the given line, skipping the patterns
+     * its structure rules out. Every statement pattern requires the line to end with ';' (up to
+     * trailing whitespace), every block pattern with '{', calls and blocks require a '(', and
+     * comments start with '/'; a pattern the line cannot match is never run, and the result is
+     * the same as that of {@link #findMatchingPattern(CharSequence)}.
+     *
+     * @param line The line to classify.
+     * @param lastVisible The last character of the line that {@link String#trim()} keeps, or '\0'.
+     * @param hasOpenParenthesis Whether the line holds a '('.
+     * @return The line type, or null if no pattern matches.
+     */
+    public LineType findMatchingPattern(CharSequence line, char lastVisible, boolean hasOpenParenthesis) {
+        for (int i = 0; i < lineMatchers.length; i++) {
+            if (canMatch(lineTypes[i], line, lastVisible, hasOpenParenthesis)
+                    && lineMatchers[i].reset(line).matches()) {
+                return lineTypes[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks the structural requirements of a line pattern.
+     *
+     * @param lineType The type of the pattern.
+     * @param line The line.
+     * @param lastVisible The last character of the line that {@link String#trim()} keeps, or '\0'.
+     * @param hasOpenParenthesis Whether the line holds a '('.
+     * @return False if the pattern cannot match the line, otherwise true.
+     */
+    private static boolean canMatch(LineType lineType, CharSequence line, char lastVisible,
+                                    boolean hasOpenParenthesis) {
+        return switch (lineType) {
+            case VAR_DECLARATION, ASSIGNMENT, RETURN -> lastVisible == STATEMENT_END;
+            case METHOD_CALL -> lastVisible == STATEMENT_END && hasOpenParenthesis;
+            case IF_WHILE, METHOD_DECLARATION -> lastVisible == BLOCK_OPEN && hasOpenParenthesis;
+            case COMMENT -> line.length() > 0 && line.charAt(0) == COMMENT_START;
+            default -> true;
+        };
+    }
+
+    /**
+     * Finds the type of the line pattern that fully matches the given line, recording the
+     * duration and outcome of every pattern attempt.
+     *
+     * @param line The line to classify.
+     * @param profiler The profiler receiving the pattern attempts.
+     * @return The line type, or null if no pattern matches.
+     */
+    public LineType findMatchingPattern(CharSequence line, LineProfiler profiler) {
+        for (int i = 0; i < lineMatchers.length; i++) {
+            long start = System.nanoTime();
+            boolean matched = lineMatchers[i].reset(line).matches();
+            profiler.recordPatternAttempt(lineTypes[i], System.nanoTime() - start, matched);
+            if (matched) {
+                return lineTypes[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Binds the operand cache consulted by {@link #findValueKind(CharSequence)}.
+     *
+     * @param cache The cache, or null to classify every operand against the patterns.
+     * @return The previously bound cache, or null, to be restored once the caller is done.
+     */
+    public OperandCache bindOperandCache(OperandCache cache) {
+        OperandCache previous = operandCache;
+        operandCache = cache;
+        return previous;
+    }
+
+    /**
+     * Finds the kind of the operand pattern that fully matches the given operand, through the
+     * bound operand cache if there is one.
+     *
+     * @param value The operand to classify.
+     * @return The operand kind, or null if no pattern matches.
+     */
+    public ValueKind findValueKind(CharSequence value) {
+        OperandCache cache = operandCache;
+        if (cache != null) {
+            return cache.findValueKind(value, this);
+        }
+        return matchValueKind(value);
+    }
+
+    /**
+     * Finds the kind of the operand pattern that fully matches the given operand, bypassing any
+     * cache.
+     *
+     * @param value The operand to classify.
+     * @return The operand kind, or null if no pattern matches.
+     */
+    ValueKind matchValueKind(CharSequence value) {
+        for (int i = 0; i < valueMatchers.length; i++) {
+            if (valueMatchers[i].reset(value).matches()) {
+                return valueKinds[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether the given line consists of whitespace only.
+     *
+     * @param line The line to check.
+     * @return True if the line is empty or whitespace only, otherwise false.
+     */
+    public boolean isBlank(CharSequence line) {
+        return blankMatcher.reset(line).matches();
+    }
+}
@@ -0,0 +1,101 @@
+package ex5.parser;
+
+import ex5.util.BoundedCache;
+
+/**
+ * A concurrent, size-bounded cache from operand text to its classified kind.
+ * Operands are highly repetitive (the same literals and identifiers appear over and over),
+ * so a cached operand costs one hash lookup instead of one regular expression match per
+ * candidate kind. Classification depends on the text alone, so a single cache may be shared
+ * by every thread and every source. A verifier binds its cache to the {@link MatchingContext} of
+ * each thread running one of its verifications.
+ * Operands that match no kind, and operands longer than {@link #MAX_OPERAND_LENGTH}
+ * (typically long string literals, which rarely repeat), are classified but never cached.
+ * Operands are looked up by content, so an operand stored off the heap finds its entry without
+ * being copied; only an operand that misses is copied, once, to become a key.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class OperandCache {
+    /**
+     * The length of the longest operand that is cached.
+     */
+    public static final int MAX_OPERAND_LENGTH = 64;
+
+    private final BoundedCache<CharSequence, ValueKind> kinds; // Operand kinds keyed by operand text, as strings
+
+    /**
+     * Constructs an OperandCache.
+     *
+     * @param capacity The maximum number of cached operands.
+     */
+    public OperandCache(int capacity) {
+        this.kinds = new BoundedCache<>(capacity);
+    }
+
+    /**
+     * Classifies an operand through the cache, classifying and recording it on a miss.
+     *
+     * @param value The operand to classify.
+     * @param context The calling thread's matching context, used on a miss.
+     * @return The operand kind, or null if no pattern matches.
+     */
+    ValueKind findValueKind(CharSequence value, MatchingContext context) {
+        if (value.length() > MAX_OPERAND_LENGTH) {
+            return context.matchValueKind(value);
+        }
+        ValueKind kind = kinds.get(value);
+        if (kind == null) {
+            kind = context.matchValueKind(value);
+            if (kind != null) {
+                kinds.put(value.toString(), kind); // Keys are strings, which a stored view may equal
+            }
+        }
+        return kind;
+    }
+
+    /**
+     * Retrieves the number of operands classified from the cache.
+     *
+     * @return The hit count.
+     */
+    public long getHitCount() {
+        return kinds.getHitCount();
+    }
+
+    /**
+     * Retrieves the number of cacheable operands that had to be matched against the patterns.
+     *
+     * @return The miss count.
+     */
+    public long getMissCount() {
+        return kinds.getMissCount();
+    }
+
+    /**
+     * Retrieves the fraction of cacheable operands classified from the cache.
+     *
+     * @return The hit rate between 0 and 1.
+     */
+    public double getHitRate() {
+        return kinds.getHitRate();
+    }
+
+    /**
+     * Retrieves the number of cached operands.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        return kinds.size();
+    }
+
+    /**
+     * Retrieves the maximum number of cached operands.
+     *
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return kinds.getCapacity();
+    }
+}
@@ -0,0 +1,97 @@
+package ex5.parser;
+
+import ex5.model.Variable;
+import ex5.model.VariableType;
+
+import java.util.List;
+
+/**
+ * Receives the structure of a source as a stream of events, without a model being built.
+ * Events arrive on the parsing thread, in source order, each with the number of the line it
+ * comes from (the first line being 1), and only once the line has passed every check the
+ * parser applies to it. Nothing passed to a callback is retained by the parser, so with a
+ * handler that keeps nothing either, memory does not grow with the number of statements; only
+ * the declared method names are kept, to reject duplicates. If the
+ * source turns out to be malformed, the events of the lines before the error have already been
+ * delivered. Every callback does nothing by default.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public interface ParseEventHandler {
+
+    /**
+     * Called for a method declaration line, which opens the method body.
+     *
+     * @param lineNumber The number of the line.
+     * @param name The name of the method.
+     * @param parameters The parameters of the method.
+     */
+    default void methodDeclared(int lineNumber, String name, List<Variable> parameters) {
+    }
+
+    /**
+     * Called for the closing bracket of a method body.
+     *
+     * @param lineNumber The number of the line.
+     * @param name The name of the method.
+     */
+    default void methodClosed(int lineNumber, String name) {
+    }
+
+    /**
+     * Called for every variable of a variable declaration line, in declaration order.
+     *
+     * @param lineNumber The number of the line.
+     * @param name The name of the variable.
+     * @param type The declared type.
+     * @param isFinal Whether the variable is final.
+     * @param value The initial value, a literal or a variable name, or null if there is none.
+     */
+    default void variableDeclared(int lineNumber, String name, VariableType type, boolean isFinal, String value) {
+    }
+
+    /**
+     * Called for an assignment line.
+     *
+     * @param lineNumber The number of the line.
+     * @param name The name of the assigned variable.
+     * @param value The assigned value, a literal or a variable name.
+     */
+    default void variableAssigned(int lineNumber, String name, String value) {
+    }
+
+    /**
+     * Called for a method call line.
+     *
+     * @param lineNumber The number of the line.
+     * @param name The name of the called method.
+     * @param arguments The arguments, as literals or variable names.
+     */
+    default void methodCalled(int lineNumber, String name, List<String> arguments) {
+    }
+
+    /**
+     * Called for an if/while line, which opens a block.
+     *
+     * @param lineNumber The number of the line.
+     * @param conditions The conditions controlling the block, as literals or variable names.
+     */
+    default void blockOpened(int lineNumber, String[] conditions) {
+    }
+
+    /**
+     * Called for the closing bracket of an if/while block.
+     *
+     * @param lineNumber The number of the line.
+     */
+    default void blockClosed(int lineNumber) {
+    }
+
+    /**
+     * Called for a return line.
+     *
+     * @param lineNumber The number of the line.
+     */
+    default void returned(int lineNumber) {
+    }
+}
@@ -0,0 +1,37 @@
+package ex5.parser;
+
+import ex5.model.Method;
+import ex5.model.statements.Statement;
+
+/**
+ * Receives the parts of a program as soon as the parser has built them, so that work on a part
+ * can start while the rest of the source is still being parsed. Callbacks arrive on the parsing
+ * thread, in source order, and a part is complete, and never modified again by the parser, by the
+ * time it is reported. Tools that need no model at all receive typed events from
+ * {@link SJavaFileParser#parseEvents} through a {@link ParseEventHandler} instead.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public interface ParseListener {
+    /**
+     * Called when a statement of the global scope has been parsed.
+     *
+     * @param statement The global statement.
+     */
+    void globalStatementParsed(Statement statement);
+
+    /**
+     * Called when a method declaration line has been parsed, before its body.
+     * Only the method's name and parameters are complete at this point.
+     *
+     * @param method The declared method.
+     */
+    void methodDeclared(Method method);
+
+    /**
+     * Called when the closing bracket of a method body has been parsed.
+     *
+     * @param method The method, whose body is now complete.
+     */
+    void methodCompleted(Method method);
+}
@@ -1,8 +1,9 @@
 package ex5.parser;
 
-import ex5.Constants.Constants;
+import ex5.profile.LineProfiler;
 
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.regex.Pattern;
 
@@ -34,8 +35,9 @@ public class RegexPatterns {
     private static final String ASSIGNMENT_REGEX = IDENTIFIER_NAME + "(=\\s*+" + "(?:" + ALL_OPTIONS + "))";
 
 
-    public static final Map<String, Pattern> patterns = new HashMap<>();
-    public static final Map<String, Pattern> valueTypePatterns = new HashMap<>();
+    // Read-only; every thread's MatchingContext builds its own matchers from them
+    private static final Map<LineType, Pattern> patterns;
+    private static final Map<ValueKind, Pattern> valueTypePatterns;
 
 
     private static final Pattern COMMENT_PATTERN = Pattern.compile("^//.*+");
@@ -66,41 +68,72 @@ public class RegexPatterns {
     private static final Pattern STRING_PATTERN = Pattern.compile(STRING_REGEX);
     private static final Pattern CHAR_PATTERN = Pattern.compile(CHAR_REGEX);
     private static final Pattern BOOLEAN_PATTERN = Pattern.compile(BOOLEAN_REGEX);
+    private static final Pattern BLANK_PATTERN = Pattern.compile("\\s*");
 
-    public static void init() {
-        patterns.put(Constants.COMMENT, COMMENT_PATTERN);
-        patterns.put(Constants.ASSIGNMENT, ASSIGNMENT_PATTERN);
-        patterns.put(Constants.METHOD_CALL, METHOD_CALL_PATTERN);
-        patterns.put(Constants.METHOD_DECLARATION, METHOD_DEC_PATTERN);
-        patterns.put(Constants.VAR_DECLARATION, VAR_DEC_PATTERN);
-        patterns.put(Constants.RETURN_STATEMENT, RETURN_PATTERN);
-        patterns.put(Constants.IF_WHILE_STATEMENT, IF_WHILE_PATTERN);
-        valueTypePatterns.put(Constants.INT_VAR, INTEGER_PATTERN);
-        valueTypePatterns.put(Constants.DOUBLE_VAR, DOUBLE_PATTERN);
-        valueTypePatterns.put(Constants.STRING_VAR, STRING_PATTERN);
-        valueTypePatterns.put(Constants.CHAR_VAR, CHAR_PATTERN);
-        valueTypePatterns.put(Constants.IDENTIFIER, IDENTIFIER_PATTERN);
-        valueTypePatterns.put(Constants.BOOL_VAR, BOOLEAN_PATTERN);
+    static {
+        Map<LineType, Pattern> linePatterns = new EnumMap<>(LineType.class);
+        linePatterns.put(LineType.COMMENT, COMMENT_PATTERN);
+        linePatterns.put(LineType.ASSIGNMENT, ASSIGNMENT_PATTERN);
+        linePatterns.put(LineType.METHOD_CALL, METHOD_CALL_PATTERN);
+        linePatterns.put(LineType.METHOD_DECLARATION, METHOD_DEC_PATTERN);
+        linePatterns.put(LineType.VAR_DECLARATION, VAR_DEC_PATTERN);
+        linePatterns.put(LineType.RETURN, RETURN_PATTERN);
+        linePatterns.put(LineType.IF_WHILE, IF_WHILE_PATTERN);
+        patterns = Collections.unmodifiableMap(linePatterns);
+        Map<ValueKind, Pattern> valuePatterns = new EnumMap<>(ValueKind.class);
+        valuePatterns.put(ValueKind.INT, INTEGER_PATTERN);
+        valuePatterns.put(ValueKind.DOUBLE, DOUBLE_PATTERN);
+        valuePatterns.put(ValueKind.STRING, STRING_PATTERN);
+        valuePatterns.put(ValueKind.CHAR, CHAR_PATTERN);
+        valuePatterns.put(ValueKind.IDENTIFIER, IDENTIFIER_PATTERN);
+        valuePatterns.put(ValueKind.BOOLEAN, BOOLEAN_PATTERN);
+        valueTypePatterns = Collections.unmodifiableMap(valuePatterns);
     }
 
-    public static String findMatchingPattern(String line) {
-        for (Map.Entry<String, Pattern> entry : patterns.entrySet()) {
-            if (entry.getValue().matcher(line).matches()) {
-                return entry.getKey(); // Return the pattern name
-            }
-        }
-        return null; // No match found
+    private static final ThreadLocal<MatchingContext> MATCHING_CONTEXTS = ThreadLocal.withInitial(
+            () -> new MatchingContext(patterns, valueTypePatterns, BLANK_PATTERN));
+
+    /**
+     * Retrieves the calling thread's matching context, creating it on first use.
+     *
+     * @return The thread-confined matching context.
+     */
+    public static MatchingContext matchingContext() {
+        return MATCHING_CONTEXTS.get();
     }
 
-    public static String findValueTypePattern(String line) {
-        if (BOOLEAN_PATTERN.matcher(line).matches()){
-            return Constants.BOOL_VAR;
-        }
-        for (Map.Entry<String, Pattern> entry : valueTypePatterns.entrySet()) {
-            if (entry.getValue().matcher(line).matches()) {
-                return entry.getKey(); // Return the pattern name
-            }
+    public static LineType findMatchingPattern(String line) {
+        return matchingContext().findMatchingPattern(line);
+    }
+
+    public static LineType findMatchingPattern(String line, char lastVisible, boolean hasOpenParenthesis) {
+        return matchingContext().findMatchingPattern(line, lastVisible, hasOpenParenthesis);
+    }
+
+    public static LineType findMatchingPattern(String line, LineProfiler profiler) {
+        return matchingContext().findMatchingPattern(line, profiler);
+    }
+
+    public static ValueKind findValueKind(CharSequence value) {
+        return matchingContext().findValueKind(value);
+    }
+
+    /**
+     * Checks cheaply whether an operand may be an identifier, without classifying it: every
+     * identifier starts with a letter or an underscore, and no literal does except true and false.
+     *
+     * @param operand The operand.
+     * @return False if the operand is certainly not an identifier, otherwise true.
+     */
+    public static boolean mayBeIdentifier(CharSequence operand) {
+        if (operand.length() == 0) {
+            return false;
         }
-        return null; // No match found
+        char first = operand.charAt(0);
+        return first == '_' || (first >= 'A' && first <= 'Z') || (first >= 'a' && first <= 'z');
+    }
+
+    public static boolean isBlank(String line) {
+        return matchingContext().isBlank(line);
     }
 }
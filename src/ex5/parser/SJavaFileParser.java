@@ -1,14 +1,21 @@
 package ex5.parser;
 
-import ex5.Constants.Constants;
+import ex5.input.CharSequenceReader;
+import ex5.input.SourceInput;
 import ex5.model.*;
 import ex5.model.statements.*;
 import ex5.model.VariableType;
+import ex5.profile.LineProfiler;
+import ex5.scan.LineScanner;
+import ex5.util.CancellationToken;
+import ex5.util.OffHeapArena;
 import ex5.validator.SemanticException;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.util.*;
 
 /**
@@ -29,10 +36,42 @@ public class SJavaFileParser {
     private static final String CANNOT_DECLARE_METHOD_MESSAGE = "Cannot declare method: '%s' in nested scope";
     private static final String DUPLICATE_NAMED_METHODS_MESSAGE = "Duplicate named methods: '%s' and '%s'";
     private static final String UNCLOSED_BLOCK_MESSAGE = "Unclosed block at end of file";
+    private static final String NESTING_LIMIT_MESSAGE = "Block nesting exceeds the limit of %d levels";
     private static final String FINAL = "final";
     private static final String DUPLICATE_PARAMETER_NAME_MESSAGE =
             "Cannot have two parameters with the same name in method declaration with argument '%s'";
 
+    // Statements that are valid in the global scope
+    private static final Set<LineType> GLOBAL_SCOPE_LINE_TYPES = EnumSet.of(LineType.COMMENT,
+            LineType.VAR_DECLARATION, LineType.METHOD_DECLARATION, LineType.ASSIGNMENT);
+
+    /**
+     * Nesting limit meaning that blocks may be nested arbitrarily deep.
+     */
+    public static final int UNLIMITED_NESTING = Integer.MAX_VALUE;
+
+    private final Stack<Scope> scopeStack; // Reused between parses performed by this instance
+    private final int maxNestingDepth; // Maximum number of nested blocks, a method body included
+
+    /**
+     * Constructs a new parser instance that accepts arbitrarily deep nesting.
+     * An instance keeps reusable parsing state and is therefore confined to a single thread;
+     * concurrent callers should use one instance per thread.
+     */
+    public SJavaFileParser() {
+        this(UNLIMITED_NESTING);
+    }
+
+    /**
+     * Constructs a new parser instance that rejects sources nested deeper than the given limit.
+     *
+     * @param maxNestingDepth The maximum number of nested blocks, counting the method body as one.
+     */
+    public SJavaFileParser(int maxNestingDepth) {
+        this.scopeStack = new Stack<>();
+        this.maxNestingDepth = maxNestingDepth;
+    }
+
     /**
      * Parses an SJava file and constructs the global scope representation.
      *
@@ -45,72 +84,334 @@ public class SJavaFileParser {
     public static GlobalScope parseFile(String filePath) throws IOException, SyntaxException,
             SemanticException {
         validateFileSuffix(filePath);
-        RegexPatterns.init();
+        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+            return new SJavaFileParser().parse(reader);
+        }
+    }
+
+    /**
+     * Parses an SJava source, such as an archive entry or a compressed file, and constructs
+     * the global scope representation. The source is streamed, never extracted to disk.
+     *
+     * @param input The SJava source.
+     * @return The parsed global scope containing all methods and declarations.
+     * @throws IOException If there is an issue reading the source.
+     * @throws SyntaxException If there is a syntax error in the source.
+     * @throws SemanticException If a semantic validation error occurs.
+     */
+    public GlobalScope parse(SourceInput input) throws IOException, SyntaxException,
+            SemanticException {
+        try (BufferedReader reader = input.openReader()) {
+            return parse(reader);
+        }
+    }
+
+    /**
+     * Parses in-memory SJava source text and constructs the global scope representation.
+     *
+     * @param source The source text.
+     * @return The parsed global scope containing all methods and declarations.
+     * @throws SyntaxException If there is a syntax error in the source.
+     * @throws SemanticException If a semantic validation error occurs.
+     */
+    public GlobalScope parse(CharSequence source) throws SyntaxException, SemanticException {
+        try {
+            return parse(new CharSequenceReader(source));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Cannot happen when reading from memory
+        }
+    }
+
+    /**
+     * Parses SJava source text from a reader and constructs the global scope representation.
+     * The reader is consumed but not closed.
+     *
+     * @param reader The reader supplying the source text.
+     * @return The parsed global scope containing all methods and declarations.
+     * @throws IOException If there is an issue reading the source.
+     * @throws SyntaxException If there is a syntax error in the source.
+     * @throws SemanticException If a semantic validation error occurs.
+     */
+    public GlobalScope parse(Reader reader) throws IOException, SyntaxException, SemanticException {
+        return parse(reader, null, null, null, null);
+    }
+
+    /**
+     * Parses SJava source text from a reader, attributing the cost of every line to a profiler,
+     * stopping early if the run is cancelled, and storing operand text off-heap.
+     * The reader is consumed but not closed.
+     *
+     * @param reader The reader supplying the source text.
+     * @param profiler The profiler recording per-line costs, or null to record nothing.
+     * @param cancellation The token checked before every line, or null if the run cannot be cancelled.
+     * @param arena The arena receiving the statements' operand text, or null to keep it on the heap;
+     *              the parsed model cannot be used after the arena is closed.
+     * @param listener The listener receiving global statements and methods as they are completed,
+     *                 or null.
+     * @return The parsed global scope containing all methods and declarations.
+     * @throws IOException If there is an issue reading the source.
+     * @throws SyntaxException If there is a syntax error in the source.
+     * @throws SemanticException If a semantic validation error occurs.
+     * @throws ex5.util.VerificationAbortedException If the run is cancelled or times out.
+     */
+    public GlobalScope parse(Reader reader, LineProfiler profiler, CancellationToken cancellation,
+                             OffHeapArena arena, ParseListener listener)
+            throws IOException, SyntaxException, SemanticException {
+        LineScanner lines = new LineScanner(reader);
         GlobalScope globalScope = new GlobalScope(null);
-        Stack<Scope> scopeStack = new Stack<>();
+        scopeStack.clear();
         scopeStack.push(globalScope);
-        processFile(filePath, globalScope, scopeStack);
-        validateUnclosedBlocks(scopeStack);
+        try {
+            processFile(lines, globalScope, scopeStack, profiler, cancellation, arena, listener);
+            validateUnclosedBlocks(scopeStack.size());
+        } finally {
+            scopeStack.clear(); // Do not keep the parsed model reachable from a pooled parser
+        }
         return globalScope;
     }
 
+    /**
+     * Checks that SJava source text is well-formed without building its model.
+     * Every line is classified, and block structure, returns, statement placement, nesting depth
+     * and method and parameter names are checked, exactly as {@link #parse(Reader)} checks them,
+     * but no statement or scope is created; only the open block count and the declared method
+     * names are tracked. A source passing this check is one that {@link #parse(Reader)} accepts,
+     * and a source failing it fails parsing with the same error.
+     * The reader is consumed but not closed.
+     *
+     * @param reader The reader supplying the source text.
+     * @param cancellation The token checked before every line, or null if the check cannot be cancelled.
+     * @throws IOException If there is an issue reading the source.
+     * @throws SyntaxException If there is a syntax error in the source.
+     * @throws SemanticException If a line is misplaced or a method or parameter name is duplicated.
+     * @throws ex5.util.VerificationAbortedException If the check is cancelled or times out.
+     */
+    public void checkSyntax(Reader reader, CancellationToken cancellation)
+            throws IOException, SyntaxException, SemanticException {
+        parseEvents(reader, null, cancellation);
+    }
+
+    /**
+     * Parses SJava source text into a stream of events instead of a model.
+     * The source is checked exactly as {@link #checkSyntax(Reader, CancellationToken)} checks it,
+     * and every line passing the checks is reported to the handler as soon as it is read. No
+     * statement, scope or method is created: the open block count and the names of the methods
+     * declared so far, which a duplicate name is checked against, are all that is kept, so
+     * memory use grows with the number of methods only, never with the number of statements.
+     * The reader is consumed but not closed.
+     *
+     * @param reader The reader supplying the source text.
+     * @param handler The handler receiving the events, or null to only check the source.
+     * @param cancellation The token checked before every line, or null if the parse cannot be cancelled.
+     * @throws IOException If there is an issue reading the source.
+     * @throws SyntaxException If there is a syntax error in the source.
+     * @throws SemanticException If a line is misplaced or a method or parameter name is duplicated.
+     * @throws ex5.util.VerificationAbortedException If the parse is cancelled or times out.
+     */
+    public void parseEvents(Reader reader, ParseEventHandler handler, CancellationToken cancellation)
+            throws IOException, SyntaxException, SemanticException {
+        LineScanner lines = new LineScanner(reader);
+        Set<String> methodNames = new HashSet<>();
+        String methodName = null; // The method whose body is open, if any
+        int depth = 1; // The global scope is always open
+        int lineNumber = 0;
+        LineType prevPatternType = null;
+        String line;
+        while ((line = lines.nextLine()) != null) {
+            if (cancellation != null) {
+                cancellation.checkpoint();
+            }
+            lineNumber++;
+            if (lines.isBlank()) continue;
+            if (lines.isClosingBracket()) {
+                validateClosingBracket(depth, prevPatternType);
+                depth--;
+                prevPatternType = LineType.BLOCK_CLOSE;
+                if (handler != null && depth == 1) {
+                    handler.methodClosed(lineNumber, methodName);
+                } else if (handler != null) {
+                    handler.blockClosed(lineNumber);
+                }
+                continue;
+            }
+            LineType patternType = getPatternType(line, lines);
+            validateScope(patternType, depth, line);
+            List<Variable> parameters = null;
+            if (patternType == LineType.METHOD_DECLARATION) {
+                String[] declaration = splitMethodDeclaration(line);
+                parameters = parseMethodParams(declaration[1], null); // Rejects duplicate parameter names
+                if (!methodNames.add(declaration[0])) {
+                    throw new SemanticException(String.format(DUPLICATE_NAMED_METHODS_MESSAGE,
+                            declaration[0], declaration[0]));
+                }
+                methodName = declaration[0];
+                depth++;
+            } else if (patternType == LineType.IF_WHILE) {
+                depth++;
+            }
+            validateNestingDepth(depth);
+            if (handler != null) {
+                emitEvent(handler, lineNumber, line, patternType, methodName, parameters);
+            }
+            prevPatternType = patternType;
+        }
+        validateUnclosedBlocks(depth);
+    }
+
+    /**
+     * Reports a checked line to an event handler.
+     *
+     * @param handler The handler.
+     * @param lineNumber The number of the line.
+     * @param line The line.
+     * @param patternType The type of the line.
+     * @param methodName The name of the method whose body is open, if any.
+     * @param parameters The parameters of the method the line declares, if it declares one.
+     */
+    private static void emitEvent(ParseEventHandler handler, int lineNumber, String line, LineType patternType,
+                                  String methodName, List<Variable> parameters) {
+        switch (patternType) {
+            case VAR_DECLARATION -> {
+                String content = statementContent(line);
+                boolean isFinal = content.contains(FINAL);
+                String[] parts = splitVarDeclaration(content, isFinal);
+                VariableType type = VariableType.fromString(parts[0]);
+                for (String declaration : parts[1].split(",")) {
+                    String[] eqSplit = declaration.split("=", 2);
+                    handler.variableDeclared(lineNumber, eqSplit[0].strip(), type, isFinal,
+                            (eqSplit.length == 2) ? eqSplit[1].strip() : null);
+                }
+            }
+            case ASSIGNMENT -> {
+                String[] assignment = splitAssignment(line);
+                handler.variableAssigned(lineNumber, assignment[0], assignment[1]);
+            }
+            case METHOD_CALL -> {
+                String[] call = splitMethodCall(line);
+                handler.methodCalled(lineNumber, call[0], Arrays.asList(splitArguments(call[1])));
+            }
+            case IF_WHILE -> handler.blockOpened(lineNumber, splitConditions(line));
+            case RETURN -> handler.returned(lineNumber);
+            case METHOD_DECLARATION -> handler.methodDeclared(lineNumber, methodName, parameters);
+            default -> {
+                // Comments carry no structure
+            }
+        }
+    }
+
     /**
      * Validates that the file has the correct '.sjava' suffix.
      *
      * @param filePath The file path to validate.
      * @throws IOException If the file does not have the correct suffix.
      */
-    private static void validateFileSuffix(String filePath) throws IOException {
+    public static void validateFileSuffix(String filePath) throws IOException {
         if (!filePath.endsWith(FILE_SUFFIX)) {
             throw new IOException(FILE_SUFFIX_MESSAGE);
         }
     }
 
     /**
-     * Reads and processes the SJava file line by line, handling different statement types.
+     * Reads and processes the SJava source line by line, handling different statement types.
      *
-     * @param filePath The path to the file.
+     * @param lines The scanner supplying the source lines.
      * @param globalScope The global scope being constructed.
      * @param scopeStack The stack representing nested scopes.
-     * @throws IOException If an error occurs while reading the file.
+     * @param profiler The profiler recording per-line costs, or null to record nothing.
+     * @param cancellation The token checked before every line, or null.
+     * @param arena The arena receiving operand text, or null.
+     * @param listener The listener receiving completed parts of the program, or null.
+     * @throws IOException If an error occurs while reading the source.
      * @throws SyntaxException If a syntax error is detected.
      * @throws SemanticException If a semantic validation error occurs.
      */
-    private static void processFile(String filePath, GlobalScope globalScope, Stack<Scope> scopeStack)
+    private void processFile(LineScanner lines, GlobalScope globalScope, Stack<Scope> scopeStack,
+                             LineProfiler profiler, CancellationToken cancellation, OffHeapArena arena,
+                             ParseListener listener)
             throws IOException, SyntaxException, SemanticException {
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line, prevPatternType = "";
-            while ((line = reader.readLine()) != null) {
-                if (line.matches("\\s*")) continue;
-                if (handleClosingBracket(line, scopeStack, prevPatternType)) {
-                    prevPatternType = "}";
-                    continue;
+        String line;
+        LineType prevPatternType = null;
+        int lineNumber = 0;
+        while ((line = lines.nextLine()) != null) {
+            if (cancellation != null) {
+                cancellation.checkpoint();
+            }
+            lineNumber++;
+            if (lines.isBlank()) continue;
+            if (handleClosingBracket(lines.isClosingBracket(), scopeStack, prevPatternType)) {
+                prevPatternType = LineType.BLOCK_CLOSE;
+                if (listener != null && scopeStack.size() == 1) {
+                    // The bracket closed a method body
+                    List<Method> methods = globalScope.getMethods();
+                    listener.methodCompleted(methods.get(methods.size() - 1));
                 }
-                String patternType = getPatternType(line);
-                processLine(line, patternType, scopeStack, globalScope);
-                prevPatternType = patternType;
+                continue;
             }
+            LineType patternType;
+            Statement statement;
+            if (profiler == null) {
+                patternType = getPatternType(line, lines);
+                statement = processLine(line, patternType, scopeStack, globalScope, arena);
+            } else {
+                profiler.beginLine(lineNumber, line);
+                patternType = getPatternType(line, profiler);
+                long start = System.nanoTime();
+                statement = processLine(line, patternType, scopeStack, globalScope, arena);
+                profiler.recordParse(System.nanoTime() - start, statement);
+            }
+            if (listener != null) {
+                notifyListener(listener, patternType, statement, globalScope, scopeStack);
+            }
+            validateNestingDepth(scopeStack.size());
+            prevPatternType = patternType;
+        }
+    }
+
+    /**
+     * Reports a parsed line to the listener if it completed a global statement or declared a method.
+     *
+     * @param listener The listener.
+     * @param patternType The type of the parsed line.
+     * @param statement The statement built from the line, or null.
+     * @param globalScope The global scope being constructed.
+     * @param scopeStack The stack representing nested scopes, after the line was processed.
+     */
+    private static void notifyListener(ParseListener listener, LineType patternType, Statement statement,
+                                       GlobalScope globalScope, Stack<Scope> scopeStack) {
+        if (patternType == LineType.METHOD_DECLARATION) {
+            List<Method> methods = globalScope.getMethods();
+            listener.methodDeclared(methods.get(methods.size() - 1));
+        } else if (statement != null && scopeStack.size() == 1) {
+            listener.globalStatementParsed(statement);
+        }
+    }
+
+    /**
+     * Ensures that blocks are not nested deeper than this parser's limit.
+     *
+     * @param depth The number of open scopes, the global scope included.
+     * @throws SyntaxException If the nesting limit is exceeded.
+     */
+    private void validateNestingDepth(int depth) throws SyntaxException {
+        // The global scope is the outermost scope and is not a nested block
+        if (depth - 1 > maxNestingDepth) {
+            throw new SyntaxException(String.format(NESTING_LIMIT_MESSAGE, maxNestingDepth));
         }
     }
 
     /**
      * Validates and processes the closing bracket ('}') in the source file.
      *
-     * @param line The line containing the bracket.
+     * @param closingBracket Whether the line consists of a closing bracket only.
      * @param scopeStack The scope stack tracking nested scopes.
      * @param prevPatternType The previous pattern type encountered.
      * @return True if a closing bracket was handled, otherwise false.
      * @throws SyntaxException If there is an unmatched or misplaced closing bracket.
      */
-    private static boolean handleClosingBracket(String line, Stack<Scope> scopeStack, String prevPatternType)
-            throws SyntaxException {
-        if (line.trim().equals("}")) {
-            if (scopeStack.size() == 2 && !prevPatternType.equals(Constants.RETURN_STATEMENT)) {
-                throw new SyntaxException(MISSING_RETURN_MESSAGE);
-            }
-            if (scopeStack.size() == 1) {
-                throw new SyntaxException(EXTRA_CURLY_BRACKET_MESSAGE);
-            }
+    private static boolean handleClosingBracket(boolean closingBracket, Stack<Scope> scopeStack,
+                                                LineType prevPatternType) throws SyntaxException {
+        if (closingBracket) {
+            validateClosingBracket(scopeStack.size(), prevPatternType);
             scopeStack.pop();
             return true;
         }
@@ -118,14 +419,56 @@ public class SJavaFileParser {
     }
 
     /**
-     * Identifies the pattern type of a given line using regex matching.
+     * Ensures that a closing bracket closes a block, and that a method body ends with a return.
+     *
+     * @param depth The number of open scopes before the bracket, the global scope included.
+     * @param prevPatternType The previous pattern type encountered.
+     * @throws SyntaxException If there is an unmatched or misplaced closing bracket.
+     */
+    private static void validateClosingBracket(int depth, LineType prevPatternType) throws SyntaxException {
+        if (depth == 2 && prevPatternType != LineType.RETURN) {
+            throw new SyntaxException(MISSING_RETURN_MESSAGE);
+        }
+        if (depth == 1) {
+            throw new SyntaxException(EXTRA_CURLY_BRACKET_MESSAGE);
+        }
+    }
+
+    /**
+     * Identifies the pattern type of a given line using regex matching, trying only the patterns
+     * the line's structure allows.
+     *
+     * @param line The line to analyze.
+     * @param lines The scanner positioned on the line.
+     * @return The identified pattern type.
+     * @throws SyntaxException If the syntax is unrecognized.
+     */
+    private static LineType getPatternType(String line, LineScanner lines) throws SyntaxException {
+        return requirePatternType(line, RegexPatterns.findMatchingPattern(line, lines.lastVisibleCharacter(),
+                lines.hasOpenParenthesis()));
+    }
+
+    /**
+     * Identifies the pattern type of a given line, recording every pattern attempt.
      *
      * @param line The line to analyze.
+     * @param profiler The profiler receiving the pattern attempts.
      * @return The identified pattern type.
      * @throws SyntaxException If the syntax is unrecognized.
      */
-    private static String getPatternType(String line) throws SyntaxException {
-        String patternType = RegexPatterns.findMatchingPattern(line);
+    private static LineType getPatternType(String line, LineProfiler profiler) throws SyntaxException {
+        return requirePatternType(line, RegexPatterns.findMatchingPattern(line, profiler));
+    }
+
+    /**
+     * Ensures that a line was recognized.
+     *
+     * @param line The analyzed line.
+     * @param patternType The identified pattern type, or null if no pattern matched.
+     * @return The identified pattern type.
+     * @throws SyntaxException If the syntax is unrecognized.
+     */
+    private static LineType requirePatternType(String line, LineType patternType) throws SyntaxException {
         if (patternType == null) {
             throw new SyntaxException(String.format(UNRECOGNIZED_SYNTAX_MESSAGE, line));
         }
@@ -135,11 +478,11 @@ public class SJavaFileParser {
     /**
      * Ensures that all opened scopes are properly closed.
      *
-     * @param scopeStack The scope stack.
+     * @param depth The number of scopes still open, the global scope included.
      * @throws SyntaxException If there are unclosed blocks.
      */
-    private static void validateUnclosedBlocks(Stack<Scope> scopeStack) throws SyntaxException {
-        if (scopeStack.size() > 1) {
+    private static void validateUnclosedBlocks(int depth) throws SyntaxException {
+        if (depth > 1) {
             throw new SyntaxException(UNCLOSED_BLOCK_MESSAGE);
         }
     }
@@ -153,25 +496,34 @@ public class SJavaFileParser {
      * @param patternType The identified pattern type of the line (e.g., variable declaration, method call).
      * @param scopeStack The stack tracking nested scopes in the program.
      * @param globalScope The global scope containing all method declarations.
+     * @param arena The arena receiving operand text, or null to keep it on the heap.
+     * @return The statement added to the current scope, or null if the line adds none.
      * @throws SemanticException If the statement is not valid in the current scope.
      */
-    private static void processLine(String line, String patternType, Stack<Scope> scopeStack,
-                                    GlobalScope globalScope) throws SemanticException {
+    private static Statement processLine(String line, LineType patternType, Stack<Scope> scopeStack,
+                                         GlobalScope globalScope, OffHeapArena arena) throws SemanticException {
         // Retrieve the current active scope
         Scope currentScope = scopeStack.peek();
 
         // Ensure the statement is allowed in the current scope
-        validateScope(patternType, scopeStack, line);
+        validateScope(patternType, scopeStack.size(), line);
 
         // Process the statement based on its pattern type
-        switch (patternType) {
-            case Constants.VAR_DECLARATION -> currentScope.addStatement(parseVarDeclaration(line));
-            case Constants.ASSIGNMENT -> currentScope.addStatement(parseAssignment(line));
-            case Constants.METHOD_CALL -> currentScope.addStatement(parseMethodCall(line));
-            case Constants.IF_WHILE_STATEMENT -> handleIfWhileStatement(line, scopeStack, currentScope);
-            case Constants.METHOD_DECLARATION ->
-                    handleMethodDeclaration(line, globalScope, scopeStack, currentScope);
+        Statement statement = switch (patternType) {
+            case VAR_DECLARATION -> parseVarDeclaration(line, arena);
+            case ASSIGNMENT -> parseAssignment(line, arena);
+            case METHOD_CALL -> parseMethodCall(line, arena);
+            case IF_WHILE -> handleIfWhileStatement(line, scopeStack, currentScope, arena);
+            case METHOD_DECLARATION -> {
+                handleMethodDeclaration(line, globalScope, scopeStack, currentScope, arena);
+                yield null;
+            }
+            default -> null; // Comments and returns add no statement
+        };
+        if (statement != null) {
+            currentScope.addStatement(statement);
         }
+        return statement;
     }
 
     /**
@@ -180,23 +532,19 @@ public class SJavaFileParser {
      * and that control structures (e.g., if/while) do not appear in the global scope.
      *
      * @param patternType The identified pattern type of the statement.
-     * @param scopeStack The stack tracking nested scopes in the program.
+     * @param depth The number of open scopes, the global scope included.
      * @param line The original line of code being validated.
      * @throws SemanticException If the statement is placed in an invalid scope.
      */
-    private static void validateScope(String patternType, Stack<Scope> scopeStack, String line)
+    private static void validateScope(LineType patternType, int depth, String line)
             throws SemanticException {
-        // Statements that are valid in the global scope
-        Set<String> excludedPatternTypes = Set.of(Constants.COMMENT, Constants.VAR_DECLARATION,
-                Constants.METHOD_DECLARATION, Constants.ASSIGNMENT);
-
         // Ensure statements such as if/while are not declared in the global scope
-        if (scopeStack.size() == 1 && !excludedPatternTypes.contains(patternType)) {
+        if (depth == 1 && !GLOBAL_SCOPE_LINE_TYPES.contains(patternType)) {
             throw new SemanticException(String.format(CANNOT_PERFORM_LINE_MESSAGE, line));
         }
 
         // Prevent method declarations inside other scopes (methods or if/while blocks)
-        if (scopeStack.size() > 1 && patternType.equals(Constants.METHOD_DECLARATION)) {
+        if (depth > 1 && patternType == LineType.METHOD_DECLARATION) {
             throw new SemanticException(String.format(CANNOT_DECLARE_METHOD_MESSAGE, line));
         }
     }
@@ -208,12 +556,14 @@ public class SJavaFileParser {
      * @param line The if/while statement line.
      * @param scopeStack The stack tracking active scopes.
      * @param currentScope The current scope where the statement appears.
+     * @param arena The arena receiving operand text, or null.
+     * @return The if/while statement, to be added to the current scope.
      */
-    private static void handleIfWhileStatement(String line, Stack<Scope> scopeStack, Scope currentScope) {
+    private static IfWhileStatement handleIfWhileStatement(String line, Stack<Scope> scopeStack,
+                                                           Scope currentScope, OffHeapArena arena) {
         Scope ifWhileScope = new Scope(currentScope);
-        IfWhileStatement stmt = parseIfWhileStatement(line, ifWhileScope);
-        currentScope.addStatement(stmt);
         scopeStack.push(ifWhileScope);
+        return parseIfWhileStatement(line, ifWhileScope, arena);
     }
 
     /**
@@ -223,16 +573,16 @@ public class SJavaFileParser {
      * @param globalScope The global scope of the program.
      * @param scopeStack The stack tracking active scopes.
      * @param currentScope The current scope where the method is declared.
+     * @param arena The arena receiving the method's name and parameter names, or null.
      * @throws SemanticException If a duplicate method name is found.
      */
     private static void handleMethodDeclaration(String line, GlobalScope globalScope, Stack<Scope> scopeStack,
-                                                Scope currentScope) throws SemanticException {
-        Method method = parseMethod(line, currentScope);
-        for (Method m : globalScope.getMethods()) {
-            if (m.getMethodName().equals(method.getMethodName())) {
-                throw new SemanticException(String.format(DUPLICATE_NAMED_METHODS_MESSAGE,
-                        m.getMethodName(), method.getMethodName()));
-            }
+                                                Scope currentScope, OffHeapArena arena) throws SemanticException {
+        Method method = parseMethod(line, currentScope, arena);
+        Method existing = globalScope.findMethod(method.getMethodName());
+        if (existing != null) {
+            throw new SemanticException(String.format(DUPLICATE_NAMED_METHODS_MESSAGE,
+                    existing.getMethodName(), method.getMethodName()));
         }
         globalScope.addMethod(method);
         scopeStack.push(method.getBodyScope());
@@ -243,9 +593,20 @@ public class SJavaFileParser {
      *
      * @param line The if/while statement line containing the condition.
      * @param ifWhileScope The new scope for the if/while statement.
+     * @param arena The arena receiving operand text, or null.
      * @return An IfWhileStatement object representing the parsed statement.
      */
-    private static IfWhileStatement parseIfWhileStatement(String line, Scope ifWhileScope) {
+    private static IfWhileStatement parseIfWhileStatement(String line, Scope ifWhileScope, OffHeapArena arena) {
+        return new IfWhileStatement(ifWhileScope, storeOperands(arena, splitConditions(line)));
+    }
+
+    /**
+     * Extracts the conditions of an if/while line.
+     *
+     * @param line The if/while statement line containing the condition.
+     * @return The conditions, split at the logical operators.
+     */
+    private static String[] splitConditions(String line) {
         // Remove trailing '{' and trim spaces
         String withoutBrace = line.replaceAll("\\{\\s*$", "").trim();
 
@@ -255,81 +616,171 @@ public class SJavaFileParser {
         String argsPart = withoutBrace.substring(parenIndex + 1, closeParen).strip();
 
         // Split conditions by logical operators (&&, ||)
-        String[] conditions = argsPart.split("\\s*(?:\\|\\||&&)\\s*");
-
-        return new IfWhileStatement(ifWhileScope, conditions);
+        return argsPart.split("\\s*(?:\\|\\||&&)\\s*");
     }
 
     /**
      * Parses a variable declaration statement from the given line.
      *
      * @param line The line containing the variable declaration.
+     * @param arena The arena receiving operand text, or null.
      * @return A VarDeclarationStatement representing the parsed declaration.
      */
-    private static VarDeclarationStatement parseVarDeclaration(String line) {
-        // Trim and remove trailing semicolon
-        String content = line.trim().substring(0, line.trim().length() - 1);
+    private static VarDeclarationStatement parseVarDeclaration(String line, OffHeapArena arena) {
+        String content = statementContent(line);
 
         // Check if the declaration contains 'final'
         boolean isFinal = content.contains(FINAL);
+        String[] parts = splitVarDeclaration(content, isFinal);
+        VariableType type = VariableType.fromString(parts[0]);
+
+        // Extract multiple variable declarations separated by commas
+        String[] declarations = parts[1].split(",");
+        CharSequence[] names = new CharSequence[declarations.length];
+        CharSequence[] values = new CharSequence[declarations.length];
+        for (int i = 0; i < declarations.length; i++) {
+            String[] declaration = VarDeclarationStatement.splitDeclaration(declarations[i]);
+            names[i] = storeName(arena, declaration[0]);
+            values[i] = (declaration.length == 2) ? storeOperand(arena, declaration[1]) : null;
+        }
+
+        return new VarDeclarationStatement(isFinal, type, names, values);
+    }
+
+    /**
+     * Splits the content of a variable declaration into its type and its variables.
+     *
+     * @param content The declaration, without its trailing semicolon.
+     * @param isFinal Whether the declaration contains 'final'.
+     * @return The type name, followed by the comma-separated variable declarations.
+     */
+    private static String[] splitVarDeclaration(String content, boolean isFinal) {
         if (isFinal) {
             content = content.replaceAll("final\\s+", "");
         }
 
         // Split declaration into type and variable assignments
-        String[] parts = content.split("\\s+", 2);
-        int idx = 0;
-        VariableType type = VariableType.fromString(parts[idx++]);
-        String varPart = parts[idx];
-
-        // Extract multiple variable declarations separated by commas
-        String[] declarations = varPart.split(",");
+        return content.split("\\s+", 2);
+    }
 
-        return new VarDeclarationStatement(isFinal, type, declarations);
+    /**
+     * Removes the surrounding whitespace and the trailing semicolon of a statement line.
+     *
+     * @param line The statement line.
+     * @return The content of the statement.
+     */
+    private static String statementContent(String line) {
+        String trimmed = line.trim();
+        return trimmed.substring(0, trimmed.length() - 1);
     }
 
     /**
      * Parses an assignment statement from the given line.
      *
      * @param line The assignment statement line.
+     * @param arena The arena receiving operand text, or null.
      * @return An AssignmentStatement representing the parsed assignment.
      */
-    private static AssignmentStatement parseAssignment(String line) {
-        // Trim and remove trailing semicolon
-        String content = line.trim().substring(0, line.trim().length() - 1);
+    private static AssignmentStatement parseAssignment(String line, OffHeapArena arena) {
+        String[] assignment = splitAssignment(line);
+        return new AssignmentStatement(storeName(arena, assignment[0]), storeOperand(arena, assignment[1]));
+    }
 
+    /**
+     * Splits an assignment line into the assigned variable and the value.
+     *
+     * @param line The assignment statement line.
+     * @return The variable name, followed by the value.
+     */
+    private static String[] splitAssignment(String line) {
         // Split assignment into variable name and value
-        String[] eqSplit = content.split("=", 2);
-        String varName = eqSplit[0].strip();
-        String value = eqSplit[1].strip();
-
-        return new AssignmentStatement(varName, value);
+        String[] eqSplit = statementContent(line).split("=", 2);
+        return new String[] {eqSplit[0].strip(), eqSplit[1].strip()};
     }
 
     /**
      * Parses a method call statement from the given line.
      *
      * @param line The method call statement line.
+     * @param arena The arena receiving operand text, or null.
      * @return A MethodCallStatement representing the parsed method call.
      */
-    private static MethodCallStatement parseMethodCall(String line) {
-        // Trim and remove trailing semicolon
-        String content = line.trim().substring(0, line.trim().length() - 1);
+    private static MethodCallStatement parseMethodCall(String line, OffHeapArena arena) {
+        String[] call = splitMethodCall(line);
+        return new MethodCallStatement(storeName(arena, call[0]),
+                Arrays.asList(storeOperands(arena, splitArguments(call[1]))));
+    }
+
+    /**
+     * Splits a method call line into the method's name and its argument list.
+     *
+     * @param line The method call statement line.
+     * @return The method name, followed by the text between the parentheses.
+     */
+    private static String[] splitMethodCall(String line) {
+        String content = statementContent(line);
 
         // Extract method name and arguments
         int parenIndex = content.indexOf('(');
         String name = content.substring(0, parenIndex).strip();
         int closeParen = content.indexOf(')', parenIndex);
-        String argsPart = content.substring(parenIndex + 1, closeParen).strip();
+        return new String[] {name, content.substring(parenIndex + 1, closeParen).strip()};
+    }
+
+    /**
+     * Splits the argument list of a method call.
+     *
+     * @param argsPart The text between the parentheses of the call.
+     * @return The arguments, none if the list is empty.
+     */
+    private static String[] splitArguments(String argsPart) {
+        return argsPart.isEmpty() ? new String[0] : argsPart.split("\\s*,\\s*");
+    }
 
-        // Extract arguments as a list
-        List<String> argsList = new ArrayList<>();
-        if (!argsPart.isEmpty()) {
-            String[] splitted = argsPart.split("\\s*,\\s*");
-            argsList.addAll(Arrays.asList(splitted));
+    /**
+     * Stores a variable or method name in an arena's name table, if one is used, so that every
+     * occurrence of the name shares one off-heap view.
+     *
+     * @param arena The arena, or null to keep the name as it is.
+     * @param name The name.
+     * @return The shared view of the name, or the name itself without an arena.
+     */
+    private static CharSequence storeName(OffHeapArena arena, String name) {
+        return (arena == null) ? name : arena.storeName(name);
+    }
+
+    /**
+     * Stores an operand in an arena, if one is used: an operand that may be a variable name is
+     * stored as a name, so that it is the very view its declaration stored, and a literal is
+     * stored on its own.
+     *
+     * @param arena The arena, or null to keep the text on the heap.
+     * @param text The operand text.
+     * @return The stored operand, the shared view of a name wherever it may be a variable name.
+     */
+    private static CharSequence storeOperand(OffHeapArena arena, String text) {
+        if (arena == null || RegexPatterns.mayBeIdentifier(text)) {
+            return storeName(arena, text);
         }
+        return arena.store(text);
+    }
 
-        return new MethodCallStatement(name, argsList);
+    /**
+     * Stores several operands in an arena, if one is used.
+     *
+     * @param arena The arena, or null to keep the text on the heap.
+     * @param texts The operand texts.
+     * @return The stored operands, or the texts themselves without an arena.
+     */
+    private static CharSequence[] storeOperands(OffHeapArena arena, String[] texts) {
+        if (arena == null) {
+            return texts;
+        }
+        CharSequence[] stored = new CharSequence[texts.length];
+        for (int i = 0; i < texts.length; i++) {
+            stored[i] = storeOperand(arena, texts[i]);
+        }
+        return stored;
     }
 
     /**
@@ -337,10 +788,32 @@ public class SJavaFileParser {
      *
      * @param line The method declaration line.
      * @param currentScope The current scope where the method is being declared.
+     * @param arena The arena receiving the method's name and parameter names, or null.
      * @return A Method object representing the parsed method.
      * @throws SemanticException If the method contains duplicate parameter names.
      */
-    private static Method parseMethod(String line, Scope currentScope) throws SemanticException {
+    private static Method parseMethod(String line, Scope currentScope, OffHeapArena arena) throws SemanticException {
+        String[] declaration = splitMethodDeclaration(line);
+        CharSequence methodName = storeName(arena, declaration[0]);
+
+        // Parse method parameters
+        List<Variable> params = parseMethodParams(declaration[1], arena);
+
+        // Create a new scope for the method; its parameters are declared when it is validated
+        Scope methodScope = new Scope(currentScope);
+        Method method = new Method(methodName, params, methodScope);
+
+        checkDuplicateParameters(params);
+        return method;
+    }
+
+    /**
+     * Splits a method declaration line into the method's name and its parameter list.
+     *
+     * @param line The method declaration line.
+     * @return The method name, followed by the text between the parentheses.
+     */
+    private static String[] splitMethodDeclaration(String line) {
         // Remove trailing '{' and trim spaces
         String withoutBrace = line.replaceAll("\\{\\s*$", "").trim();
 
@@ -350,31 +823,18 @@ public class SJavaFileParser {
         String methodName = afterVoid.substring(0, parenIndex).strip();
         int closeParen = afterVoid.indexOf(')', parenIndex);
         String paramsPart = afterVoid.substring(parenIndex + 1, closeParen).strip();
-
-        // Parse method parameters
-        List<Variable> params = parseMethodParams(paramsPart);
-
-        // Create a new scope for the method
-        Scope methodScope = new Scope(currentScope);
-        Method method = new Method(methodName, params, methodScope);
-
-        // Add parameters as declared variables in method scope
-        for (Variable v : params) {
-            methodScope.addVariable(v);
-        }
-
-        checkDuplicateParameters(params);
-        return method;
+        return new String[] {methodName, paramsPart};
     }
 
     /**
      * Parses method parameters from a given parameter string.
      *
      * @param paramsPart The parameter string extracted from a method declaration.
+     * @param arena The arena receiving the parameter names, or null to keep them on the heap.
      * @return A list of Variable objects representing the method parameters.
      * @throws SemanticException If duplicate parameter names are found.
      */
-    private static List<Variable> parseMethodParams(String paramsPart) throws SemanticException {
+    private static List<Variable> parseMethodParams(String paramsPart, OffHeapArena arena) throws SemanticException {
         if (paramsPart.isEmpty()) {
             return new ArrayList<>();
         }
@@ -395,7 +855,7 @@ public class SJavaFileParser {
             }
 
             VariableType type = VariableType.fromString(tokens[idx++]);
-            String paramName = tokens[idx];
+            CharSequence paramName = storeName(arena, tokens[idx]);
 
             // Method parameters are always considered initialized
             result.add(new Variable(paramName, type, isFinal, type));
@@ -412,7 +872,7 @@ public class SJavaFileParser {
      * @throws SemanticException If duplicate parameter names are found.
      */
     private static void checkDuplicateParameters(List<Variable> result) throws SemanticException {
-        Set<String> seen = new HashSet<>();
+        Set<CharSequence> seen = new HashSet<>();
         for (Variable var : result) {
             if (!seen.add(var.getName())) { // add() returns false if the element already exists
                 throw new SemanticException(String.format(DUPLICATE_PARAMETER_NAME_MESSAGE, var.getName()));
@@ -0,0 +1,40 @@
+package ex5.parser;
+
+import ex5.model.VariableType;
+
+/**
+ * Enum representing the kinds of operands that can appear in an SJava statement:
+ * a literal of one of the variable types, or an identifier referring to a variable.
+ * The declaration order is the order in which the patterns are tried, so that
+ * 'true' and 'false' are classified as boolean literals rather than identifiers.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public enum ValueKind {
+    BOOLEAN(VariableType.BOOLEAN),
+    INT(VariableType.INT),
+    DOUBLE(VariableType.DOUBLE),
+    CHAR(VariableType.CHAR),
+    STRING(VariableType.STRING),
+    IDENTIFIER(null);
+
+    private final VariableType literalType; // Type of the literal, or null for identifiers
+
+    /**
+     * Constructs a ValueKind.
+     *
+     * @param literalType The type of the literal, or null for identifiers.
+     */
+    ValueKind(VariableType literalType) {
+        this.literalType = literalType;
+    }
+
+    /**
+     * Retrieves the type of a literal of this kind.
+     *
+     * @return The literal's VariableType, or null for identifiers.
+     */
+    public VariableType getLiteralType() {
+        return literalType;
+    }
+}
@@ -0,0 +1,377 @@
+package ex5.profile;
+
+import ex5.input.SourceInput;
+import ex5.model.Variable;
+import ex5.model.VariableType;
+import ex5.parser.LineType;
+import ex5.parser.MatchingContext;
+import ex5.parser.ParseEventHandler;
+import ex5.parser.RegexPatterns;
+import ex5.parser.SJavaFileParser;
+import ex5.parser.SyntaxException;
+import ex5.parser.ValueKind;
+import ex5.validator.SemanticException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Characterizes a corpus of SJava sources, so the verifier can be tuned for the inputs it
+ * actually sees. Every source is read, its lines are classified the way the parser classifies
+ * them, and its parse events are followed to collect the shape of its methods, blocks and operands.
+ * Sources are analyzed in parallel; each worker holds one source at a time and accumulates into
+ * fixed-size {@link Histogram}s of its own, which are merged when the corpus is exhausted, so
+ * memory use does not grow with the size of the corpus.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class CorpusAnalyzer {
+    private static final String BLANK = "BLANK";
+    private static final String UNRECOGNIZED = "UNRECOGNIZED";
+    private static final String CLOSING_BRACKET = "}";
+    private static final String JSON_FIELD = "  \"%s\": %s";
+    private static final String JSON_COUNT = "\"%s\": %d";
+    private static final String JSON_SEPARATOR = ", ";
+    private static final String JSON_LINE_SEPARATOR = ",\n";
+
+    private final int workers; // Number of analysis threads
+
+    /**
+     * Constructs a CorpusAnalyzer.
+     *
+     * @param workers The number of analysis threads.
+     */
+    public CorpusAnalyzer(int workers) {
+        this.workers = workers;
+    }
+
+    /**
+     * The statistics accumulated by one worker, or by the whole corpus once merged.
+     */
+    public static class Statistics {
+        private long sources; // Sources analyzed
+        private long unreadableSources; // Sources that could not be read
+        private long rejectedSources; // Sources that failed to parse
+        private final long[] lineTypes = new long[LineType.values().length]; // Lines per line type
+        private long blankLines; // Whitespace-only lines
+        private long unrecognizedLines; // Lines that match no pattern
+        private final long[] operandKinds = new long[ValueKind.values().length]; // Operands per kind
+        private long unrecognizedOperands; // Operands that match no kind
+        private final Histogram lineLengths = new Histogram(); // Characters per line
+        private final Histogram methodsPerSource = new Histogram(); // Methods declared per source
+        private final Histogram parametersPerMethod = new Histogram(); // Parameters per method
+        private final Histogram ifWhileDepths = new Histogram(); // Nesting depth of each if/while block
+        private final Histogram localsPerScope = new Histogram(); // Variables declared per method or block scope
+        private final Histogram callFanOut = new Histogram(); // Distinct methods called per method
+        private final Histogram argumentsPerCall = new Histogram(); // Arguments per method call
+
+        /**
+         * Adds the statistics of another worker to these.
+         *
+         * @param other The statistics to merge.
+         */
+        private void merge(Statistics other) {
+            sources += other.sources;
+            unreadableSources += other.unreadableSources;
+            rejectedSources += other.rejectedSources;
+            for (int i = 0; i < lineTypes.length; i++) {
+                lineTypes[i] += other.lineTypes[i];
+            }
+            blankLines += other.blankLines;
+            unrecognizedLines += other.unrecognizedLines;
+            for (int i = 0; i < operandKinds.length; i++) {
+                operandKinds[i] += other.operandKinds[i];
+            }
+            unrecognizedOperands += other.unrecognizedOperands;
+            lineLengths.merge(other.lineLengths);
+            methodsPerSource.merge(other.methodsPerSource);
+            parametersPerMethod.merge(other.parametersPerMethod);
+            ifWhileDepths.merge(other.ifWhileDepths);
+            localsPerScope.merge(other.localsPerScope);
+            callFanOut.merge(other.callFanOut);
+            argumentsPerCall.merge(other.argumentsPerCall);
+        }
+
+        /**
+         * Formats the statistics as a JSON object.
+         *
+         * @return The JSON text.
+         */
+        public String toJson() {
+            List<String> fields = new ArrayList<>();
+            fields.add(field("sources", "{" + String.join(JSON_SEPARATOR,
+                    count("analyzed", sources), count("unreadable", unreadableSources),
+                    count("rejected", rejectedSources)) + "}"));
+            List<String> lines = new ArrayList<>();
+            for (LineType type : LineType.values()) {
+                lines.add(count(type.name(), lineTypes[type.ordinal()]));
+            }
+            lines.add(count(BLANK, blankLines));
+            lines.add(count(UNRECOGNIZED, unrecognizedLines));
+            fields.add(field("lineTypes", "{" + String.join(JSON_SEPARATOR, lines) + "}"));
+            List<String> operands = new ArrayList<>();
+            for (ValueKind kind : ValueKind.values()) {
+                operands.add(count(kind.name(), operandKinds[kind.ordinal()]));
+            }
+            operands.add(count(UNRECOGNIZED, unrecognizedOperands));
+            fields.add(field("operandKinds", "{" + String.join(JSON_SEPARATOR, operands) + "}"));
+            fields.add(field("lineLength", lineLengths.toJson()));
+            fields.add(field("methodsPerSource", methodsPerSource.toJson()));
+            fields.add(field("parametersPerMethod", parametersPerMethod.toJson()));
+            fields.add(field("ifWhileDepth", ifWhileDepths.toJson()));
+            fields.add(field("localsPerScope", localsPerScope.toJson()));
+            fields.add(field("callFanOut", callFanOut.toJson()));
+            fields.add(field("argumentsPerCall", argumentsPerCall.toJson()));
+            return "{\n" + String.join(JSON_LINE_SEPARATOR, fields) + "\n}";
+        }
+
+        /**
+         * Formats a named JSON member.
+         *
+         * @param name The member name.
+         * @param json The member value.
+         * @return The formatted member.
+         */
+        private static String field(String name, String json) {
+            return String.format(JSON_FIELD, name, json);
+        }
+
+        /**
+         * Formats a named counter.
+         *
+         * @param name The counter name.
+         * @param value The counter value.
+         * @return The formatted counter.
+         */
+        private static String count(String name, long value) {
+            return String.format(JSON_COUNT, name, value);
+        }
+    }
+
+    /**
+     * Analyzes a corpus.
+     *
+     * @param sources The sources to analyze.
+     * @return The statistics of the whole corpus.
+     * @throws InterruptedException If the calling thread is interrupted while waiting for the workers.
+     */
+    public Statistics analyzeAll(List<SourceInput> sources) throws InterruptedException {
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<Statistics>> partials = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                partials.add(executor.submit(() -> analyzeShare(sources, next)));
+            }
+            Statistics total = new Statistics();
+            for (Future<Statistics> partial : partials) {
+                total.merge(partial.get());
+            }
+            return total;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Analyzes sources until none are left, claiming the next unclaimed source each time.
+     *
+     * @param sources The sources of the corpus.
+     * @param next The index of the next unclaimed source, shared by all workers.
+     * @return The statistics of the sources this worker analyzed.
+     */
+    private static Statistics analyzeShare(List<SourceInput> sources, AtomicInteger next) {
+        Statistics statistics = new Statistics();
+        SJavaFileParser parser = new SJavaFileParser();
+        for (int i = next.getAndIncrement(); i < sources.size(); i = next.getAndIncrement()) {
+            analyze(sources.get(i), parser, statistics);
+        }
+        return statistics;
+    }
+
+    /**
+     * Analyzes a single source.
+     *
+     * @param source The source.
+     * @param parser The worker's parser.
+     * @param statistics The worker's statistics.
+     */
+    private static void analyze(SourceInput source, SJavaFileParser parser, Statistics statistics) {
+        String content;
+        try {
+            content = source.readContent();
+        } catch (IOException e) {
+            statistics.unreadableSources++;
+            return;
+        }
+        statistics.sources++;
+        try {
+            recordLines(content, statistics);
+            // The shape only counts once the whole source parses, so it is recorded apart first
+            Statistics shape = new Statistics();
+            ShapeRecorder recorder = new ShapeRecorder(shape);
+            parser.parseEvents(new StringReader(content), recorder, null);
+            shape.methodsPerSource.record(recorder.methods);
+            statistics.merge(shape);
+        } catch (SyntaxException | SemanticException | StackOverflowError e) {
+            statistics.rejectedSources++;
+        } catch (IOException e) {
+            statistics.unreadableSources++;
+        }
+    }
+
+    /**
+     * Records the length and type of every line, classified as the parser classifies it.
+     *
+     * @param content The source text.
+     * @param statistics The worker's statistics.
+     * @throws IOException Never, as the text is in memory.
+     */
+    private static void recordLines(String content, Statistics statistics) throws IOException {
+        MatchingContext context = RegexPatterns.matchingContext();
+        BufferedReader lines = new BufferedReader(new StringReader(content));
+        String line;
+        while ((line = lines.readLine()) != null) {
+            statistics.lineLengths.record(line.length());
+            if (context.isBlank(line)) {
+                statistics.blankLines++;
+            } else if (line.trim().equals(CLOSING_BRACKET)) {
+                statistics.lineTypes[LineType.BLOCK_CLOSE.ordinal()]++;
+            } else {
+                LineType type = context.findMatchingPattern(line);
+                if (type == null) {
+                    statistics.unrecognizedLines++;
+                } else {
+                    statistics.lineTypes[type.ordinal()]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the shape of a program from its parse events, as the source is read.
+     * Only the scopes still open are tracked, so no model of the program is ever built. Method
+     * bodies and if/while blocks count their own locals; the global scope's variables are not
+     * counted.
+     */
+    private static class ShapeRecorder implements ParseEventHandler {
+        private final Statistics statistics; // The statistics of the source
+        private final Deque<long[]> locals; // Variables declared so far, per open method body or block
+        private final Set<String> callees; // Names of the methods called by the open method
+        private int methods; // Methods declared so far
+
+        /**
+         * Constructs a ShapeRecorder.
+         *
+         * @param statistics The statistics of the source.
+         */
+        private ShapeRecorder(Statistics statistics) {
+            this.statistics = statistics;
+            this.locals = new ArrayDeque<>();
+            this.callees = new HashSet<>();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void methodDeclared(int lineNumber, String name, List<Variable> parameters) {
+            methods++;
+            statistics.parametersPerMethod.record(parameters.size());
+            callees.clear();
+            locals.push(new long[1]);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void methodClosed(int lineNumber, String name) {
+            statistics.localsPerScope.record(locals.pop()[0]);
+            statistics.callFanOut.record(callees.size());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void variableDeclared(int lineNumber, String name, VariableType type, boolean isFinal,
+                                     String value) {
+            if (!locals.isEmpty()) {
+                locals.peek()[0]++;
+            }
+            if (value != null) {
+                recordOperand(value, statistics);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void variableAssigned(int lineNumber, String name, String value) {
+            recordOperand(value, statistics);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void methodCalled(int lineNumber, String name, List<String> arguments) {
+            callees.add(name);
+            statistics.argumentsPerCall.record(arguments.size());
+            for (String argument : arguments) {
+                recordOperand(argument, statistics);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void blockOpened(int lineNumber, String[] conditions) {
+            for (String condition : conditions) {
+                recordOperand(condition, statistics);
+            }
+            statistics.ifWhileDepths.record(locals.size());
+            locals.push(new long[1]);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void blockClosed(int lineNumber) {
+            statistics.localsPerScope.record(locals.pop()[0]);
+        }
+    }
+
+    /**
+     * Records the kind of a single operand.
+     *
+     * @param operand The operand.
+     * @param statistics The worker's statistics.
+     */
+    private static void recordOperand(String operand, Statistics statistics) {
+        ValueKind kind = RegexPatterns.findValueKind(operand);
+        if (kind == null) {
+            statistics.unrecognizedOperands++;
+        } else {
+            statistics.operandKinds[kind.ordinal()]++;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ex5.profile;
+
+import java.util.Locale;
+
+/**
+ * A fixed-size histogram of non-negative integer samples.
+ * Samples are counted in power-of-two buckets: bucket 0 holds the value 0 and bucket k holds the
+ * values from 2^(k-1) to 2^k - 1, so the histogram takes the same memory however many samples it
+ * records and however large they are. A histogram is not thread-safe; concurrent producers record
+ * into histograms of their own and {@link #merge(Histogram)} them afterwards.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class Histogram {
+    private static final int BUCKET_COUNT = Long.SIZE;
+    private static final String JSON_FORMAT =
+            "{\"count\": %d, \"min\": %d, \"max\": %d, \"mean\": %.2f, \"buckets\": [%s]}";
+    private static final String BUCKET_FORMAT = "{\"from\": %d, \"to\": %d, \"count\": %d}";
+    private static final String BUCKET_SEPARATOR = ", ";
+
+    private final long[] buckets = new long[BUCKET_COUNT]; // Sample counts per power-of-two bucket
+    private long count; // Number of samples
+    private long sum; // Sum of all samples
+    private long min = Long.MAX_VALUE; // Smallest sample
+    private long max; // Largest sample
+
+    /**
+     * Records a sample. Negative samples are counted as 0.
+     *
+     * @param value The sample.
+     */
+    public void record(long value) {
+        long sample = Math.max(value, 0);
+        buckets[Long.SIZE - Long.numberOfLeadingZeros(sample)]++;
+        count++;
+        sum += sample;
+        min = Math.min(min, sample);
+        max = Math.max(max, sample);
+    }
+
+    /**
+     * Adds the samples of another histogram to this one.
+     *
+     * @param other The histogram to merge.
+     */
+    public void merge(Histogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] += other.buckets[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Formats the histogram as a JSON object listing its non-empty buckets.
+     *
+     * @return The JSON text.
+     */
+    public String toJson() {
+        StringBuilder entries = new StringBuilder();
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (buckets[i] == 0) {
+                continue;
+            }
+            if (entries.length() > 0) {
+                entries.append(BUCKET_SEPARATOR);
+            }
+            long from = (i == 0) ? 0 : 1L << (i - 1);
+            long to = (i == 0) ? 0 : (1L << i) - 1;
+            entries.append(String.format(BUCKET_FORMAT, from, to, buckets[i]));
+        }
+        double mean = (count == 0) ? 0 : (double) sum / count;
+        return String.format(Locale.ROOT, JSON_FORMAT, count, (count == 0) ? 0 : min, max, mean, entries);
+    }
+}
@@ -0,0 +1,201 @@
+package ex5.profile;
+
+import ex5.model.statements.Statement;
+import ex5.parser.LineType;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Attributes the cost of verifying a source to its lines.
+ * For every line, the profiler records the time spent classifying it against the line patterns
+ * (and how many patterns were tried), building its statement, and validating that statement.
+ * For every line pattern, it keeps a histogram of how long single match attempts took, which
+ * exposes pattern shapes that backtrack badly on some inputs.
+ * Recording costs a few clock reads per line and per pattern attempt, so the profiler can be
+ * used on production inputs. A profiler records a single source and is not thread-safe.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class LineProfiler {
+    private static final int MAX_DISPLAYED_LINE_LENGTH = 80;
+    private static final String ELLIPSIS = "...";
+    private static final double NANOS_PER_MICRO = 1000.0;
+    // Upper bounds of the histogram buckets, in nanoseconds; the last bucket is unbounded
+    private static final long[] BUCKET_BOUNDS = {1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L};
+    private static final String TOP_LINES_HEADER = "Top %d of %d lines by time:";
+    private static final String LINE_ENTRY =
+            "  line %d [%s] %.1f us (classify %.1f, parse %.1f, validate %.1f), %d patterns tried: %s";
+    private static final String HISTOGRAM_HEADER =
+            "Pattern match attempts: pattern attempts matches total_us max_us | <1us <10us <100us <1ms <10ms >=10ms";
+    private static final String HISTOGRAM_ENTRY = "  %s %d %d %.1f %.1f |";
+    private static final String BUCKET_ENTRY = " %d";
+    private static final String UNMATCHED = "UNRECOGNIZED";
+
+    private final List<LineCost> lines; // Recorded lines, in source order
+    private final Map<Statement, LineCost> statementLines; // The line each statement was built from
+    private final Map<LineType, PatternCost> patterns; // Match attempt statistics per line pattern
+    private LineCost currentLine; // The line being parsed, or null
+
+    /**
+     * The recorded costs of a single source line.
+     */
+    private static class LineCost {
+        private final int lineNumber; // One-based line number
+        private final String text; // The line, shortened for display
+        private LineType lineType; // The matched pattern, or null if none matched
+        private int patternsTried; // Number of line patterns tried
+        private long classifyNanos; // Time spent matching line patterns
+        private long parseNanos; // Time spent building the statement
+        private long validateNanos; // Time spent validating the statement
+
+        /**
+         * Constructs a LineCost.
+         *
+         * @param lineNumber The one-based line number.
+         * @param text The line, shortened for display.
+         */
+        private LineCost(int lineNumber, String text) {
+            this.lineNumber = lineNumber;
+            this.text = text;
+        }
+
+        /**
+         * Computes the total time attributed to the line.
+         *
+         * @return The total time in nanoseconds.
+         */
+        private long totalNanos() {
+            return classifyNanos + parseNanos + validateNanos;
+        }
+    }
+
+    /**
+     * The match attempt statistics of a single line pattern.
+     */
+    private static class PatternCost {
+        private long attempts; // Number of match attempts
+        private long matches; // Number of successful attempts
+        private long totalNanos; // Total time of all attempts
+        private long maxNanos; // Time of the slowest attempt
+        private final long[] buckets = new long[BUCKET_BOUNDS.length + 1]; // Attempts by duration
+    }
+
+    /**
+     * Constructs an empty LineProfiler.
+     */
+    public LineProfiler() {
+        this.lines = new ArrayList<>();
+        this.statementLines = new IdentityHashMap<>();
+        this.patterns = new EnumMap<>(LineType.class);
+    }
+
+    /**
+     * Starts recording a new source line; subsequent pattern attempts are attributed to it.
+     *
+     * @param lineNumber The one-based line number.
+     * @param line The line text.
+     */
+    public void beginLine(int lineNumber, String line) {
+        String text = line.strip();
+        if (text.length() > MAX_DISPLAYED_LINE_LENGTH) {
+            text = text.substring(0, MAX_DISPLAYED_LINE_LENGTH) + ELLIPSIS;
+        }
+        currentLine = new LineCost(lineNumber, text);
+        lines.add(currentLine);
+    }
+
+    /**
+     * Records a single attempt to match the current line against a line pattern.
+     *
+     * @param lineType The pattern tried.
+     * @param nanos The duration of the attempt.
+     * @param matched Whether the pattern matched.
+     */
+    public void recordPatternAttempt(LineType lineType, long nanos, boolean matched) {
+        PatternCost cost = patterns.computeIfAbsent(lineType, type -> new PatternCost());
+        cost.attempts++;
+        cost.totalNanos += nanos;
+        cost.maxNanos = Math.max(cost.maxNanos, nanos);
+        if (matched) {
+            cost.matches++;
+        }
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS.length && nanos >= BUCKET_BOUNDS[bucket]) {
+            bucket++;
+        }
+        cost.buckets[bucket]++;
+        if (currentLine != null) {
+            currentLine.patternsTried++;
+            currentLine.classifyNanos += nanos;
+            if (matched) {
+                currentLine.lineType = lineType;
+            }
+        }
+    }
+
+    /**
+     * Records the time spent building the current line's statement.
+     *
+     * @param nanos The duration of the statement parse.
+     * @param statement The statement built from the line, or null if the line adds none.
+     */
+    public void recordParse(long nanos, Statement statement) {
+        if (currentLine == null) {
+            return;
+        }
+        currentLine.parseNanos += nanos;
+        if (statement != null) {
+            statementLines.put(statement, currentLine);
+        }
+    }
+
+    /**
+     * Records the time spent validating a statement, attributing it to the statement's line.
+     *
+     * @param statement The validated statement.
+     * @param nanos The duration of the validation.
+     */
+    public void recordValidation(Statement statement, long nanos) {
+        LineCost line = statementLines.get(statement);
+        if (line != null) {
+            line.validateNanos += nanos;
+        }
+    }
+
+    /**
+     * Prints the most expensive lines and the per-pattern histogram.
+     *
+     * @param out The stream to print to.
+     * @param topLines The maximum number of lines to print.
+     */
+    public void printReport(PrintStream out, int topLines) {
+        List<LineCost> sorted = new ArrayList<>(lines);
+        sorted.sort(Comparator.comparingLong(LineCost::totalNanos).reversed());
+        int shown = Math.min(topLines, sorted.size());
+        out.println(String.format(TOP_LINES_HEADER, shown, lines.size()));
+        for (LineCost line : sorted.subList(0, shown)) {
+            out.println(String.format(LINE_ENTRY, line.lineNumber,
+                    line.lineType == null ? UNMATCHED : line.lineType,
+                    line.totalNanos() / NANOS_PER_MICRO, line.classifyNanos / NANOS_PER_MICRO,
+                    line.parseNanos / NANOS_PER_MICRO, line.validateNanos / NANOS_PER_MICRO,
+                    line.patternsTried, line.text));
+        }
+        out.println(HISTOGRAM_HEADER);
+        for (Map.Entry<LineType, PatternCost> entry : patterns.entrySet()) {
+            PatternCost cost = entry.getValue();
+            StringBuilder row = new StringBuilder(String.format(HISTOGRAM_ENTRY, entry.getKey(),
+                    cost.attempts, cost.matches, cost.totalNanos / NANOS_PER_MICRO,
+                    cost.maxNanos / NANOS_PER_MICRO));
+            for (long count : cost.buckets) {
+                row.append(String.format(BUCKET_ENTRY, count));
+            }
+            out.println(row);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package ex5.scan;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads source text line by line through a {@link StructuralIndex}.
+ * Text is read in large blocks, and every block is indexed once, by the fastest
+ * {@link StructuralScanner} available; finding the end of a line, deciding whether it is blank
+ * or a lone closing bracket and locating its last visible character then take a few bitmap
+ * operations instead of repeated passes over its characters. Lines end at '\n', '\r' or "\r\n",
+ * exactly as with {@link java.io.BufferedReader#readLine()}.
+ * <p>
+ * The index only answers line-level questions; splitting a line into its tokens is still left to
+ * the parser's regular expressions.
+ * <p>
+ * The scalar scanner is built in. The vector scanner is an optional extra compiled from the
+ * 'src-vector' source root; it is used when it was compiled and the jdk.incubator.vector module is
+ * present (for instance with "--add-modules jdk.incubator.vector"). Otherwise, or when the system
+ * property "sjava.scanner" is "scalar", the scalar scanner is used.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class LineScanner {
+    private static final String SCANNER_PROPERTY = "sjava.scanner";
+    private static final String SCALAR_SCANNER = "scalar";
+    private static final String VECTOR_SCANNER_CLASS = "ex5.scan.VectorScanner";
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+    private static final char CLOSING_BRACKET = '}';
+    private static final StructuralScanner DEFAULT_SCANNER = loadScanner();
+
+    private final Reader reader; // Supplies the text
+    private final StructuralScanner scanner; // Indexes every block
+    private final StructuralIndex index; // Index of the current block
+    private char[] buffer; // The current block
+    private int filled; // Number of characters in the buffer
+    private int position; // Start of the next line in the buffer
+    private boolean endOfInput; // Whether the reader is exhausted
+    private int lineStart; // Start of the current line in the buffer
+    private int lineEnd; // End of the current line in the buffer, exclusive
+
+    /**
+     * Constructs a LineScanner using the fastest scanner available.
+     *
+     * @param reader The reader supplying the text; it is consumed but not closed.
+     */
+    public LineScanner(Reader reader) {
+        this(reader, DEFAULT_SCANNER);
+    }
+
+    /**
+     * Constructs a LineScanner using a given scanner.
+     *
+     * @param reader The reader supplying the text; it is consumed but not closed.
+     * @param scanner The scanner indexing every block.
+     */
+    public LineScanner(Reader reader, StructuralScanner scanner) {
+        this.reader = reader;
+        this.scanner = scanner;
+        this.index = new StructuralIndex();
+        this.buffer = new char[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Loads the vector scanner reflectively, so that this class never links against the
+     * incubator module itself, falling back to the scalar scanner.
+     *
+     * @return The scanner.
+     */
+    private static StructuralScanner loadScanner() {
+        if (SCALAR_SCANNER.equals(System.getProperty(SCANNER_PROPERTY))) {
+            return new ScalarScanner();
+        }
+        try {
+            return (StructuralScanner) Class.forName(VECTOR_SCANNER_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            // The vector scanner was not built, the incubator module is not present, or the
+            // platform has no usable vector shape
+            return new ScalarScanner();
+        }
+    }
+
+    /**
+     * Advances to the next line.
+     *
+     * @return The line, without its terminator, or null at the end of the text.
+     * @throws IOException If the text cannot be read.
+     */
+    public String nextLine() throws IOException {
+        while (true) {
+            int lineBreak = index.nextLineBreak(position);
+            // A '\r' ending the block may be the first half of a "\r\n" split across blocks
+            boolean complete = lineBreak >= 0
+                    && (buffer[lineBreak] != '\r' || lineBreak + 1 < filled || endOfInput);
+            if (complete) {
+                lineStart = position;
+                lineEnd = lineBreak;
+                position = lineBreak + 1;
+                if (buffer[lineBreak] == '\r' && position < filled && buffer[position] == '\n') {
+                    position++;
+                }
+                return new String(buffer, lineStart, lineEnd - lineStart);
+            }
+            if (endOfInput) {
+                if (position == filled) {
+                    return null;
+                }
+                lineStart = position;
+                lineEnd = filled;
+                position = filled;
+                return new String(buffer, lineStart, lineEnd - lineStart);
+            }
+            fill();
+        }
+    }
+
+    /**
+     * Checks whether the current line consists of whitespace only, as matched by the regex "\s*".
+     *
+     * @return True if the line is blank, otherwise false.
+     */
+    public boolean isBlank() {
+        return index.isBlank(lineStart, lineEnd);
+    }
+
+    /**
+     * Checks whether the current line holds a closing bracket only, ignoring the characters
+     * {@link String#trim()} would remove.
+     *
+     * @return True if the line closes a block, otherwise false.
+     */
+    public boolean isClosingBracket() {
+        int first = index.firstVisible(lineStart, lineEnd);
+        return first >= 0 && buffer[first] == CLOSING_BRACKET && index.lastVisible(lineStart, lineEnd) == first;
+    }
+
+    /**
+     * Retrieves the last character of the current line that {@link String#trim()} would keep.
+     *
+     * @return The character, or '\0' if the line has none.
+     */
+    public char lastVisibleCharacter() {
+        int last = index.lastVisible(lineStart, lineEnd);
+        return (last < 0) ? '\0' : buffer[last];
+    }
+
+    /**
+     * Checks whether the current line holds an opening parenthesis.
+     *
+     * @return True if the line holds a '(', otherwise false.
+     */
+    public boolean hasOpenParenthesis() {
+        return index.hasOpenParenthesis(lineStart, lineEnd);
+    }
+
+    /**
+     * Reads the next block of text behind the unfinished line, growing the buffer if the line
+     * fills it, and indexes the buffer again.
+     *
+     * @throws IOException If the text cannot be read.
+     */
+    private void fill() throws IOException {
+        int remaining = filled - position;
+        if (remaining == buffer.length) {
+            char[] grown = new char[buffer.length * 2];
+            System.arraycopy(buffer, position, grown, 0, remaining);
+            buffer = grown;
+        } else {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+        }
+        filled = remaining;
+        position = 0;
+        int read = reader.read(buffer, filled, buffer.length - filled);
+        if (read < 0) {
+            endOfInput = true;
+        } else {
+            filled += read;
+        }
+        scanner.index(buffer, filled, index);
+    }
+}
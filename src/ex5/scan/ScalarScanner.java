@@ -0,0 +1,53 @@
+package ex5.scan;
+
+/**
+ * Indexes source text one character at a time.
+ * This scanner runs on every JVM, and is used whenever the vector API is not available.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class ScalarScanner implements StructuralScanner {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void index(char[] text, int length, StructuralIndex index) {
+        index.reset(length);
+        indexWords(text, 0, length, index);
+    }
+
+    /**
+     * Indexes the words of a block of text starting at a word boundary.
+     *
+     * @param text The buffer holding the text.
+     * @param from The position of the first character to index, a multiple of 64.
+     * @param length The number of characters of the buffer to index.
+     * @param index The index receiving the bitmaps.
+     */
+    static void indexWords(char[] text, int from, int length, StructuralIndex index) {
+        for (int start = from; start < length; start += Long.SIZE) {
+            long lineBreaks = 0;
+            long visible = 0;
+            long spacing = 0;
+            long openParentheses = 0;
+            int end = Math.min(start + Long.SIZE, length);
+            for (int i = start; i < end; i++) {
+                char c = text[i];
+                long bit = 1L << (i - start);
+                if (c > ' ') {
+                    visible |= bit;
+                    if (c == '(') {
+                        openParentheses |= bit;
+                    }
+                } else if (c == ' ' || (c >= '\t' && c <= '\r')) {
+                    spacing |= bit;
+                    if (c == '\n' || c == '\r') {
+                        lineBreaks |= bit;
+                    }
+                }
+            }
+            index.setWord(start / Long.SIZE, lineBreaks, visible, spacing, openParentheses);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package ex5.scan;
+
+/**
+ * Bitmaps marking the structurally interesting characters of a block of source text.
+ * Bit i of each bitmap describes character i of the block, 64 characters per word, so questions
+ * about a whole line (where does it end, is it blank, where are its first and last visible
+ * characters, does it open a parenthesis) are answered a word at a time instead of a character
+ * at a time. The bitmaps are filled by a {@link StructuralScanner}; bits past the end of the
+ * indexed text are always clear.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class StructuralIndex {
+    private static final int WORD_SHIFT = 6;
+    private static final int WORD_MASK = Long.SIZE - 1;
+
+    private long[] lineBreaks; // '\n' and '\r'
+    private long[] visible; // Characters above ' ', the ones String.trim() keeps
+    private long[] spacing; // Whitespace as matched by the regex "\s": ' ', '\t', '\n', '\u000B', '\f', '\r'
+    private long[] openParentheses; // '('
+    private int length; // Number of indexed characters
+
+    /**
+     * Constructs an empty StructuralIndex.
+     */
+    public StructuralIndex() {
+        this.lineBreaks = new long[0];
+        this.visible = new long[0];
+        this.spacing = new long[0];
+        this.openParentheses = new long[0];
+    }
+
+    /**
+     * Prepares the index for a block of text, clearing every bitmap.
+     *
+     * @param length The number of characters in the block.
+     */
+    void reset(int length) {
+        int words = wordCount(length);
+        if (lineBreaks.length < words) {
+            lineBreaks = new long[words];
+            visible = new long[words];
+            spacing = new long[words];
+            openParentheses = new long[words];
+        }
+        this.length = length;
+    }
+
+    /**
+     * Stores one word of every bitmap.
+     *
+     * @param word The index of the word, covering characters 64 * word to 64 * word + 63.
+     * @param lineBreakBits The line break bits.
+     * @param visibleBits The visible character bits.
+     * @param spacingBits The whitespace bits.
+     * @param openParenthesisBits The opening parenthesis bits.
+     */
+    void setWord(int word, long lineBreakBits, long visibleBits, long spacingBits, long openParenthesisBits) {
+        lineBreaks[word] = lineBreakBits;
+        visible[word] = visibleBits;
+        spacing[word] = spacingBits;
+        openParentheses[word] = openParenthesisBits;
+    }
+
+    /**
+     * Computes the number of words covering a number of characters.
+     *
+     * @param length The number of characters.
+     * @return The number of words.
+     */
+    static int wordCount(int length) {
+        return (length + WORD_MASK) >>> WORD_SHIFT;
+    }
+
+    /**
+     * Finds the first line break at or after a position.
+     *
+     * @param from The position to start at.
+     * @return The position of the line break, or -1 if there is none before the end of the text.
+     */
+    public int nextLineBreak(int from) {
+        return nextSetBit(lineBreaks, from, length);
+    }
+
+    /**
+     * Finds the first visible character of a range.
+     *
+     * @param from The start of the range.
+     * @param to The end of the range, exclusive.
+     * @return The position of the character, or -1 if the range has none.
+     */
+    public int firstVisible(int from, int to) {
+        return nextSetBit(visible, from, to);
+    }
+
+    /**
+     * Finds the last visible character of a range.
+     *
+     * @param from The start of the range.
+     * @param to The end of the range, exclusive.
+     * @return The position of the character, or -1 if the range has none.
+     */
+    public int lastVisible(int from, int to) {
+        return previousSetBit(visible, from, to);
+    }
+
+    /**
+     * Checks whether a range consists of regex whitespace only.
+     *
+     * @param from The start of the range.
+     * @param to The end of the range, exclusive.
+     * @return True if the range is empty or holds whitespace only, otherwise false.
+     */
+    public boolean isBlank(int from, int to) {
+        return nextClearBit(spacing, from, to) < 0;
+    }
+
+    /**
+     * Checks whether a range holds an opening parenthesis.
+     *
+     * @param from The start of the range.
+     * @param to The end of the range, exclusive.
+     * @return True if the range holds a '(', otherwise false.
+     */
+    public boolean hasOpenParenthesis(int from, int to) {
+        return nextSetBit(openParentheses, from, to) >= 0;
+    }
+
+    /**
+     * Finds the first set bit of a range.
+     *
+     * @param bits The bitmap.
+     * @param from The start of the range.
+     * @param to The end of the range, exclusive.
+     * @return The position of the bit, or -1 if none is set.
+     */
+    private static int nextSetBit(long[] bits, int from, int to) {
+        if (from >= to) {
+            return -1;
+        }
+        int word = from >>> WORD_SHIFT;
+        long current = bits[word] & (-1L << (from & WORD_MASK));
+        int lastWord = (to - 1) >>> WORD_SHIFT;
+        while (current == 0) {
+            if (++word > lastWord) {
+                return -1;
+            }
+            current = bits[word];
+        }
+        int position = (word << WORD_SHIFT) + Long.numberOfTrailingZeros(current);
+        return (position < to) ? position : -1;
+    }
+
+    /**
+     * Finds the first clear bit of a range.
+     *
+     * @param bits The bitmap.
+     * @param from The start of the range.
+     * @param to The end of the range, exclusive.
+     * @return The position of the bit, or -1 if every bit is set.
+     */
+    private static int nextClearBit(long[] bits, int from, int to) {
+        if (from >= to) {
+            return -1;
+        }
+        int word = from >>> WORD_SHIFT;
+        long current = ~bits[word] & (-1L << (from & WORD_MASK));
+        int lastWord = (to - 1) >>> WORD_SHIFT;
+        while (current == 0) {
+            if (++word > lastWord) {
+                return -1;
+            }
+            current = ~bits[word];
+        }
+        int position = (word << WORD_SHIFT) + Long.numberOfTrailingZeros(current);
+        return (position < to) ? position : -1;
+    }
+
+    /**
+     * Finds the last set bit of a range.
+     *
+     * @param bits The bitmap.
+     * @param from The start of the range.
+     * @param to The end of the range, exclusive.
+     * @return The position of the bit, or -1 if none is set.
+     */
+    private static int previousSetBit(long[] bits, int from, int to) {
+        if (from >= to) {
+            return -1;
+        }
+        int last = to - 1;
+        int word = last >>> WORD_SHIFT;
+        long current = bits[word] & (-1L >>> (WORD_MASK - (last & WORD_MASK)));
+        int firstWord = from >>> WORD_SHIFT;
+        while (current == 0) {
+            if (--word < firstWord) {
+                return -1;
+            }
+            current = bits[word];
+        }
+        int position = (word << WORD_SHIFT) + WORD_MASK - Long.numberOfLeadingZeros(current);
+        return (position >= from) ? position : -1;
+    }
+}
@@ -0,0 +1,19 @@
+package ex5.scan;
+
+/**
+ * Builds the {@link StructuralIndex} of a block of source text.
+ * Implementations differ only in how many characters they examine at once; every implementation
+ * produces exactly the same bitmaps.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public interface StructuralScanner {
+    /**
+     * Indexes a block of text, replacing the previous contents of the index.
+     *
+     * @param text The buffer holding the text.
+     * @param length The number of characters of the buffer to index, starting at its beginning.
+     * @param index The index receiving the bitmaps.
+     */
+    void index(char[] text, int length, StructuralIndex index);
+}
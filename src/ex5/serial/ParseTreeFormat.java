@@ -0,0 +1,80 @@
+package ex5.serial;
+
+import ex5.model.VariableType;
+import ex5.model.statements.StatementKind;
+
+/**
+ * Constants of the binary parse-tree format shared by {@link ParseTreeWriter} and
+ * {@link ParseTreeReader}.
+ * A parse-tree file consists of, in order:
+ * <ol>
+ *     <li>A header: the magic number and the format version.</li>
+ *     <li>The string table: every identifier, literal and operand, stored once.</li>
+ *     <li>The global block: the statements of the global scope.</li>
+ *     <li>The method table: each method's name, parameters, and the offset and length of its
+ *     body relative to the start of the bodies section.</li>
+ *     <li>The bodies section: one block per method.</li>
+ * </ol>
+ * A block is a statement count followed by the statements; an if/while statement is directly
+ * followed by the block of its inner scope. Counts, lengths and string references are unsigned
+ * variable-length integers (seven bits per byte, least significant group first).
+ * Any change to the layout or to the codes below requires a new {@link #VERSION}.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+final class ParseTreeFormat {
+    static final int MAGIC = 0x534A5054; // "SJPT"
+    static final short VERSION = 1;
+
+    // Statement codes, independent of the declaration order of StatementKind
+    static final byte VAR_DECLARATION_CODE = 1;
+    static final byte ASSIGNMENT_CODE = 2;
+    static final byte METHOD_CALL_CODE = 3;
+    static final byte IF_WHILE_CODE = 4;
+
+    // Variable type codes are indices into this array
+    static final VariableType[] TYPE_CODES = {VariableType.INT, VariableType.DOUBLE,
+            VariableType.BOOLEAN, VariableType.CHAR, VariableType.STRING};
+
+    static final byte FINAL_FLAG = 1;
+
+    static final int VARINT_PAYLOAD_BITS = 7;
+    static final int VARINT_PAYLOAD_MASK = 0x7F;
+    static final int VARINT_CONTINUATION = 0x80;
+
+    /**
+     * Prevents instantiation.
+     */
+    private ParseTreeFormat() {
+    }
+
+    /**
+     * Retrieves the code of a statement kind.
+     *
+     * @param kind The statement kind.
+     * @return The code stored in the file.
+     */
+    static byte statementCode(StatementKind kind) {
+        return switch (kind) {
+            case VAR_DECLARATION -> VAR_DECLARATION_CODE;
+            case ASSIGNMENT -> ASSIGNMENT_CODE;
+            case METHOD_CALL -> METHOD_CALL_CODE;
+            case IF_WHILE -> IF_WHILE_CODE;
+        };
+    }
+
+    /**
+     * Retrieves the code of a variable type.
+     *
+     * @param type The variable type.
+     * @return The code stored in the file.
+     */
+    static byte typeCode(VariableType type) {
+        for (int i = 0; i < TYPE_CODES.length; i++) {
+            if (TYPE_CODES[i] == type) {
+                return (byte) i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown type: " + type);
+    }
+}
@@ -0,0 +1,371 @@
+package ex5.serial;
+
+import ex5.model.GlobalScope;
+import ex5.model.Method;
+import ex5.model.Scope;
+import ex5.model.Variable;
+import ex5.model.VariableType;
+import ex5.model.statements.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Loads a program written by {@link ParseTreeWriter} without parsing any source text.
+ * The file is memory-mapped and decoded in place: strings are decoded the first time they are
+ * referenced, and a method body is decoded only when it is first requested, typically by
+ * validation. Loading a file therefore costs little more than decoding the global statements
+ * and the method signatures.
+ * Every load returns a fresh model, so a file can be loaded and validated any number of times.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class ParseTreeReader {
+    /**
+     * The conventional suffix of parse-tree files.
+     */
+    public static final String FILE_SUFFIX = ".sjpt";
+
+    private static final String NOT_A_PARSE_TREE_MESSAGE = "Not an SJava parse tree: %s";
+    private static final String UNSUPPORTED_VERSION_MESSAGE = "Unsupported parse tree version %d";
+    private static final String CORRUPT_MESSAGE = "Corrupt parse tree";
+    private static final String UNKNOWN_STATEMENT_MESSAGE = "Corrupt parse tree: unknown statement code %d";
+
+    private final ByteBuffer buffer; // The whole file; only read through duplicates
+    private final int[] stringOffsets; // Offset of each string's UTF-8 bytes
+    private final int[] stringLengths; // Length of each string's UTF-8 bytes
+    private final String[] decodedStrings; // Strings decoded so far, by index; guarded by this
+    private int bodiesOffset; // Offset of the bodies section
+
+    /**
+     * A method whose body is decoded on first access.
+     */
+    private static class LazyMethod extends Method {
+        private final ParseTreeReader reader; // The reader holding the mapped file
+        private final GlobalScope globalScope; // The parent scope of the body
+        private final int bodyOffset; // Offset of the body block in the file
+        private final int bodyLength; // Length of the body block
+        private volatile Scope bodyScope; // The decoded body, or null until first access
+
+        /**
+         * Constructs a LazyMethod.
+         *
+         * @param name The method name.
+         * @param parameters The method parameters.
+         * @param reader The reader holding the mapped file.
+         * @param globalScope The parent scope of the body.
+         * @param bodyOffset Offset of the body block in the file.
+         * @param bodyLength Length of the body block.
+         */
+        private LazyMethod(String name, List<Variable> parameters, ParseTreeReader reader,
+                           GlobalScope globalScope, int bodyOffset, int bodyLength) {
+            super(name, parameters, null);
+            this.reader = reader;
+            this.globalScope = globalScope;
+            this.bodyOffset = bodyOffset;
+            this.bodyLength = bodyLength;
+        }
+
+        /**
+         * Retrieves the body scope, decoding it on first access.
+         *
+         * @return The body scope.
+         * @throws UncheckedIOException If the body is corrupt.
+         */
+        @Override
+        public Scope getBodyScope() {
+            Scope scope = bodyScope;
+            if (scope == null) {
+                synchronized (this) {
+                    scope = bodyScope;
+                    if (scope == null) {
+                        scope = decodeBody();
+                        bodyScope = scope;
+                    }
+                }
+            }
+            return scope;
+        }
+
+        /**
+         * Decodes the body block into a new scope.
+         *
+         * @return The body scope.
+         * @throws UncheckedIOException If the body is corrupt.
+         */
+        private Scope decodeBody() {
+            Scope scope = new Scope(globalScope);
+            try {
+                ByteBuffer in = reader.buffer.slice(bodyOffset, bodyLength);
+                reader.readBlock(in, scope);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return scope;
+        }
+    }
+
+    /**
+     * A block whose statements are being decoded.
+     */
+    private static class PendingBlock {
+        private final Scope scope; // The scope receiving the statements
+        private int remaining; // Number of statements still to decode
+
+        /**
+         * Constructs a PendingBlock.
+         *
+         * @param scope The scope receiving the statements.
+         * @param remaining The number of statements to decode.
+         */
+        private PendingBlock(Scope scope, int remaining) {
+            this.scope = scope;
+            this.remaining = remaining;
+        }
+    }
+
+    /**
+     * Constructs a ParseTreeReader over a whole parse-tree file.
+     *
+     * @param buffer The file contents.
+     * @param stringCount The number of strings in the string table.
+     */
+    private ParseTreeReader(ByteBuffer buffer, int stringCount) {
+        this.buffer = buffer;
+        this.stringOffsets = new int[stringCount];
+        this.stringLengths = new int[stringCount];
+        this.decodedStrings = new String[stringCount];
+    }
+
+    /**
+     * Loads a program from a parse-tree file.
+     *
+     * @param file The parse-tree file.
+     * @return The global scope of the program; method bodies are decoded on first access.
+     * @throws IOException If the file cannot be read or is not a valid parse tree.
+     */
+    public static GlobalScope read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Loads a program from the contents of a parse-tree file. The buffer's position is left
+     * unchanged, and the buffer must not be modified while the program is in use.
+     *
+     * @param buffer The file contents, from the buffer's position to its limit.
+     * @return The global scope of the program; method bodies are decoded on first access.
+     * @throws IOException If the contents are not a valid parse tree.
+     */
+    public static GlobalScope read(ByteBuffer buffer) throws IOException {
+        ByteBuffer in = buffer.slice();
+        try {
+            int magic = in.getInt();
+            if (magic != ParseTreeFormat.MAGIC) {
+                throw new IOException(String.format(NOT_A_PARSE_TREE_MESSAGE, Integer.toHexString(magic)));
+            }
+            short version = in.getShort();
+            if (version != ParseTreeFormat.VERSION) {
+                throw new IOException(String.format(UNSUPPORTED_VERSION_MESSAGE, version));
+            }
+            ParseTreeReader reader = new ParseTreeReader(in, readCount(in));
+            return reader.readProgram(in);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+                 | NegativeArraySizeException e) {
+            throw new IOException(CORRUPT_MESSAGE, e);
+        }
+    }
+
+    /**
+     * Indexes the string table, decodes the global block and the method table, and locates
+     * the bodies section.
+     *
+     * @param in The file contents, positioned at the string table.
+     * @return The global scope of the program.
+     * @throws IOException If the contents are not a valid parse tree.
+     */
+    private GlobalScope readProgram(ByteBuffer in) throws IOException {
+        for (int i = 0; i < stringOffsets.length; i++) {
+            stringLengths[i] = readVarInt(in);
+            stringOffsets[i] = in.position();
+            in.position(in.position() + stringLengths[i]);
+        }
+
+        GlobalScope globalScope = new GlobalScope(null);
+        readBlock(in, globalScope);
+
+        int methodCount = readCount(in);
+        String[] names = new String[methodCount];
+        List<List<Variable>> parameters = new ArrayList<>(methodCount);
+        int[] bodyOffsets = new int[methodCount];
+        int[] bodyLengths = new int[methodCount];
+        for (int i = 0; i < methodCount; i++) {
+            names[i] = readString(in);
+            int paramCount = readCount(in);
+            List<Variable> params = new ArrayList<>(paramCount);
+            for (int j = 0; j < paramCount; j++) {
+                boolean isFinal = in.get() == ParseTreeFormat.FINAL_FLAG;
+                VariableType type = ParseTreeFormat.TYPE_CODES[in.get()];
+                // Method parameters are always considered initialized
+                params.add(new Variable(readString(in), type, isFinal, type));
+            }
+            parameters.add(params);
+            bodyOffsets[i] = readVarInt(in);
+            bodyLengths[i] = readVarInt(in);
+        }
+        bodiesOffset = in.position();
+
+        for (int i = 0; i < methodCount; i++) {
+            if (bodyOffsets[i] < 0 || bodyLengths[i] < 0
+                    || bodyOffsets[i] > buffer.limit() - bodiesOffset - bodyLengths[i]) {
+                throw new IOException(CORRUPT_MESSAGE);
+            }
+            globalScope.addMethod(new LazyMethod(names[i], parameters.get(i), this, globalScope,
+                    bodiesOffset + bodyOffsets[i], bodyLengths[i]));
+        }
+        return globalScope;
+    }
+
+    /**
+     * Decodes a block and every block nested in it into the given scope.
+     * Nested blocks are tracked on an explicit work stack, so arbitrarily deep nesting cannot
+     * overflow the thread's call stack.
+     *
+     * @param in The buffer, positioned at the block's statement count.
+     * @param scope The scope receiving the block's statements.
+     * @throws IOException If the block is corrupt.
+     */
+    private void readBlock(ByteBuffer in, Scope scope) throws IOException {
+        try {
+            Deque<PendingBlock> blocks = new ArrayDeque<>();
+            blocks.push(new PendingBlock(scope, readCount(in)));
+            while (!blocks.isEmpty()) {
+                PendingBlock block = blocks.peek();
+                if (block.remaining == 0) {
+                    blocks.pop();
+                    continue;
+                }
+                block.remaining--;
+                byte code = in.get();
+                switch (code) {
+                    case ParseTreeFormat.VAR_DECLARATION_CODE -> {
+                        boolean isFinal = in.get() == ParseTreeFormat.FINAL_FLAG;
+                        VariableType type = ParseTreeFormat.TYPE_CODES[in.get()];
+                        block.scope.addStatement(VarDeclarationStatement.fromDeclarations(isFinal, type,
+                                readStrings(in).toArray(new String[0])));
+                    }
+                    case ParseTreeFormat.ASSIGNMENT_CODE -> {
+                        String variableName = readString(in);
+                        block.scope.addStatement(new AssignmentStatement(variableName, readString(in)));
+                    }
+                    case ParseTreeFormat.METHOD_CALL_CODE -> {
+                        String methodName = readString(in);
+                        block.scope.addStatement(new MethodCallStatement(methodName, readStrings(in)));
+                    }
+                    case ParseTreeFormat.IF_WHILE_CODE -> {
+                        Scope innerScope = new Scope(block.scope);
+                        String[] conditions = readStrings(in).toArray(new String[0]);
+                        block.scope.addStatement(new IfWhileStatement(innerScope, conditions));
+                        // The inner block follows its statement, before the statement's siblings
+                        blocks.push(new PendingBlock(innerScope, readCount(in)));
+                    }
+                    default -> throw new IOException(String.format(UNKNOWN_STATEMENT_MESSAGE, code));
+                }
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+                 | NegativeArraySizeException e) {
+            throw new IOException(CORRUPT_MESSAGE, e);
+        }
+    }
+
+    /**
+     * Reads a counted list of string table references.
+     *
+     * @param in The buffer.
+     * @return The referenced strings.
+     */
+    private List<String> readStrings(ByteBuffer in) {
+        int count = readCount(in);
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    /**
+     * Reads a string table reference, decoding the string on first use.
+     *
+     * @param in The buffer.
+     * @return The referenced string.
+     */
+    private String readString(ByteBuffer in) {
+        return stringAt(readVarInt(in));
+    }
+
+    /**
+     * Retrieves a string of the string table, decoding it on first use. Method bodies are
+     * decoded by whichever threads first request them, so the decoded strings they share are
+     * only accessed under the reader's lock.
+     *
+     * @param index The index of the string.
+     * @return The string.
+     */
+    private synchronized String stringAt(int index) {
+        String value = decodedStrings[index];
+        if (value == null) {
+            value = StandardCharsets.UTF_8.decode(
+                    buffer.slice(stringOffsets[index], stringLengths[index])).toString();
+            decodedStrings[index] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Reads the number of elements that follow. Every element takes at least one byte, so a
+     * count exceeding the bytes left can only come from a corrupt file, and is rejected before
+     * anything is allocated for it.
+     *
+     * @param in The buffer.
+     * @return The count.
+     * @throws IllegalArgumentException If the count is negative or exceeds the bytes left.
+     */
+    private static int readCount(ByteBuffer in) {
+        int count = readVarInt(in);
+        if (count < 0 || count > in.remaining()) {
+            throw new IllegalArgumentException(CORRUPT_MESSAGE);
+        }
+        return count;
+    }
+
+    /**
+     * Reads an unsigned variable-length integer.
+     *
+     * @param in The buffer.
+     * @return The value.
+     * @throws IllegalArgumentException If the encoding is too long to be an int.
+     */
+    private static int readVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < Integer.SIZE; shift += ParseTreeFormat.VARINT_PAYLOAD_BITS) {
+            int b = in.get();
+            value |= (b & ParseTreeFormat.VARINT_PAYLOAD_MASK) << shift;
+            if ((b & ParseTreeFormat.VARINT_CONTINUATION) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException(CORRUPT_MESSAGE);
+    }
+}
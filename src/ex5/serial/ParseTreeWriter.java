@@ -0,0 +1,197 @@
+package ex5.serial;
+
+import ex5.model.GlobalScope;
+import ex5.model.Method;
+import ex5.model.Scope;
+import ex5.model.Variable;
+import ex5.model.statements.*;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a parsed program in the binary parse-tree format described by {@link ParseTreeFormat},
+ * so that later runs can load it with {@link ParseTreeReader} instead of parsing the text again.
+ * Only the parsed structure is written: the variables that validation declares are not part
+ * of the file, so a program must be written before it is validated or after, never in between.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class ParseTreeWriter {
+    private final Map<String, Integer> stringIndices; // String table indices, by string
+    private final List<String> strings; // String table, in index order
+
+    /**
+     * Constructs a ParseTreeWriter with an empty string table.
+     */
+    private ParseTreeWriter() {
+        this.stringIndices = new HashMap<>();
+        this.strings = new ArrayList<>();
+    }
+
+    /**
+     * Writes a parsed program to a file, replacing the file if it exists.
+     *
+     * @param globalScope The parsed global scope.
+     * @param file The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(GlobalScope globalScope, Path file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            write(globalScope, out);
+        }
+    }
+
+    /**
+     * Writes a parsed program to a stream. The stream is not closed.
+     *
+     * @param globalScope The parsed global scope.
+     * @param out The stream to write to.
+     * @throws IOException If the stream cannot be written.
+     */
+    public static void write(GlobalScope globalScope, OutputStream out) throws IOException {
+        new ParseTreeWriter().writeTree(globalScope, out);
+    }
+
+    /**
+     * Encodes every section, then writes them in file order. The string table precedes the
+     * sections that refer to it, so those sections are encoded into memory first.
+     *
+     * @param globalScope The parsed global scope.
+     * @param out The stream to write to.
+     * @throws IOException If the stream cannot be written.
+     */
+    private void writeTree(GlobalScope globalScope, OutputStream out) throws IOException {
+        ByteArrayOutputStream globalBlock = new ByteArrayOutputStream();
+        writeBlock(globalScope, new DataOutputStream(globalBlock));
+
+        ByteArrayOutputStream methodTable = new ByteArrayOutputStream();
+        ByteArrayOutputStream bodies = new ByteArrayOutputStream();
+        DataOutputStream tableOut = new DataOutputStream(methodTable);
+        writeVarInt(tableOut, globalScope.getMethods().size());
+        for (Method method : globalScope.getMethods()) {
+            int bodyOffset = bodies.size();
+            writeBlock(method.getBodyScope(), new DataOutputStream(bodies));
+            writeString(tableOut, method.getMethodName().toString());
+            writeVarInt(tableOut, method.getParameters().size());
+            for (Variable param : method.getParameters()) {
+                tableOut.writeByte(param.isFinal() ? ParseTreeFormat.FINAL_FLAG : 0);
+                tableOut.writeByte(ParseTreeFormat.typeCode(param.getType()));
+                writeString(tableOut, param.getName().toString());
+            }
+            writeVarInt(tableOut, bodyOffset);
+            writeVarInt(tableOut, bodies.size() - bodyOffset);
+        }
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(ParseTreeFormat.MAGIC);
+        data.writeShort(ParseTreeFormat.VERSION);
+        writeVarInt(data, strings.size());
+        for (String string : strings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(data, bytes.length);
+            data.write(bytes);
+        }
+        globalBlock.writeTo(data);
+        methodTable.writeTo(data);
+        bodies.writeTo(data);
+        data.flush();
+    }
+
+    /**
+     * Writes the statements of a scope and of every block nested in it, each block preceded by
+     * its statement count.
+     *
+     * @param scope The outermost scope.
+     * @param out The stream to write to.
+     * @throws IOException If the stream cannot be written.
+     */
+    private void writeBlock(Scope scope, DataOutputStream out) throws IOException {
+        writeVarInt(out, scope.getStatements().size());
+        StatementIterator statements = new StatementIterator(scope);
+        while (statements.hasNext()) {
+            Statement stmt = statements.next();
+            out.writeByte(ParseTreeFormat.statementCode(stmt.getKind()));
+            switch (stmt.getKind()) {
+                case VAR_DECLARATION -> {
+                    VarDeclarationStatement declaration = (VarDeclarationStatement) stmt;
+                    out.writeByte(declaration.isFinal() ? ParseTreeFormat.FINAL_FLAG : 0);
+                    out.writeByte(ParseTreeFormat.typeCode(declaration.getType()));
+                    writeStrings(out, List.of(declaration.getDeclarations()));
+                }
+                case ASSIGNMENT -> {
+                    AssignmentStatement assignment = (AssignmentStatement) stmt;
+                    writeString(out, assignment.getVariableName().toString());
+                    writeString(out, assignment.getAssignedValue().toString());
+                }
+                case METHOD_CALL -> {
+                    MethodCallStatement call = (MethodCallStatement) stmt;
+                    writeString(out, call.getMethodName().toString());
+                    writeStrings(out, call.getArguments());
+                }
+                case IF_WHILE -> {
+                    IfWhileStatement ifWhile = (IfWhileStatement) stmt;
+                    writeStrings(out, ifWhile.getConditions());
+                    // The inner block follows its statement, before the statement's siblings
+                    writeVarInt(out, ifWhile.getInnerScope().getStatements().size());
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a counted list of string table references.
+     *
+     * @param out The stream to write to.
+     * @param values The strings, copied onto the heap if they are stored off it.
+     * @throws IOException If the stream cannot be written.
+     */
+    private void writeStrings(DataOutputStream out, List<? extends CharSequence> values) throws IOException {
+        writeVarInt(out, values.size());
+        for (CharSequence value : values) {
+            writeString(out, value.toString());
+        }
+    }
+
+    /**
+     * Writes a reference to a string, adding the string to the string table on first use.
+     *
+     * @param out The stream to write to.
+     * @param value The string.
+     * @throws IOException If the stream cannot be written.
+     */
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        Integer index = stringIndices.get(value);
+        if (index == null) {
+            index = strings.size();
+            stringIndices.put(value, index);
+            strings.add(value);
+        }
+        writeVarInt(out, index);
+    }
+
+    /**
+     * Writes an unsigned variable-length integer.
+     *
+     * @param out The stream to write to.
+     * @param value The non-negative value.
+     * @throws IOException If the stream cannot be written.
+     */
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~ParseTreeFormat.VARINT_PAYLOAD_MASK) != 0) {
+            out.writeByte((value & ParseTreeFormat.VARINT_PAYLOAD_MASK) | ParseTreeFormat.VARINT_CONTINUATION);
+            value >>>= ParseTreeFormat.VARINT_PAYLOAD_BITS;
+        }
+        out.writeByte(value);
+    }
+}
@@ -0,0 +1,99 @@
+package ex5.shard;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+
+/**
+ * Runs every worker on a thread of the coordinator's own JVM, connected through in-memory pipes.
+ * It stands in for transports that reach remote workers: the coordinator speaks the same
+ * protocol over the same kind of streams, but no process is started, so it is also the cheapest
+ * way to exercise sharding. Workers share the coordinator's heap, so a worker failing with an
+ * error is isolated only as far as its thread is.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class LoopbackTransport implements WorkerTransport {
+    private static final int PIPE_SIZE = 64 * 1024;
+    private static final String THREAD_NAME_FORMAT = "sjava-loopback-worker-%d";
+
+    private final ShardWorker worker; // Serves every connection
+
+    /**
+     * Constructs a LoopbackTransport.
+     *
+     * @param worker The worker serving every connection; it may serve several at once.
+     */
+    public LoopbackTransport(ShardWorker worker) {
+        this.worker = worker;
+    }
+
+    /**
+     * A connection to a worker thread.
+     */
+    private static class LoopbackConnection implements WorkerConnection {
+        private final InputStream results; // Results written by the worker thread
+        private final OutputStream items; // Items read by the worker thread
+
+        /**
+         * Constructs a LoopbackConnection.
+         *
+         * @param results The stream of results.
+         * @param items The stream of work items.
+         */
+        private LoopbackConnection(InputStream results, OutputStream items) {
+            this.results = results;
+            this.items = items;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public InputStream getInput() {
+            return results;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public OutputStream getOutput() {
+            return items;
+        }
+
+        /**
+         * Closes both pipes; a worker thread still waiting for items then stops.
+         *
+         * @throws IOException If a pipe cannot be closed.
+         */
+        @Override
+        public void close() throws IOException {
+            items.close();
+            results.close();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public WorkerConnection open(int shard) throws IOException {
+        PipedOutputStream items = new PipedOutputStream();
+        PipedInputStream workerInput = new PipedInputStream(items, PIPE_SIZE);
+        PipedInputStream results = new PipedInputStream(PIPE_SIZE);
+        PipedOutputStream workerOutput = new PipedOutputStream(results);
+        Thread thread = new Thread(() -> {
+            try (workerInput; workerOutput) {
+                worker.serve(workerInput, workerOutput);
+            } catch (IOException e) {
+                // The coordinator closed the connection; it notices the missing results itself
+            }
+        }, String.format(THREAD_NAME_FORMAT, shard));
+        thread.setDaemon(true);
+        thread.start();
+        return new LoopbackConnection(results, items);
+    }
+}
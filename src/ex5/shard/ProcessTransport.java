@@ -0,0 +1,112 @@
+package ex5.shard;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs every worker in a local JVM process of its own.
+ * Each connection starts "java -cp &lt;class path&gt; ex5.main.Sjavac --worker &lt;options&gt;"
+ * with the coordinator's Java installation and class path, and talks to it over the process's
+ * standard input and output; the worker's error stream is shared with the coordinator's. A worker
+ * that exhausts its heap or crashes takes only its own process down.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class ProcessTransport implements WorkerTransport {
+    private static final String JAVA_HOME_PROPERTY = "java.home";
+    private static final String CLASS_PATH_PROPERTY = "java.class.path";
+    private static final String JAVA_BINARY_DIRECTORY = "bin";
+    private static final String JAVA_BINARY = "java";
+    private static final String CLASS_PATH_FLAG = "-cp";
+    private static final String MAIN_CLASS = "ex5.main.Sjavac";
+    private static final String WORKER_FLAG = "--worker";
+    private static final long EXIT_WAIT_SECONDS = 5;
+
+    private final List<String> jvmOptions; // Options of the worker JVMs, such as the heap size
+    private final List<String> workerOptions; // Sjavac options configuring the workers' verifiers
+
+    /**
+     * A connection to a worker process.
+     */
+    private static class ProcessConnection implements WorkerConnection {
+        private final Process process; // The worker process
+
+        /**
+         * Constructs a ProcessConnection.
+         *
+         * @param process The worker process.
+         */
+        private ProcessConnection(Process process) {
+            this.process = process;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public InputStream getInput() {
+            return process.getInputStream();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public OutputStream getOutput() {
+            return process.getOutputStream();
+        }
+
+        /**
+         * Closes the worker's input, giving it a few seconds to exit before killing it.
+         */
+        @Override
+        public void close() {
+            try {
+                process.getOutputStream().close();
+                if (!process.waitFor(EXIT_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (IOException e) {
+                process.destroyForcibly(); // The worker is gone or unreachable either way
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Constructs a ProcessTransport.
+     *
+     * @param jvmOptions The options of the worker JVMs, such as "-Xmx512m".
+     * @param workerOptions The Sjavac options configuring the workers' verifiers.
+     */
+    public ProcessTransport(List<String> jvmOptions, List<String> workerOptions) {
+        this.jvmOptions = List.copyOf(jvmOptions);
+        this.workerOptions = List.copyOf(workerOptions);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public WorkerConnection open(int shard) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty(JAVA_HOME_PROPERTY), JAVA_BINARY_DIRECTORY, JAVA_BINARY).toString());
+        command.addAll(jvmOptions);
+        command.add(CLASS_PATH_FLAG);
+        command.add(System.getProperty(CLASS_PATH_PROPERTY));
+        command.add(MAIN_CLASS);
+        command.add(WORKER_FLAG);
+        command.addAll(workerOptions);
+        Process process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        return new ProcessConnection(process);
+    }
+}
@@ -0,0 +1,238 @@
+package ex5.shard;
+
+import ex5.input.SourceInput;
+import ex5.verifier.Outcome;
+import ex5.verifier.VerificationResult;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Verifies a corpus across several workers, each with a heap of its own.
+ * The sources are partitioned into one shard per worker by their estimated size, largest first,
+ * each going to the shard with the least work so far, so the shards take about the same time.
+ * Every shard is streamed, in input order, to a worker opened through a {@link WorkerTransport},
+ * one source at a time. When a worker crashes or stops answering, the source it was verifying is
+ * sent again to a fresh worker, up to a maximum number of attempts, after which the source is
+ * reported as failed with exit code 2 and the shard moves on. Results are reported in input
+ * order, so the output does not depend on how the sources were sharded or on which worker
+ * verified them.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class ShardCoordinator {
+    private static final String SHARD_THREAD_NAME = "sjava-shard-";
+    private static final String WORKER_FAILED_MESSAGE = "Worker failed %d times while verifying the source (%s)";
+
+    private final WorkerTransport transport; // Opens the workers
+    private final int shardCount; // Number of shards, and of workers running at once
+    private final int maxAttempts; // Maximum number of workers tried per source
+    private final AtomicInteger restarts; // Number of workers replaced after failing
+
+    /**
+     * A worker's connection, together with the protocol streams over it.
+     */
+    private static class Session {
+        private final WorkerConnection connection; // The connection to the worker
+        private final DataInputStream in; // Results from the worker
+        private final DataOutputStream out; // Work items to the worker
+
+        /**
+         * Constructs a Session.
+         *
+         * @param connection The connection to the worker.
+         */
+        private Session(WorkerConnection connection) {
+            this.connection = connection;
+            this.in = new DataInputStream(new BufferedInputStream(connection.getInput()));
+            this.out = new DataOutputStream(new BufferedOutputStream(connection.getOutput()));
+        }
+
+        /**
+         * Closes the connection, ignoring a worker that is already gone.
+         */
+        private void close() {
+            try {
+                connection.close();
+            } catch (IOException e) {
+                // Nothing is expected from the worker anymore
+            }
+        }
+    }
+
+    /**
+     * Constructs a ShardCoordinator.
+     *
+     * @param transport The transport opening the workers.
+     * @param shardCount The number of shards, and of workers running at once.
+     * @param maxAttempts The maximum number of workers tried per source.
+     */
+    public ShardCoordinator(WorkerTransport transport, int shardCount, int maxAttempts) {
+        this.transport = transport;
+        this.shardCount = shardCount;
+        this.maxAttempts = maxAttempts;
+        this.restarts = new AtomicInteger();
+    }
+
+    /**
+     * Verifies a corpus, reporting each result in input order as soon as it and all results
+     * before it are available.
+     *
+     * @param sources The sources to verify.
+     * @param consumer Receives each source together with its verification result.
+     * @throws InterruptedException If the calling thread is interrupted while waiting for results.
+     */
+    public void verifyAll(List<SourceInput> sources, BiConsumer<SourceInput, VerificationResult> consumer)
+            throws InterruptedException {
+        List<CompletableFuture<VerificationResult>> results = new ArrayList<>(sources.size());
+        for (int i = 0; i < sources.size(); i++) {
+            results.add(new CompletableFuture<>());
+        }
+        List<List<Integer>> shards = partition(sources);
+        for (int shard = 0; shard < shards.size(); shard++) {
+            int shardNumber = shard;
+            List<Integer> items = shards.get(shard);
+            Thread thread = new Thread(() -> runShard(shardNumber, items, sources, results),
+                    SHARD_THREAD_NAME + shard);
+            thread.setDaemon(true); // An abandoned run never keeps the JVM alive
+            thread.start();
+        }
+        for (int i = 0; i < sources.size(); i++) {
+            consumer.accept(sources.get(i), await(results.get(i)));
+        }
+    }
+
+    /**
+     * Retrieves the number of workers replaced after failing.
+     *
+     * @return The restart count.
+     */
+    public int getRestartCount() {
+        return restarts.get();
+    }
+
+    /**
+     * Partitions the sources into shards of about the same total size, largest sources first.
+     *
+     * @param sources The sources.
+     * @return The non-empty shards, each listing its source indices in input order.
+     */
+    private List<List<Integer>> partition(List<SourceInput> sources) {
+        long[] sizes = new long[sources.size()];
+        List<Integer> bySize = new ArrayList<>(sources.size());
+        for (int i = 0; i < sources.size(); i++) {
+            sizes[i] = sources.get(i).estimateSize();
+            bySize.add(i);
+        }
+        bySize.sort(Comparator.<Integer>comparingLong(i -> sizes[i]).reversed()
+                .thenComparingInt(i -> i));
+
+        long[] loads = new long[shardCount];
+        List<List<Integer>> shards = new ArrayList<>(shardCount);
+        PriorityQueue<Integer> lightest = new PriorityQueue<>(
+                Comparator.<Integer>comparingLong(shard -> loads[shard]).thenComparingInt(shard -> shard));
+        for (int shard = 0; shard < shardCount; shard++) {
+            shards.add(new ArrayList<>());
+            lightest.add(shard);
+        }
+        for (int index : bySize) {
+            int shard = lightest.poll();
+            shards.get(shard).add(index);
+            // Unknown sizes still count, so sources of unknown size are spread evenly
+            loads[shard] += Math.max(sizes[index], 1);
+            lightest.add(shard);
+        }
+        shards.removeIf(List::isEmpty);
+        for (List<Integer> shard : shards) {
+            shard.sort(null);
+        }
+        return shards;
+    }
+
+    /**
+     * Streams a shard to a worker, replacing the worker whenever it fails.
+     *
+     * @param shard The number of the shard.
+     * @param items The source indices of the shard, in input order.
+     * @param sources The sources of the corpus.
+     * @param results The pending results of the corpus, one per source.
+     */
+    private void runShard(int shard, List<Integer> items, List<SourceInput> sources,
+                          List<CompletableFuture<VerificationResult>> results) {
+        Session session = null;
+        try {
+            for (int index : items) {
+                SourceInput source = sources.get(index);
+                String content;
+                try {
+                    content = source.readContent();
+                } catch (IOException e) {
+                    results.get(index).complete(new VerificationResult(Outcome.IO_ERROR, e.getMessage()));
+                    continue;
+                }
+                VerificationResult result = null;
+                for (int attempt = 1; result == null; attempt++) {
+                    try {
+                        if (session == null) {
+                            session = new Session(transport.open(shard));
+                        }
+                        WorkerProtocol.writeItem(session.out, index, source.getName(), content);
+                        result = WorkerProtocol.readResult(session.in, index);
+                    } catch (IOException e) {
+                        // The worker crashed or cannot be reached; start over with a fresh one
+                        if (session != null) {
+                            session.close();
+                            session = null;
+                            restarts.incrementAndGet();
+                        }
+                        if (attempt >= maxAttempts) {
+                            result = new VerificationResult(Outcome.IO_ERROR,
+                                    String.format(WORKER_FAILED_MESSAGE, attempt, e));
+                        }
+                    }
+                }
+                results.get(index).complete(result);
+            }
+            if (session != null) {
+                WorkerProtocol.writeEnd(session.out);
+            }
+        } catch (IOException e) {
+            // Every result was received; the worker is released below either way
+        } catch (RuntimeException | Error e) {
+            for (int index : items) {
+                results.get(index).completeExceptionally(e); // No effect on completed results
+            }
+        } finally {
+            if (session != null) {
+                session.close();
+            }
+        }
+    }
+
+    /**
+     * Waits for a result of the corpus.
+     *
+     * @param result The pending result.
+     * @return The verification result, or an I/O error result if the shard failed unexpectedly.
+     * @throws InterruptedException If the calling thread is interrupted while waiting.
+     */
+    private static VerificationResult await(CompletableFuture<VerificationResult> result)
+            throws InterruptedException {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            return new VerificationResult(Outcome.IO_ERROR, e.getCause().toString());
+        }
+    }
+}
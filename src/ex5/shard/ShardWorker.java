@@ -0,0 +1,84 @@
+package ex5.shard;
+
+import ex5.util.CancellationToken;
+import ex5.verifier.VerificationResult;
+import ex5.verifier.Verifier;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+
+/**
+ * The worker side of sharded verification.
+ * A worker reads work items from its coordinator, verifies them one at a time in the order they
+ * arrive and sends each result back before reading the next item, until the coordinator sends
+ * the end marker.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class ShardWorker {
+    private static final String THREAD_NAME_FORMAT = "sjava-shard-worker: %s";
+
+    private final Verifier verifier; // Verifies the received sources
+    private final Duration timeout; // Maximum verification time per source, or null
+    private final boolean syntaxOnly; // Whether sources are only checked to be well-formed
+
+    /**
+     * Constructs a ShardWorker.
+     *
+     * @param verifier The verifier of the received sources.
+     * @param timeout The maximum verification time per source, or null for no limit.
+     * @throws IllegalArgumentException If the timeout is not positive.
+     */
+    public ShardWorker(Verifier verifier, Duration timeout) {
+        this(verifier, timeout, false);
+    }
+
+    /**
+     * Constructs a ShardWorker that may only check that sources are well-formed.
+     *
+     * @param verifier The verifier of the received sources.
+     * @param timeout The maximum verification time per source, or null for no limit.
+     * @param syntaxOnly Whether sources are only checked to be well-formed, as with
+     *                   {@link Verifier#checkSyntax(CharSequence, CancellationToken)}.
+     * @throws IllegalArgumentException If the timeout is not positive.
+     */
+    public ShardWorker(Verifier verifier, Duration timeout, boolean syntaxOnly) {
+        this.verifier = verifier;
+        this.timeout = CancellationToken.requireValidTimeout(timeout);
+        this.syntaxOnly = syntaxOnly;
+    }
+
+    /**
+     * Serves a coordinator until it has no more work.
+     *
+     * @param fromCoordinator The stream of work items.
+     * @param toCoordinator The stream receiving the results.
+     * @throws IOException If the coordinator cannot be read from or written to.
+     */
+    public void serve(InputStream fromCoordinator, OutputStream toCoordinator) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(fromCoordinator));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(toCoordinator));
+        Thread thread = Thread.currentThread();
+        String threadName = thread.getName();
+        try {
+            WorkerProtocol.WorkItem item;
+            while ((item = WorkerProtocol.readItem(in)) != null) {
+                // Name the thread after the source, so a thread dump of a stuck worker shows it
+                thread.setName(String.format(THREAD_NAME_FORMAT, item.getName()));
+                CancellationToken cancellation = (timeout == null) ? null : new CancellationToken(timeout);
+                VerificationResult result = syntaxOnly
+                        ? verifier.checkSyntax(item.getContent(), cancellation)
+                        : verifier.verify(item.getContent(), cancellation);
+                WorkerProtocol.writeResult(out, item.getNumber(), result);
+            }
+        } finally {
+            thread.setName(threadName);
+        }
+    }
+}
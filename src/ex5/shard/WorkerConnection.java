@@ -0,0 +1,29 @@
+package ex5.shard;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A connection to a single verification worker, opened by a {@link WorkerTransport}.
+ * Work items are written to the connection's output stream and results are read from its input
+ * stream, as described by {@link WorkerProtocol}. Closing the connection releases the worker;
+ * a worker that crashed surfaces as the end of its input stream or as an I/O error.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public interface WorkerConnection extends Closeable {
+    /**
+     * Retrieves the stream of results sent by the worker.
+     *
+     * @return The input stream.
+     */
+    InputStream getInput();
+
+    /**
+     * Retrieves the stream receiving the work items.
+     *
+     * @return The output stream.
+     */
+    OutputStream getOutput();
+}
@@ -0,0 +1,197 @@
+package ex5.shard;
+
+import ex5.verifier.Outcome;
+import ex5.verifier.VerificationResult;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The binary protocol spoken between a {@link ShardCoordinator} and its workers.
+ * The coordinator sends work items, each made of the item's number, the source's name and the
+ * source text, and finally the end marker; the worker answers every item, in order, with the
+ * item's number, the outcome and the error message. Strings are sent as their length in bytes
+ * followed by their UTF-8 encoding, so neither text nor messages are limited in size.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+final class WorkerProtocol {
+    private static final int END_MARKER = -1;
+    private static final int NULL_LENGTH = -1;
+    private static final String BAD_OUTCOME_MESSAGE = "Unknown outcome %d received from worker";
+    private static final String UNEXPECTED_RESULT_MESSAGE = "Result of item %d received instead of %d";
+    private static final String BAD_LENGTH_MESSAGE = "Invalid string length %d received";
+
+    /**
+     * A work item received by a worker.
+     */
+    static class WorkItem {
+        private final int number; // The item's number, echoed in its result
+        private final String name; // The name of the source
+        private final String content; // The source text
+
+        /**
+         * Constructs a WorkItem.
+         *
+         * @param number The item's number.
+         * @param name The name of the source.
+         * @param content The source text.
+         */
+        WorkItem(int number, String name, String content) {
+            this.number = number;
+            this.name = name;
+            this.content = content;
+        }
+
+        /**
+         * Retrieves the item's number.
+         *
+         * @return The number.
+         */
+        int getNumber() {
+            return number;
+        }
+
+        /**
+         * Retrieves the name of the source.
+         *
+         * @return The name.
+         */
+        String getName() {
+            return name;
+        }
+
+        /**
+         * Retrieves the source text.
+         *
+         * @return The source text.
+         */
+        String getContent() {
+            return content;
+        }
+    }
+
+    /**
+     * Prevents instantiation.
+     */
+    private WorkerProtocol() {
+    }
+
+    /**
+     * Sends a work item to a worker.
+     *
+     * @param out The stream to the worker.
+     * @param number The item's number.
+     * @param name The name of the source.
+     * @param content The source text.
+     * @throws IOException If the item cannot be sent.
+     */
+    static void writeItem(DataOutputStream out, int number, String name, String content) throws IOException {
+        out.writeInt(number);
+        writeString(out, name);
+        writeString(out, content);
+        out.flush();
+    }
+
+    /**
+     * Tells a worker that no more items follow.
+     *
+     * @param out The stream to the worker.
+     * @throws IOException If the marker cannot be sent.
+     */
+    static void writeEnd(DataOutputStream out) throws IOException {
+        out.writeInt(END_MARKER);
+        out.flush();
+    }
+
+    /**
+     * Receives the next work item.
+     *
+     * @param in The stream from the coordinator.
+     * @return The item, or null if no more items follow.
+     * @throws IOException If the item cannot be received.
+     */
+    static WorkItem readItem(DataInputStream in) throws IOException {
+        int number = in.readInt();
+        if (number == END_MARKER) {
+            return null;
+        }
+        return new WorkItem(number, readString(in), readString(in));
+    }
+
+    /**
+     * Sends the result of a work item to the coordinator.
+     *
+     * @param out The stream to the coordinator.
+     * @param number The item's number.
+     * @param result The verification result.
+     * @throws IOException If the result cannot be sent.
+     */
+    static void writeResult(DataOutputStream out, int number, VerificationResult result) throws IOException {
+        out.writeInt(number);
+        out.writeByte(result.getOutcome().ordinal());
+        writeString(out, result.getMessage());
+        out.flush();
+    }
+
+    /**
+     * Receives the result of the work item with the given number.
+     *
+     * @param in The stream from the worker.
+     * @param number The number of the item whose result is expected.
+     * @return The verification result.
+     * @throws IOException If the result cannot be received, or is not the expected one.
+     */
+    static VerificationResult readResult(DataInputStream in, int number) throws IOException {
+        int received = in.readInt();
+        if (received != number) {
+            throw new IOException(String.format(UNEXPECTED_RESULT_MESSAGE, received, number));
+        }
+        int outcome = in.readUnsignedByte();
+        if (outcome >= Outcome.values().length) {
+            throw new IOException(String.format(BAD_OUTCOME_MESSAGE, outcome));
+        }
+        String message = readString(in);
+        return (outcome == Outcome.SUCCESS.ordinal())
+                ? VerificationResult.success() : new VerificationResult(Outcome.values()[outcome], message);
+    }
+
+    /**
+     * Writes a string that may be null.
+     *
+     * @param out The stream.
+     * @param value The string, or null.
+     * @throws IOException If the string cannot be written.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(DataOutputStream, String)}.
+     *
+     * @param in The stream.
+     * @return The string, or null.
+     * @throws IOException If the string cannot be read.
+     */
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        if (length < 0) {
+            throw new IOException(String.format(BAD_LENGTH_MESSAGE, length));
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,23 @@
+package ex5.shard;
+
+import java.io.IOException;
+
+/**
+ * Opens connections to verification workers.
+ * A transport decides where workers run: {@link ProcessTransport} starts a local worker process
+ * per connection, and {@link LoopbackTransport} runs workers inside the coordinator's own JVM.
+ * A transport reaching workers on other machines only has to carry the two streams of
+ * {@link WorkerConnection}.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public interface WorkerTransport {
+    /**
+     * Opens a connection to a fresh worker.
+     *
+     * @param shard The number of the shard the worker will verify.
+     * @return The connection.
+     * @throws IOException If no worker can be started or reached.
+     */
+    WorkerConnection open(int shard) throws IOException;
+}
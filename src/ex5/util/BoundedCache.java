@@ -0,0 +1,178 @@
+package ex5.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A size-bounded, least-recently-used cache that is safe for concurrent use.
+ * Entries are spread over independently locked segments so that threads working on
+ * different keys rarely contend; each segment evicts its own least-recently-used entry
+ * once it is full. Hit and miss counts are kept for tuning the capacity.
+ *
+ * @param <K> The key type.
+ * @param <V> The value type.
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class BoundedCache<K, V> {
+    private static final int MAX_SEGMENTS = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final int capacity; // Maximum number of entries held by the cache
+    private final List<Map<K, V>> segments; // Access-ordered segments, each guarded by its own lock
+    private final LongAdder hits; // Number of lookups that found an entry
+    private final LongAdder misses; // Number of lookups that found nothing
+
+    /**
+     * Constructs a BoundedCache.
+     *
+     * @param capacity The maximum number of entries; must be positive.
+     * @throws IllegalArgumentException If the capacity is not positive.
+     */
+    public BoundedCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        int segmentCount = Math.min(MAX_SEGMENTS, capacity);
+        this.segments = new ArrayList<>(segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            // Spread the remainder so that the segment capacities add up to the total capacity
+            int segmentCapacity = capacity / segmentCount + (i < capacity % segmentCount ? 1 : 0);
+            segments.add(new Segment<>(segmentCapacity));
+        }
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+    }
+
+    /**
+     * Looks up a key, counting the lookup as a hit or a miss.
+     *
+     * @param key The key to look up.
+     * @return The cached value, or null if the key is not cached.
+     */
+    public V get(K key) {
+        Map<K, V> segment = segmentFor(key);
+        V value;
+        synchronized (segment) {
+            value = segment.get(key);
+        }
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Caches a value, evicting the least-recently-used entry of its segment if needed.
+     *
+     * @param key The key.
+     * @param value The value; must not be null.
+     */
+    public void put(K key, V value) {
+        Map<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+
+    /**
+     * Selects the segment responsible for a key.
+     *
+     * @param key The key.
+     * @return The segment holding the key.
+     */
+    private Map<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16); // Let the high bits influence the segment choice
+        return segments.get(Math.floorMod(hash, segments.size()));
+    }
+
+    /**
+     * Retrieves the maximum number of entries.
+     *
+     * @return The capacity of the cache.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Retrieves the current number of entries.
+     *
+     * @return The number of cached entries.
+     */
+    public int size() {
+        int size = 0;
+        for (Map<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Retrieves the number of lookups that found an entry.
+     *
+     * @return The hit count.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Retrieves the number of lookups that found nothing.
+     *
+     * @return The miss count.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Retrieves the fraction of lookups that found an entry.
+     *
+     * @return The hit rate between 0 and 1, or 0 if there were no lookups.
+     */
+    public double getHitRate() {
+        long hitCount = getHitCount();
+        long total = hitCount + getMissCount();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * An access-ordered map that evicts its least-recently-used entry once it is full.
+     *
+     * @param <K> The key type.
+     * @param <V> The value type.
+     */
+    private static class Segment<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+        private static final int INITIAL_CAPACITY = 16;
+
+        private final int maxSize; // Maximum number of entries held by the segment
+
+        /**
+         * Constructs a Segment.
+         *
+         * @param maxSize The maximum number of entries.
+         */
+        Segment(int maxSize) {
+            super(INITIAL_CAPACITY, LOAD_FACTOR, true);
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maxSize;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package ex5.util;
+
+import java.time.Duration;
+
+/**
+ * Cooperative cancellation of a verification, by an explicit request or by a deadline.
+ * Parsing and validation call {@link #checkpoint()} at every line and statement boundary, so an
+ * abandoned or overdue run stops within one line's worth of work instead of running to completion.
+ * A token may be cancelled from any thread. A token may also be linked to a parent token, so
+ * that part of a verification can be stopped on its own while still obeying the whole
+ * verification's cancellation and deadline.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class CancellationToken {
+    private static final String CANCELLED_MESSAGE = "Verification was cancelled";
+    private static final String TIMED_OUT_MESSAGE = "Verification exceeded its deadline of %d ms";
+    private static final String INVALID_TIMEOUT_MESSAGE = "Timeout must be positive: %s";
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private final long deadlineNanos; // System.nanoTime() value of the deadline, or NO_DEADLINE
+    private final long timeoutMillis; // The timeout the deadline was derived from, for reporting
+    private final CancellationToken parent; // Token whose cancellation and deadline also apply, or null
+    private volatile boolean cancelled; // Whether cancellation was requested
+
+    /**
+     * Constructs a CancellationToken without a deadline.
+     */
+    public CancellationToken() {
+        this((CancellationToken) null);
+    }
+
+    /**
+     * Constructs a CancellationToken without a deadline of its own, which also stops whenever
+     * its parent does. Cancelling it does not cancel the parent.
+     *
+     * @param parent The parent token, or null.
+     */
+    public CancellationToken(CancellationToken parent) {
+        this.deadlineNanos = NO_DEADLINE;
+        this.timeoutMillis = 0;
+        this.parent = parent;
+    }
+
+    /**
+     * Constructs a CancellationToken that expires after the given timeout.
+     *
+     * @param timeout The time the verification may take, starting now; must be positive.
+     * @throws IllegalArgumentException If the timeout is not positive.
+     */
+    public CancellationToken(Duration timeout) {
+        requireValidTimeout(timeout);
+        this.deadlineNanos = System.nanoTime() + timeout.toNanos();
+        this.timeoutMillis = timeout.toMillis();
+        this.parent = null;
+    }
+
+    /**
+     * Checks that a timeout is usable as a deadline. A zero or negative timeout would expire
+     * before the first checkpoint, abandoning every verification at once.
+     *
+     * @param timeout The timeout, or null for no limit.
+     * @return The timeout.
+     * @throws IllegalArgumentException If the timeout is not positive.
+     */
+    public static Duration requireValidTimeout(Duration timeout) {
+        if (timeout != null && (timeout.isZero() || timeout.isNegative())) {
+            throw new IllegalArgumentException(String.format(INVALID_TIMEOUT_MESSAGE, timeout));
+        }
+        return timeout;
+    }
+
+    /**
+     * Requests cancellation; the verification stops at its next checkpoint.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Checks whether cancellation was requested.
+     *
+     * @return True if the token or its parent was cancelled, otherwise false.
+     */
+    public boolean isCancelled() {
+        return cancelled || (parent != null && parent.isCancelled());
+    }
+
+    /**
+     * Checks whether the deadline has passed.
+     *
+     * @return True if the token or its parent has a deadline and it has passed, otherwise false.
+     */
+    public boolean isExpired() {
+        // Compare by difference, as nanoTime() values may overflow
+        return (deadlineNanos != NO_DEADLINE && System.nanoTime() - deadlineNanos >= 0)
+                || (parent != null && parent.isExpired());
+    }
+
+    /**
+     * Stops the calling verification if it was cancelled or its deadline has passed.
+     *
+     * @throws VerificationAbortedException If the verification must stop.
+     */
+    public void checkpoint() {
+        if (parent != null) {
+            parent.checkpoint(); // Reported as the parent's own cancellation or deadline
+        }
+        if (cancelled) {
+            throw new VerificationAbortedException(CANCELLED_MESSAGE, false);
+        }
+        if (isExpired()) {
+            throw new VerificationAbortedException(String.format(TIMED_OUT_MESSAGE, timeoutMillis), true);
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package ex5.util;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores text outside the Java heap, in chunks of direct memory, and hands out compact
+ * {@link CharSequence} views of it.
+ * A view holds only its chunk, offset and length; the characters themselves are stored with one
+ * byte each when they all fit (as compact strings do), and with two otherwise. Storing the
+ * operands of a large source this way keeps the bulk of its text out of the garbage collector's
+ * way. Closing the arena releases every chunk at once; views cannot be read afterwards.
+ * Views compare and hash by content, exactly as strings do, so a view looks up a string-keyed map
+ * without being copied onto the heap. A string does not return the favour: it only ever equals
+ * another string.
+ * Names, such as variable and method names, are looked up over and over as hash keys. The arena
+ * keeps one view per distinct name, however often the name occurs, so every occurrence shares
+ * its bytes and usually finds its hash key at once by identity.
+ * The first chunk is sized to the source, since operand text never takes more bytes than the
+ * source has characters unless it holds characters beyond Latin-1; a small source thus never
+ * reserves a full-size chunk. Later chunks double in size, up to a fixed maximum.
+ * Text is stored by the verification that created the arena only, as storing is not thread-safe;
+ * views may be read from any thread, and fail once the arena is closed.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class OffHeapArena implements Closeable {
+    private static final int MIN_CHUNK_SIZE = 4 * 1024;
+    private static final int MAX_CHUNK_SIZE = 1 << 20;
+    private static final int LATIN1_LIMIT = 0xFF;
+    private static final int BYTE_MASK = 0xFF;
+    private static final String CLOSED_MESSAGE = "Off-heap arena is closed";
+
+    private final List<ByteBuffer> chunks; // Allocated chunks, the current one last
+    private final Map<CharSequence, CharSequence> names; // The shared view of every stored name
+    private int chunkSize; // Size of the next regular chunk, in bytes
+    private ByteBuffer current; // Chunk receiving new text, or null before the first store
+    private volatile boolean closed; // Whether the chunks were released; read by views on any thread
+
+    /**
+     * A view of text stored in an arena.
+     */
+    private class OffHeapText implements CharSequence {
+        private final ByteBuffer chunk; // The chunk holding the text
+        private final int offset; // Offset of the first character in the chunk
+        private final int length; // Number of characters
+        private final boolean wide; // Whether characters take two bytes instead of one
+        private int hash; // Cached hash code, or 0 until computed
+
+        /**
+         * Constructs an OffHeapText.
+         *
+         * @param chunk The chunk holding the text.
+         * @param offset Offset of the first character in the chunk.
+         * @param length Number of characters.
+         * @param wide Whether characters take two bytes instead of one.
+         */
+        private OffHeapText(ByteBuffer chunk, int offset, int length, boolean wide) {
+            this.chunk = chunk;
+            this.offset = offset;
+            this.length = length;
+            this.wide = wide;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int length() {
+            return length;
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @throws IllegalStateException If the arena was closed.
+         */
+        @Override
+        public char charAt(int index) {
+            if (closed) {
+                throw new IllegalStateException(CLOSED_MESSAGE);
+            }
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return wide ? chunk.getChar(offset + 2 * index) : (char) (chunk.get(offset + index) & BYTE_MASK);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        /**
+         * Computes the hash code a string with the same characters has.
+         *
+         * @return The hash code of the text.
+         */
+        @Override
+        public int hashCode() {
+            int h = hash;
+            if (h == 0) {
+                for (int i = 0; i < length; i++) {
+                    h = 31 * h + charAt(i);
+                }
+                hash = h; // Racing threads compute the same value
+            }
+            return h;
+        }
+
+        /**
+         * Checks whether another character sequence has the same characters.
+         *
+         * @param other The object to compare with.
+         * @return True if the other object is a character sequence with the same characters.
+         */
+        @Override
+        public boolean equals(Object other) {
+            return other == this || (other instanceof CharSequence && sameText(this, (CharSequence) other));
+        }
+
+        /**
+         * Copies the text onto the heap.
+         *
+         * @return The text as a string.
+         */
+        @Override
+        public String toString() {
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = charAt(i);
+            }
+            return new String(chars);
+        }
+    }
+
+    /**
+     * Constructs an empty OffHeapArena for a source of unknown size; no memory is allocated until
+     * text is stored.
+     */
+    public OffHeapArena() {
+        this(0);
+    }
+
+    /**
+     * Constructs an empty OffHeapArena for a source of about the given size; no memory is
+     * allocated until text is stored.
+     *
+     * @param sourceSize The approximate number of characters of the source, or 0 if unknown.
+     */
+    public OffHeapArena(long sourceSize) {
+        this.chunks = new ArrayList<>();
+        this.names = new HashMap<>();
+        this.chunkSize = (int) Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, sourceSize));
+    }
+
+    /**
+     * A heap string probing the name table for a view with the same characters: the table calls
+     * the equals method of the key it is given, which a string would answer with false.
+     */
+    private static class NameProbe {
+        private final String name; // The name looked up
+
+        /**
+         * Constructs a NameProbe.
+         *
+         * @param name The name looked up.
+         */
+        private NameProbe(String name) {
+            this.name = name;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof CharSequence && name.contentEquals((CharSequence) other);
+        }
+    }
+
+    /**
+     * Stores a name, such as a variable or method name, in the arena, once per distinct name.
+     *
+     * @param name The name to store.
+     * @return The shared view of the name, valid until the arena is closed.
+     * @throws IllegalStateException If the arena was closed.
+     */
+    public CharSequence storeName(String name) {
+        CharSequence shared = findName(name);
+        if (shared == null) {
+            shared = store(name);
+            names.put(shared, shared);
+        }
+        return shared;
+    }
+
+    /**
+     * Finds the shared view of a name stored earlier.
+     *
+     * @param name The name.
+     * @return The shared view of the name, or null if it was never stored.
+     * @throws IllegalStateException If the arena was closed.
+     */
+    private CharSequence findName(String name) {
+        if (closed) {
+            throw new IllegalStateException(CLOSED_MESSAGE);
+        }
+        return names.get(new NameProbe(name));
+    }
+
+    /**
+     * Checks whether two character sequences have the same characters.
+     *
+     * @param first The first sequence.
+     * @param second The second sequence.
+     * @return True if both have the same length and characters.
+     */
+    private static boolean sameText(CharSequence first, CharSequence second) {
+        int length = first.length();
+        if (second.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (first.charAt(i) != second.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copies text into the arena.
+     *
+     * @param text The text to store.
+     * @return A view of the stored text, valid until the arena is closed.
+     * @throws IllegalStateException If the arena was closed.
+     */
+    public CharSequence store(CharSequence text) {
+        if (closed) {
+            throw new IllegalStateException(CLOSED_MESSAGE);
+        }
+        int length = text.length();
+        boolean wide = false;
+        for (int i = 0; i < length && !wide; i++) {
+            wide = text.charAt(i) > LATIN1_LIMIT;
+        }
+        int size = wide ? 2 * length : length;
+        ByteBuffer chunk = reserve(size);
+        int offset = chunk.position();
+        for (int i = 0; i < length; i++) {
+            if (wide) {
+                chunk.putChar(text.charAt(i));
+            } else {
+                chunk.put((byte) text.charAt(i));
+            }
+        }
+        return new OffHeapText(chunk, offset, length, wide);
+    }
+
+    /**
+     * Finds a chunk with room for the given number of bytes, allocating one if needed, each
+     * regular chunk twice the size of the previous one up to the maximum.
+     * Text larger than a regular chunk gets a dedicated chunk of its own.
+     *
+     * @param size The number of bytes needed.
+     * @return A chunk positioned at free space of at least the given size.
+     */
+    private ByteBuffer reserve(int size) {
+        if (current != null && current.remaining() >= size) {
+            return current;
+        }
+        ByteBuffer chunk = ByteBuffer.allocateDirect(Math.max(chunkSize, size));
+        chunks.add(chunk);
+        if (size <= chunkSize) {
+            current = chunk; // A dedicated chunk is full at once; keep filling the regular one
+            chunkSize = Math.min(MAX_CHUNK_SIZE, 2 * chunkSize);
+        }
+        return chunk;
+    }
+
+    /**
+     * Releases every chunk and invalidates every view. Java 17 cannot free direct memory
+     * explicitly, so the memory is returned to the system once the chunks become unreachable,
+     * that is once the verified model holding the views is dropped.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        chunks.clear();
+        names.clear();
+        current = null;
+    }
+}
@@ -0,0 +1,34 @@
+package ex5.util;
+
+/**
+ * Thrown at a checkpoint when a verification was cancelled or ran past its deadline.
+ * Unchecked, so that it passes through every parsing and validation layer unchanged
+ * up to the caller that owns the {@link CancellationToken}.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class VerificationAbortedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final boolean timedOut; // Whether the deadline passed, rather than an explicit cancel
+
+    /**
+     * Constructs a VerificationAbortedException.
+     *
+     * @param message The detail message.
+     * @param timedOut True if the deadline passed, false if cancellation was requested.
+     */
+    public VerificationAbortedException(String message, boolean timedOut) {
+        super(message);
+        this.timedOut = timedOut;
+    }
+
+    /**
+     * Checks whether the verification stopped because its deadline passed.
+     *
+     * @return True for a timeout, false for an explicit cancellation.
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+}
@@ -0,0 +1,82 @@
+package ex5.validator;
+
+import ex5.model.GlobalScope;
+import ex5.model.Method;
+import ex5.model.statements.IfWhileStatement;
+import ex5.model.statements.Statement;
+
+/**
+ * A check run over a parsed program by an {@link AnalysisWalker}.
+ * The walker visits the program once, whatever the number of analyses registered with it, and
+ * calls every analysis at each step of the walk, in registration order. Every callback does
+ * nothing by default, so an analysis only implements the steps it needs. The environments passed
+ * to the callbacks are the ones of the walk itself, already updated by the analyses registered
+ * before this one; the semantic validation is always registered first, so later analyses see the
+ * variables it declared.
+ * An analysis may keep state between callbacks; such an analysis serves a single walk.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public interface Analysis {
+
+    /**
+     * Visits a statement of the global scope or of a method body, in source order.
+     * A block's statement is visited before the block is entered.
+     *
+     * @param statement The statement.
+     * @param environment The environment in which the statement occurs.
+     * @throws SemanticException If the analysis rejects the statement.
+     */
+    default void visitStatement(Statement statement, Environment environment) throws SemanticException {
+    }
+
+    /**
+     * Enters a method body, before its first statement.
+     *
+     * @param method The method.
+     * @param environment The environment of the body, holding the method's parameters.
+     * @throws SemanticException If the analysis rejects the method.
+     */
+    default void enterMethod(Method method, Environment environment) throws SemanticException {
+    }
+
+    /**
+     * Leaves a method body, after its last statement.
+     *
+     * @param method The method.
+     * @param environment The environment of the body.
+     * @throws SemanticException If the analysis rejects the method.
+     */
+    default void exitMethod(Method method, Environment environment) throws SemanticException {
+    }
+
+    /**
+     * Enters an if/while block, before its first statement.
+     *
+     * @param block The statement opening the block.
+     * @param environment The environment of the block.
+     * @throws SemanticException If the analysis rejects the block.
+     */
+    default void enterBlock(IfWhileStatement block, Environment environment) throws SemanticException {
+    }
+
+    /**
+     * Leaves an if/while block, after its last statement.
+     *
+     * @param block The statement opening the block.
+     * @param environment The environment of the block.
+     * @throws SemanticException If the analysis rejects the block.
+     */
+    default void exitBlock(IfWhileStatement block, Environment environment) throws SemanticException {
+    }
+
+    /**
+     * Completes the analysis once the whole walk is done.
+     *
+     * @param program The program.
+     * @param globals The global environment of the walk.
+     * @throws SemanticException If the analysis rejects the program.
+     */
+    default void finish(GlobalScope program, Environment globals) throws SemanticException {
+    }
+}
@@ -0,0 +1,147 @@
+package ex5.validator;
+
+import ex5.model.GlobalScope;
+import ex5.model.Method;
+import ex5.model.statements.IfWhileStatement;
+import ex5.model.statements.Statement;
+import ex5.model.statements.StatementIterator;
+import ex5.model.statements.StatementKind;
+import ex5.util.CancellationToken;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Runs several {@link Analysis analyses} over a program in a single walk.
+ * The global statements are visited first, then the body of every method, each block in source
+ * order; at every step, each registered analysis is called in turn before the walk moves on. The
+ * environments, the work stack and the cancellation checkpoints are shared by all analyses, so
+ * adding an analysis costs its callbacks only, not another traversal of the program.
+ * Statements are reached through a {@link StatementIterator}, so arbitrarily deep if/while
+ * nesting cannot overflow the thread's call stack. The first analysis to throw ends the walk.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class AnalysisWalker {
+    private final Analysis[] analyses; // The analyses, in registration order
+    private final CancellationToken cancellation; // Checked before every statement, or null
+
+    /**
+     * Constructs an AnalysisWalker.
+     *
+     * @param analyses The analyses called at every step, in this order.
+     * @param cancellation The token checked before every statement, or null if the walk cannot
+     *                     be cancelled.
+     */
+    public AnalysisWalker(List<? extends Analysis> analyses, CancellationToken cancellation) {
+        this.analyses = analyses.toArray(new Analysis[0]);
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Walks the global scope and a set of method bodies of a program, then completes every
+     * analysis.
+     *
+     * @param program The program.
+     * @param methods The methods whose bodies are walked, in this order.
+     * @param memo The method memo replaying the outcome of bodies already walked in the same
+     *             context, or null to walk every body. A replayed body is not walked at all, so a
+     *             memo may only be given when every analysis is a pure check of the body.
+     * @throws SemanticException If an analysis rejects the program.
+     * @throws ex5.util.VerificationAbortedException If the walk is cancelled or times out.
+     */
+    public void walk(GlobalScope program, List<Method> methods, MethodMemoCache memo) throws SemanticException {
+        // Every run declares its variables in environments of its own, never in the parsed model
+        Environment globals = new Environment(program);
+        for (Statement statement : program.getStatements()) {
+            visit(statement, globals);
+        }
+        for (Method method : methods) {
+            if (memo == null) {
+                walkMethod(method, globals);
+            } else {
+                memo.validate(method, globals, () -> walkMethod(method, globals));
+            }
+        }
+        for (Analysis analysis : analyses) {
+            analysis.finish(program, globals);
+        }
+    }
+
+    /**
+     * Walks the body of a single method.
+     * The body and every block nested in it are walked in source order, each in an environment
+     * of its own.
+     *
+     * @param method The method.
+     * @param globals The global environment of the run.
+     * @throws SemanticException If an analysis rejects the body.
+     * @throws ex5.util.VerificationAbortedException If the walk is cancelled or times out.
+     */
+    public void walkMethod(Method method, Environment globals) throws SemanticException {
+        Deque<Environment> environments = new ArrayDeque<>();
+        Deque<IfWhileStatement> blocks = new ArrayDeque<>(); // The open blocks, each with its environment
+        Environment body = Environment.forMethod(method, globals);
+        for (Analysis analysis : analyses) {
+            analysis.enterMethod(method, body);
+        }
+        environments.push(body);
+        StatementIterator statements = new StatementIterator(method.getBodyScope());
+        while (statements.hasNext()) {
+            exitBlocks(statements.takeClosedBlocks(), blocks, environments);
+            Statement statement = statements.next();
+            visit(statement, environments.peek());
+            if (statement.getKind() == StatementKind.IF_WHILE) {
+                // The iterator continues with the block's statements
+                IfWhileStatement block = (IfWhileStatement) statement;
+                Environment inner = new Environment(environments.peek());
+                for (Analysis analysis : analyses) {
+                    analysis.enterBlock(block, inner);
+                }
+                environments.push(inner);
+                blocks.push(block);
+            }
+        }
+        // The last block to end is the method body itself, which is not an if/while block
+        exitBlocks(statements.takeClosedBlocks() - 1, blocks, environments);
+        for (Analysis analysis : analyses) {
+            analysis.exitMethod(method, body);
+        }
+    }
+
+    /**
+     * Completes the innermost open blocks, resuming their enclosing blocks.
+     *
+     * @param count The number of blocks that ended.
+     * @param blocks The open blocks, the innermost on top.
+     * @param environments The environments of the open blocks, the innermost on top.
+     * @throws SemanticException If an analysis rejects a block.
+     */
+    private void exitBlocks(int count, Deque<IfWhileStatement> blocks, Deque<Environment> environments)
+            throws SemanticException {
+        for (int i = 0; i < count; i++) {
+            IfWhileStatement block = blocks.pop();
+            Environment completed = environments.pop();
+            for (Analysis analysis : analyses) {
+                analysis.exitBlock(block, completed);
+            }
+        }
+    }
+
+    /**
+     * Visits a statement with every analysis.
+     *
+     * @param statement The statement.
+     * @param environment The environment in which the statement occurs.
+     * @throws SemanticException If an analysis rejects the statement.
+     */
+    private void visit(Statement statement, Environment environment) throws SemanticException {
+        if (cancellation != null) {
+            cancellation.checkpoint();
+        }
+        for (Analysis analysis : analyses) {
+            analysis.visitStatement(statement, environment);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package ex5.validator;
+
+import ex5.model.GlobalScope;
+import ex5.model.Method;
+import ex5.model.statements.MethodCallStatement;
+import ex5.model.statements.Statement;
+import ex5.model.statements.StatementIterator;
+import ex5.model.statements.StatementKind;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The calls between the methods of a parsed program.
+ * Every method is linked to the names of the methods its body calls, at any nesting depth,
+ * which determines the methods reachable from a set of entry methods. Only method call
+ * statements are followed; a call to a method that is not declared leads nowhere, and is
+ * reported when the calling body is validated.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class CallGraph {
+    private static final String ROOT_NOT_FOUND_MESSAGE = "Entry method %s not found";
+
+    private final GlobalScope program; // The program whose calls are described
+    private final Map<Method, Set<CharSequence>> callees; // Names of the methods each method calls
+
+    /**
+     * Builds the call graph of a program.
+     *
+     * @param program The parsed global scope.
+     */
+    public CallGraph(GlobalScope program) {
+        this.program = program;
+        this.callees = new HashMap<>();
+        for (Method method : program.getMethods()) {
+            callees.put(method, collectCallees(method));
+        }
+    }
+
+    /**
+     * Finds the methods reachable from a set of entry methods, including the entry methods.
+     *
+     * @param roots The names of the entry methods.
+     * @return The reachable methods, in declaration order.
+     * @throws SemanticException If an entry method is not declared.
+     */
+    public List<Method> reachableFrom(Collection<String> roots) throws SemanticException {
+        Set<Method> reached = new HashSet<>();
+        Deque<Method> pending = new ArrayDeque<>();
+        for (String root : roots) {
+            Method method = findRoot(root);
+            if (method == null) {
+                throw new SemanticException(String.format(ROOT_NOT_FOUND_MESSAGE, root));
+            }
+            if (reached.add(method)) {
+                pending.push(method);
+            }
+        }
+        while (!pending.isEmpty()) {
+            for (CharSequence calleeName : callees.get(pending.pop())) {
+                Method callee = program.findMethod(calleeName);
+                if (callee != null && reached.add(callee)) {
+                    pending.push(callee);
+                }
+            }
+        }
+        List<Method> reachable = new ArrayList<>(reached.size());
+        for (Method method : program.getMethods()) {
+            if (reached.contains(method)) {
+                reachable.add(method);
+            }
+        }
+        return reachable;
+    }
+
+    /**
+     * Finds an entry method by name. Entry method names come from outside the program, as
+     * strings, while the program's own names may be off-heap views, which a string never equals;
+     * the methods are therefore compared by content rather than looked up by name.
+     *
+     * @param root The name of the entry method.
+     * @return The first method declared under the name, or null if there is none.
+     */
+    private Method findRoot(String root) {
+        for (Method method : program.getMethods()) {
+            if (root.contentEquals(method.getMethodName())) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Collects the names of the methods a method body calls, nested blocks included.
+     *
+     * @param method The method.
+     * @return The names of the called methods.
+     */
+    private static Set<CharSequence> collectCallees(Method method) {
+        Set<CharSequence> names = new HashSet<>();
+        StatementIterator statements = new StatementIterator(method.getBodyScope());
+        while (statements.hasNext()) {
+            Statement stmt = statements.next();
+            if (stmt.getKind() == StatementKind.METHOD_CALL) {
+                names.add(((MethodCallStatement) stmt).getMethodName());
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,169 @@
+package ex5.validator;
+
+import ex5.model.GlobalScope;
+import ex5.model.Method;
+import ex5.model.Variable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The variables visible at some point of a single validation run.
+ * The parsed model only describes a program; everything a validation learns while walking it
+ * (declared variables, parameters, the values assigned so far) lives in environments created for
+ * that run. An environment is the run-time counterpart of a {@link ex5.model.Scope}: the global
+ * environment holds the global variables, and every method body and every if/while block is
+ * validated in an environment of its own, nested in the enclosing one. Since the model is never
+ * modified, the same parsed program can be validated any number of times, from any number of
+ * threads at once. An environment is confined to the thread running its validation.
+ * Lookups walk the parent chain iteratively and remember what they resolved, so resolving a
+ * name from a deeply nested block costs about the same as resolving it one level down.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class Environment {
+    private final Environment parent; // Enclosing environment (null if global)
+    private final GlobalScope program; // The program whose methods may be called
+    private final Map<CharSequence, Variable> localVariables; // Variables declared in this environment, by name
+    private final Map<CharSequence, Integer> nameVersions; // Per-name declaration counters, shared by the run
+    private Map<CharSequence, Resolution> resolved; // Names resolved through the parent chain (lazy)
+
+    /**
+     * A name resolved through the parent chain, valid while the name's version is unchanged.
+     */
+    private static class Resolution {
+        private final Variable variable; // The resolved variable, or null if the name is undeclared
+        private final int version; // Version of the name when it was resolved
+
+        /**
+         * Constructs a Resolution.
+         *
+         * @param variable The resolved variable, or null.
+         * @param version The version of the name when it was resolved.
+         */
+        private Resolution(Variable variable, int version) {
+            this.variable = variable;
+            this.version = version;
+        }
+    }
+
+    /**
+     * Constructs the global environment of a validation run.
+     *
+     * @param program The program being validated, which provides the callable methods.
+     */
+    public Environment(GlobalScope program) {
+        this.parent = null;
+        this.program = program;
+        this.localVariables = new HashMap<>();
+        this.nameVersions = new HashMap<>();
+    }
+
+    /**
+     * Constructs an environment nested in another, for a method body or an if/while block.
+     *
+     * @param parent The enclosing environment.
+     */
+    public Environment(Environment parent) {
+        this.parent = parent;
+        this.program = parent.program;
+        this.localVariables = new HashMap<>();
+        this.nameVersions = parent.nameVersions;
+    }
+
+    /**
+     * Creates the environment of a method body, with the method's parameters declared in it.
+     *
+     * @param method The method.
+     * @param globals The global environment of the run.
+     * @return The environment of the method body.
+     */
+    public static Environment forMethod(Method method, Environment globals) {
+        Environment body = new Environment(globals);
+        for (Variable param : method.getParameters()) {
+            body.addVariable(param);
+        }
+        return body;
+    }
+
+    /**
+     * Retrieves the enclosing environment.
+     *
+     * @return The enclosing environment, or null if this is the global environment.
+     */
+    public Environment getParent() {
+        return parent;
+    }
+
+    /**
+     * Finds a method of the program by name.
+     *
+     * @param methodName The name of the method.
+     * @return The method if found, otherwise null.
+     */
+    public Method findMethod(CharSequence methodName) {
+        return program.findMethod(methodName);
+    }
+
+    /**
+     * Adds a variable to the environment, replacing any variable of the same name in it.
+     *
+     * @param variable The variable to add.
+     */
+    public void addVariable(Variable variable) {
+        localVariables.put(variable.getName(), variable);
+        // Invalidate every resolution of this name cached anywhere in the run
+        nameVersions.merge(variable.getName(), 1, Integer::sum);
+    }
+
+    /**
+     * Finds a variable declared in this environment itself.
+     *
+     * @param varName The name of the variable.
+     * @return The variable if found, otherwise null.
+     */
+    public Variable findVariableInCurrentScope(CharSequence varName) {
+        return localVariables.get(varName);
+    }
+
+    /**
+     * Searches for a variable in this and the enclosing environments.
+     * The chain is walked iteratively, stopping at the first environment that declares the name
+     * or already resolved it; every environment passed on the way remembers the result.
+     *
+     * @param varName The name of the variable.
+     * @return The variable if found, otherwise null.
+     */
+    public Variable findVariable(CharSequence varName) {
+        Variable local = localVariables.get(varName);
+        if (local != null || parent == null) {
+            return local;
+        }
+        int version = nameVersions.getOrDefault(varName, 0);
+        List<Environment> path = new ArrayList<>();
+        Variable found = null;
+        for (Environment environment = this; environment != null; environment = environment.parent) {
+            Variable declared = environment.localVariables.get(varName);
+            if (declared != null) {
+                found = declared;
+                break;
+            }
+            Resolution cached = (environment.resolved == null) ? null : environment.resolved.get(varName);
+            if (cached != null && cached.version == version) {
+                found = cached.variable;
+                break;
+            }
+            path.add(environment);
+        }
+        Resolution resolution = new Resolution(found, version);
+        for (Environment environment : path) {
+            if (environment.resolved == null) {
+                environment.resolved = new HashMap<>();
+            }
+            environment.resolved.put(varName, resolution);
+        }
+        return found;
+    }
+}
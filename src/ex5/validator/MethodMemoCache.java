@@ -0,0 +1,287 @@
+package ex5.validator;
+
+import ex5.model.Method;
+import ex5.model.Variable;
+import ex5.model.statements.*;
+import ex5.parser.RegexPatterns;
+import ex5.util.BoundedCache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A concurrent, size-bounded memo of method validation outcomes, shared across the files of a
+ * batch run. A method is keyed by a digest of its normalized body (its parameters and its parsed
+ * statements, independent of whitespace and comments) together with the state of every global
+ * variable and the signature of every method that the body refers to. Methods with the same key
+ * necessarily validate the same way, so a cache hit replays the recorded outcome without
+ * validating the body again.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class MethodMemoCache {
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final char FIELD_SEPARATOR = '\u001f'; // Cannot appear inside a source line
+    private static final char STATEMENT_SEPARATOR = '\n';
+    private static final String DECLARATION_TAG = "V";
+    private static final String ASSIGNMENT_TAG = "A";
+    private static final String CALL_TAG = "C";
+    private static final String BLOCK_OPEN_TAG = "{";
+    private static final String BLOCK_CLOSE_TAG = "}";
+    private static final String GLOBAL_TAG = "G";
+    private static final String SIGNATURE_TAG = "M";
+    private static final String UNDEFINED_TAG = "?";
+
+    private final BoundedCache<String, Optional<String>> outcomes; // Error message, or empty if valid
+
+    /**
+     * Constructs a MethodMemoCache.
+     *
+     * @param capacity The maximum number of memoized methods.
+     */
+    public MethodMemoCache(int capacity) {
+        this.outcomes = new BoundedCache<>(capacity);
+    }
+
+    /**
+     * A validation of a single method body.
+     */
+    interface MethodValidation {
+        /**
+         * Runs the validation.
+         *
+         * @throws SemanticException If the method body is semantically invalid.
+         */
+        void run() throws SemanticException;
+    }
+
+    /**
+     * Validates a method through the memo: a recorded outcome is replayed, otherwise the
+     * validation runs and its outcome is recorded.
+     *
+     * @param method The method to validate.
+     * @param globals The global environment of the run, once the global statements are validated.
+     * @param validation The validation of the method body.
+     * @throws SemanticException If the method body is semantically invalid.
+     */
+    void validate(Method method, Environment globals, MethodValidation validation)
+            throws SemanticException {
+        String key = computeKey(method, globals);
+        Optional<String> outcome = outcomes.get(key);
+        if (outcome != null) {
+            if (outcome.isPresent()) {
+                throw new SemanticException(outcome.get());
+            }
+            return;
+        }
+        try {
+            validation.run();
+        } catch (SemanticException e) {
+            outcomes.put(key, Optional.of(e.getMessage()));
+            throw e;
+        }
+        outcomes.put(key, Optional.empty());
+    }
+
+    /**
+     * Computes the memo key of a method.
+     *
+     * @param method The method.
+     * @param globals The global environment of the run.
+     * @return The Base64-encoded digest of the method's normalized body and referenced symbols.
+     */
+    private static String computeKey(Method method, Environment globals) {
+        StringBuilder key = new StringBuilder();
+        Set<CharSequence> referencedNames = new TreeSet<>(CharSequence::compare);
+        Set<CharSequence> calledMethods = new TreeSet<>(CharSequence::compare);
+        appendParameters(key, method);
+        appendBody(key, method, referencedNames, calledMethods);
+
+        // Append the symbols the body may resolve outside of itself
+        for (CharSequence name : referencedNames) {
+            Variable global = globals.findVariableInCurrentScope(name);
+            if (global != null) {
+                key.append(GLOBAL_TAG).append(FIELD_SEPARATOR).append(name).append(FIELD_SEPARATOR)
+                        .append(global.getType()).append(FIELD_SEPARATOR).append(global.isFinal())
+                        .append(FIELD_SEPARATOR).append(global.getValueType())
+                        .append(STATEMENT_SEPARATOR);
+            }
+        }
+        for (CharSequence name : calledMethods) {
+            key.append(SIGNATURE_TAG).append(FIELD_SEPARATOR).append(name);
+            Method callee = globals.findMethod(name);
+            if (callee == null) {
+                key.append(FIELD_SEPARATOR).append(UNDEFINED_TAG);
+            } else {
+                for (Variable param : callee.getParameters()) {
+                    key.append(FIELD_SEPARATOR).append(param.getType());
+                }
+            }
+            key.append(STATEMENT_SEPARATOR);
+        }
+        return digest(key);
+    }
+
+    /**
+     * Appends the normalized parameter list of a method.
+     *
+     * @param key The key being built.
+     * @param method The method.
+     */
+    private static void appendParameters(StringBuilder key, Method method) {
+        for (Variable param : method.getParameters()) {
+            key.append(param.isFinal()).append(FIELD_SEPARATOR).append(param.getType())
+                    .append(FIELD_SEPARATOR).append(param.getName()).append(FIELD_SEPARATOR);
+        }
+        key.append(STATEMENT_SEPARATOR);
+    }
+
+    /**
+     * Appends the normalized statements of a method body, collecting the names it refers to.
+     *
+     * @param key The key being built.
+     * @param method The method.
+     * @param referencedNames Receives every variable name or operand used in the body.
+     * @param calledMethods Receives the name of every method called from the body.
+     */
+    private static void appendBody(StringBuilder key, Method method, Set<CharSequence> referencedNames,
+                                   Set<CharSequence> calledMethods) {
+        StatementIterator statements = new StatementIterator(method.getBodyScope());
+        while (statements.hasNext()) {
+            appendBlockCloses(key, statements.takeClosedBlocks());
+            Statement stmt = statements.next();
+            switch (stmt.getKind()) {
+                case VAR_DECLARATION -> {
+                    VarDeclarationStatement declaration = (VarDeclarationStatement) stmt;
+                    key.append(DECLARATION_TAG).append(FIELD_SEPARATOR).append(declaration.isFinal())
+                            .append(FIELD_SEPARATOR).append(declaration.getType());
+                    List<CharSequence> values = declaration.getValues();
+                    for (int i = 0; i < values.size(); i++) {
+                        appendOperand(key, declaration.getNames().get(i), referencedNames);
+                        if (values.get(i) != null) {
+                            appendOperand(key, values.get(i), referencedNames);
+                        }
+                        key.append(FIELD_SEPARATOR);
+                    }
+                }
+                case ASSIGNMENT -> {
+                    AssignmentStatement assignment = (AssignmentStatement) stmt;
+                    key.append(ASSIGNMENT_TAG);
+                    appendOperand(key, assignment.getVariableName(), referencedNames);
+                    appendOperand(key, assignment.getAssignedValue(), referencedNames);
+                }
+                case METHOD_CALL -> {
+                    MethodCallStatement call = (MethodCallStatement) stmt;
+                    key.append(CALL_TAG).append(FIELD_SEPARATOR).append(call.getMethodName());
+                    calledMethods.add(call.getMethodName());
+                    for (CharSequence arg : call.getArguments()) {
+                        appendOperand(key, arg, referencedNames);
+                    }
+                }
+                case IF_WHILE -> {
+                    IfWhileStatement ifWhile = (IfWhileStatement) stmt;
+                    key.append(BLOCK_OPEN_TAG);
+                    for (CharSequence condition : ifWhile.getConditions()) {
+                        appendOperand(key, condition, referencedNames);
+                    }
+                }
+            }
+            key.append(STATEMENT_SEPARATOR);
+        }
+        appendBlockCloses(key, statements.takeClosedBlocks()); // The innermost open blocks and the body
+    }
+
+    /**
+     * Appends the end of one or more blocks.
+     *
+     * @param key The key being built.
+     * @param count The number of blocks that ended.
+     */
+    private static void appendBlockCloses(StringBuilder key, int count) {
+        for (int i = 0; i < count; i++) {
+            key.append(BLOCK_CLOSE_TAG).append(STATEMENT_SEPARATOR);
+        }
+    }
+
+    /**
+     * Appends a single operand and records it as a possibly referenced name, unless it is
+     * certainly a literal.
+     *
+     * @param key The key being built.
+     * @param operand The operand.
+     * @param referencedNames Receives the operand if it may be a name.
+     */
+    private static void appendOperand(StringBuilder key, CharSequence operand, Set<CharSequence> referencedNames) {
+        key.append(FIELD_SEPARATOR).append(operand);
+        if (RegexPatterns.mayBeIdentifier(operand)) {
+            referencedNames.add(operand);
+        }
+    }
+
+    /**
+     * Digests a key so that the memo holds fixed-size keys.
+     *
+     * @param key The full key.
+     * @return The Base64-encoded digest of the key.
+     */
+    private static String digest(CharSequence key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+            return Base64.getEncoder().encodeToString(
+                    digest.digest(key.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // Every Java platform provides SHA-256
+        }
+    }
+
+    /**
+     * Retrieves the number of methods whose validation was skipped thanks to the memo.
+     *
+     * @return The hit count.
+     */
+    public long getHitCount() {
+        return outcomes.getHitCount();
+    }
+
+    /**
+     * Retrieves the number of methods that had to be validated.
+     *
+     * @return The miss count.
+     */
+    public long getMissCount() {
+        return outcomes.getMissCount();
+    }
+
+    /**
+     * Retrieves the fraction of method validations served from the memo.
+     *
+     * @return The hit rate between 0 and 1.
+     */
+    public double getHitRate() {
+        return outcomes.getHitRate();
+    }
+
+    /**
+     * Retrieves the number of memoized methods.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        return outcomes.size();
+    }
+
+    /**
+     * Retrieves the maximum number of memoized methods.
+     *
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return outcomes.getCapacity();
+    }
+}
@@ -0,0 +1,411 @@
+package ex5.validator;
+
+import ex5.model.GlobalScope;
+import ex5.model.Method;
+import ex5.model.Variable;
+import ex5.model.statements.*;
+import ex5.parser.MatchingContext;
+import ex5.parser.OperandCache;
+import ex5.parser.ParseListener;
+import ex5.parser.RegexPatterns;
+import ex5.util.CancellationToken;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Validates a program while it is still being parsed.
+ * Registered as the parser's {@link ParseListener}, it receives every global statement and every
+ * method as soon as the parser completes them and validates them on an executor thread, so that
+ * parsing and validation of a single source overlap on separate cores. The work of one source
+ * runs one task at a time, in source order, against an {@link Environment} of its own.
+ * <p>
+ * A method body is validated speculatively as soon as its closing bracket is parsed, against
+ * the global variables declared so far. A method that calls a method not declared yet is parked
+ * until that declaration arrives, or until the end of the source. Because global variables
+ * declared further down are visible to every method, {@link #finish(GlobalScope)} checks, once
+ * the whole source is parsed, that every global name a speculatively validated body refers to
+ * still resolves to the same variable, and validates the body again otherwise. The result, and
+ * which error is reported first, is therefore the same as validating the parsed program with
+ * {@link SJavaValidator#validate(GlobalScope)}.
+ * <p>
+ * The tasks check a token owned by the validator, linked to the verification's token. When the
+ * parser fails, {@link #abandon()} cancels it and waits until no task is running, so the parsed
+ * model, and any off-heap text it refers to, may be released as soon as it returns.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class PipelinedValidator implements ParseListener {
+
+    private final Executor executor; // Runs the validation tasks
+    private final CancellationToken cancellation; // Checked before every statement; cancelled on abandon
+    private final OperandCache operandCache; // Cache bound to the thread running the tasks, or null
+    private final Deque<Runnable> tasks; // Tasks not started yet, in source order (guarded by this)
+    private boolean draining; // Whether a thread is running this validator's tasks (guarded by this)
+    private volatile boolean abandoned; // Whether the remaining tasks should be skipped
+
+    // The following are only accessed by the running task
+    private final GlobalScope declared; // The methods declared so far
+    private final Environment environment; // The global variables validated so far
+    private final Map<Method, Speculation> speculations; // Outcome of each speculatively validated method
+    private final Map<CharSequence, List<Method>> parked; // Methods waiting for the declaration of a callee
+    private SemanticException globalError; // The first error among the global statements, or null
+    private Throwable failure; // An unexpected exception or error of a task, or null
+
+    /**
+     * The outcome of validating a method body before the whole source was parsed, together with
+     * the global variables the outcome depends on.
+     */
+    private static class Speculation {
+        private final Map<CharSequence, Variable> globals; // Resolution of each referenced global name
+        private final SemanticException error; // The error found, or null if the body is valid
+
+        /**
+         * Constructs a Speculation.
+         *
+         * @param globals The resolution of each referenced global name when the body was validated.
+         * @param error The error found, or null.
+         */
+        private Speculation(Map<CharSequence, Variable> globals, SemanticException error) {
+            this.globals = globals;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Constructs a PipelinedValidator for a single source.
+     *
+     * @param executor The executor running the validation tasks.
+     * @param cancellation The verification's token, also checked before every statement, or null.
+     * @param operandCache The verification's operand cache, or null.
+     */
+    public PipelinedValidator(Executor executor, CancellationToken cancellation, OperandCache operandCache) {
+        this.executor = executor;
+        this.cancellation = new CancellationToken(cancellation);
+        this.operandCache = operandCache;
+        this.tasks = new ArrayDeque<>();
+        this.declared = new GlobalScope(null);
+        this.environment = new Environment(declared);
+        this.speculations = new HashMap<>();
+        this.parked = new HashMap<>();
+    }
+
+    /**
+     * A step of the validation that may fail.
+     */
+    private interface Task {
+        /**
+         * Runs the step.
+         *
+         * @throws SemanticException If the step finds an error that should abort the validation.
+         */
+        void run() throws SemanticException;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void globalStatementParsed(Statement statement) {
+        submit(() -> {
+            // Global statements after the first error are never reached by sequential validation
+            if (globalError == null) {
+                try {
+                    SJavaValidator.validateStatement(statement, environment, null, cancellation);
+                } catch (SemanticException e) {
+                    globalError = e;
+                }
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void methodDeclared(Method method) {
+        submit(() -> {
+            declared.addMethod(method);
+            List<Method> waiting = parked.remove(method.getMethodName());
+            if (waiting != null) {
+                for (Method caller : waiting) {
+                    speculate(caller);
+                }
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void methodCompleted(Method method) {
+        submit(() -> speculate(method));
+    }
+
+    /**
+     * Completes the validation once the whole source has been parsed, waiting for the tasks
+     * still queued.
+     *
+     * @param globalScope The parsed global scope.
+     * @throws SemanticException The error sequential validation would report first, if any.
+     * @throws InterruptedException If the calling thread is interrupted while waiting.
+     */
+    public void finish(GlobalScope globalScope) throws SemanticException, InterruptedException {
+        CompletableFuture<SemanticException> result = new CompletableFuture<>();
+        enqueue(() -> {
+            try {
+                result.complete(reconcile(globalScope));
+            } catch (RuntimeException | Error e) {
+                result.completeExceptionally(e);
+            }
+        });
+        SemanticException error;
+        try {
+            error = result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw (RuntimeException) e.getCause();
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Stops the validation after the parser failed or the result is no longer wanted: the
+     * running task stops at its next statement, the tasks not started yet are skipped, and the
+     * call returns once no task is running anymore.
+     */
+    public void abandon() {
+        abandoned = true;
+        cancellation.cancel();
+        boolean interrupted = false;
+        synchronized (this) {
+            while (draining) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true; // The drain ends within a statement; finish waiting first
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Determines the first error of the program: the first error among the global statements,
+     * or else the first error among the method bodies in declaration order.
+     *
+     * @param globalScope The parsed global scope.
+     * @return The first error, or null if the program is valid.
+     */
+    private SemanticException reconcile(GlobalScope globalScope) {
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        if (failure != null) {
+            throw (RuntimeException) failure;
+        }
+        if (globalError != null) {
+            return globalError;
+        }
+        for (Method method : globalScope.getMethods()) {
+            Speculation speculation = speculations.get(method);
+            SemanticException error = (speculation != null && stillHolds(speculation))
+                    ? speculation.error : validate(method);
+            if (error != null) {
+                return error;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Validates a completed method against the global variables declared so far, unless it calls
+     * a method that has not been declared yet, in which case it is parked.
+     *
+     * @param method The completed method.
+     */
+    private void speculate(Method method) {
+        Set<CharSequence> referencedNames = new HashSet<>();
+        Set<CharSequence> calledMethods = new HashSet<>();
+        collectReferences(method, referencedNames, calledMethods);
+        for (CharSequence callee : calledMethods) {
+            if (environment.findMethod(callee) == null) {
+                parked.computeIfAbsent(callee, name -> new ArrayList<>()).add(method);
+                return;
+            }
+        }
+        Map<CharSequence, Variable> globals = new HashMap<>();
+        for (CharSequence name : referencedNames) {
+            globals.put(name, environment.findVariableInCurrentScope(name));
+        }
+        speculations.put(method, new Speculation(globals, validate(method)));
+    }
+
+    /**
+     * Checks whether every global name a speculation depends on still resolves to the same variable.
+     *
+     * @param speculation The speculation.
+     * @return True if the speculative outcome is the outcome of validating the method now.
+     */
+    private boolean stillHolds(Speculation speculation) {
+        for (Map.Entry<CharSequence, Variable> global : speculation.globals.entrySet()) {
+            if (environment.findVariableInCurrentScope(global.getKey()) != global.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Validates a method body against the current global variables and methods.
+     *
+     * @param method The method.
+     * @return The error found, or null if the body is valid.
+     */
+    private SemanticException validate(Method method) {
+        try {
+            SJavaValidator.validateMethod(method, environment, null, cancellation);
+            return null;
+        } catch (SemanticException e) {
+            return e;
+        }
+    }
+
+    /**
+     * Collects every name a method body may resolve in the global scope and every method it calls.
+     * Any operand may name a variable, so the collected names are a superset of the globals the
+     * body actually uses.
+     *
+     * @param method The method.
+     * @param referencedNames Receives the names the body refers to.
+     * @param calledMethods Receives the names of the methods the body calls.
+     */
+    private static void collectReferences(Method method, Set<CharSequence> referencedNames,
+                                          Set<CharSequence> calledMethods) {
+        StatementIterator statements = new StatementIterator(method.getBodyScope());
+        while (statements.hasNext()) {
+            Statement stmt = statements.next();
+            switch (stmt.getKind()) {
+                case VAR_DECLARATION -> {
+                    VarDeclarationStatement declaration = (VarDeclarationStatement) stmt;
+                    referencedNames.addAll(declaration.getNames());
+                    addReferences(declaration.getValues(), referencedNames);
+                }
+                case ASSIGNMENT -> {
+                    AssignmentStatement assignment = (AssignmentStatement) stmt;
+                    referencedNames.add(assignment.getVariableName());
+                    addReferences(List.of(assignment.getAssignedValue()), referencedNames);
+                }
+                case METHOD_CALL -> {
+                    MethodCallStatement call = (MethodCallStatement) stmt;
+                    calledMethods.add(call.getMethodName());
+                    addReferences(call.getArguments(), referencedNames);
+                }
+                case IF_WHILE -> addReferences(((IfWhileStatement) stmt).getConditions(), referencedNames);
+            }
+        }
+    }
+
+    /**
+     * Records the operands that may name variables; literals cannot refer to anything.
+     *
+     * @param operands The operands, null where a variable is not initialized.
+     * @param referencedNames Receives the operands that may be names.
+     */
+    private static void addReferences(List<CharSequence> operands, Set<CharSequence> referencedNames) {
+        for (CharSequence operand : operands) {
+            if (operand != null && RegexPatterns.mayBeIdentifier(operand)) {
+                referencedNames.add(operand);
+            }
+        }
+    }
+
+    /**
+     * Queues a step of the validation, unless the validation has already failed.
+     *
+     * @param task The step.
+     */
+    private void submit(Task task) {
+        enqueue(() -> run(task));
+    }
+
+    /**
+     * Queues a task behind the tasks already submitted, starting a drain on the executor if no
+     * thread is running this validator's tasks.
+     *
+     * @param task The task.
+     */
+    private void enqueue(Runnable task) {
+        synchronized (this) {
+            tasks.add(task);
+            if (draining) {
+                return;
+            }
+            draining = true;
+        }
+        executor.execute(this::drain);
+    }
+
+    /**
+     * Runs queued tasks one at a time until none are left. Tasks never throw: a failing step is
+     * recorded by {@link #run(Task)}, and the final task completes its result either way, so the
+     * drain always reaches the end of the queue and {@link #finish(GlobalScope)} always returns.
+     * The verification's operand cache is bound to the executor thread while a task runs.
+     */
+    private void drain() {
+        while (true) {
+            Runnable task;
+            synchronized (this) {
+                task = tasks.poll();
+                if (task == null) {
+                    draining = false;
+                    notifyAll(); // Wakes a thread waiting in abandon()
+                    return;
+                }
+            }
+            MatchingContext context = RegexPatterns.matchingContext();
+            OperandCache previousCache = context.bindOperandCache(operandCache);
+            try {
+                task.run();
+            } finally {
+                context.bindOperandCache(previousCache);
+            }
+        }
+    }
+
+    /**
+     * Runs a single task, recording an unexpected exception or error, such as running out of
+     * memory, so that it is rethrown by {@link #finish(GlobalScope)}; the tasks queued after it
+     * are skipped.
+     *
+     * @param task The task.
+     */
+    private void run(Task task) {
+        if (abandoned || failure != null) {
+            return;
+        }
+        try {
+            task.run();
+        } catch (SemanticException e) {
+            failure = new IllegalStateException(e);
+        } catch (RuntimeException | Error e) {
+            failure = e;
+        }
+    }
+}
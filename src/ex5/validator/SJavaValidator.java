@@ -1,13 +1,21 @@
 package ex5.validator;
 
 import ex5.model.*;
-import ex5.model.statements.Statement;
+import ex5.model.statements.*;
+import ex5.profile.LineProfiler;
+import ex5.util.CancellationToken;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Validates the semantic correctness of an SJava program.
  * This class ensures that variables, method declarations, and statements
  * conform to the language's semantic rules, such as type compatibility,
  * variable scope, and method body validation.
+ * The validation is one {@link Analysis} of an {@link AnalysisWalker}, so further analyses can
+ * share its traversal of the program instead of walking it again.
  *
  * @author Joshua Kolodny, Itamar Lev Ari
  */
@@ -21,27 +29,31 @@ public class SJavaValidator {
      * @throws SemanticException If any semantic errors are detected.
      */
     public static void validate(GlobalScope globalScope) throws SemanticException {
-        // Validate global scope variables and statements
-        validateGlobalScope(globalScope);
-
-        // Validate each method within the global scope
-        for (Method m : globalScope.getMethods()) {
-            validateMethod(m);
-        }
+        validate(globalScope, new ValidationOptions());
     }
 
     /**
-     * Validates statements in the global scope.
-     * Ensures that all global variables and statements conform to semantic rules.
+     * Validates an SJava program, and runs further analyses over it in the same walk.
+     * The semantic validation is registered first, followed by the further analyses in order, and
+     * all of them are called at every step of a single traversal of the program.
      *
-     * @param scope The global scope containing global statements.
-     * @throws SemanticException If semantic errors occur in global statements.
+     * @param globalScope The global scope of the program.
+     * @param options The settings of the run.
+     * @throws SemanticException If any semantic errors are detected, an entry method is not
+     *                           declared, or an analysis rejects the program.
+     * @throws ex5.util.VerificationAbortedException If the run is cancelled or times out.
      */
-    private static void validateGlobalScope(Scope scope) throws SemanticException {
-        // Validate each statement in the global scope
-        for (Statement stmt : scope.getStatements()) {
-            stmt.validate(scope);
-        }
+    public static void validate(GlobalScope globalScope, ValidationOptions options) throws SemanticException {
+        Set<String> roots = options.getRoots();
+        List<? extends Analysis> analyses = options.getAnalyses();
+        List<Method> methods = (roots == null)
+                ? globalScope.getMethods() : new CallGraph(globalScope).reachableFrom(roots);
+
+        List<Analysis> registered = new ArrayList<>(1 + analyses.size());
+        registered.add(new SemanticAnalysis(options.getProfiler()));
+        registered.addAll(analyses);
+        new AnalysisWalker(registered, options.getCancellation())
+                .walk(globalScope, methods, analyses.isEmpty() ? options.getMemo() : null);
     }
 
     /**
@@ -50,12 +62,44 @@ public class SJavaValidator {
      * including variable usage, type compatibility, and return statements.
      *
      * @param method The method to validate.
+     * @param globals The global environment of the run.
+     * @param profiler The profiler recording per-line costs, or null.
+     * @param cancellation The token checked before every statement, or null.
      * @throws SemanticException If any semantic errors occur in the method body.
      */
-    private static void validateMethod(Method method) throws SemanticException {
-        // Validate each statement in the method's body scope
-        for (Statement stmt : method.getBodyScope().getStatements()) {
-            stmt.validate(method.getBodyScope());
+    static void validateMethod(Method method, Environment globals, LineProfiler profiler,
+                               CancellationToken cancellation) throws SemanticException {
+        new AnalysisWalker(List.of(new SemanticAnalysis(profiler)), cancellation).walkMethod(method, globals);
+    }
+
+    /**
+     * Validates a single statement, dispatching on its kind.
+     * The kind is read from a final field of {@link Statement}, and every branch calls a final
+     * class directly, so no step of the dispatch is a virtual call that could turn megamorphic.
+     *
+     * @param stmt The statement to validate.
+     * @param environment The environment in which the statement occurs.
+     * @param profiler The profiler recording per-line costs, or null.
+     * @param cancellation The token checked before the statement, or null.
+     * @throws SemanticException If the statement is semantically invalid.
+     */
+    static void validateStatement(Statement stmt, Environment environment, LineProfiler profiler,
+                                  CancellationToken cancellation) throws SemanticException {
+        if (cancellation != null) {
+            cancellation.checkpoint();
+        }
+        long start = (profiler == null) ? 0 : System.nanoTime();
+        try {
+            switch (stmt.getKind()) {
+                case VAR_DECLARATION -> ((VarDeclarationStatement) stmt).validate(environment);
+                case ASSIGNMENT -> ((AssignmentStatement) stmt).validate(environment);
+                case METHOD_CALL -> ((MethodCallStatement) stmt).validate(environment);
+                case IF_WHILE -> ((IfWhileStatement) stmt).validate(environment);
+            }
+        } finally {
+            if (profiler != null) {
+                profiler.recordValidation(stmt, System.nanoTime() - start);
+            }
         }
     }
 }
@@ -0,0 +1,33 @@
+package ex5.validator;
+
+import ex5.model.statements.Statement;
+import ex5.profile.LineProfiler;
+
+/**
+ * The semantic validation of SJava, as an analysis of a fused walk.
+ * Every statement is validated in its environment, declaring the variables it introduces there,
+ * so it is always the first analysis registered with an {@link AnalysisWalker}.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+class SemanticAnalysis implements Analysis {
+    private final LineProfiler profiler; // Records per-line validation costs, or null
+
+    /**
+     * Constructs a SemanticAnalysis.
+     *
+     * @param profiler The profiler that recorded the program's parse, or null to record nothing.
+     */
+    SemanticAnalysis(LineProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void visitStatement(Statement statement, Environment environment) throws SemanticException {
+        // The walker has already checked the cancellation token for this statement
+        SJavaValidator.validateStatement(statement, environment, profiler, null);
+    }
+}
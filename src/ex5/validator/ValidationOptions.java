@@ -0,0 +1,130 @@
+package ex5.validator;
+
+import ex5.profile.LineProfiler;
+import ex5.util.CancellationToken;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The settings of a single run of {@link SJavaValidator#validate(ex5.model.GlobalScope, ValidationOptions)}.
+ * Every setting starts at its default: every method is validated, nothing is memoized or
+ * profiled, the run cannot be cancelled, and no further analysis runs alongside the validation.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class ValidationOptions {
+    private MethodMemoCache memo; // Method outcomes shared by the batch, or null
+    private LineProfiler profiler; // Profiler that recorded the program's parse, or null
+    private CancellationToken cancellation; // Checked before every statement, or null
+    private Set<String> roots; // Entry methods whose reachable methods are validated, or null for all
+    private List<? extends Analysis> analyses = List.of(); // Analyses run alongside the validation
+
+    /**
+     * Sets the method memo replaying the outcome of method bodies that were already validated in
+     * the same context by an earlier file of a batch. It is only used when no further analysis is
+     * given, since a replayed method body would be hidden from the other analyses.
+     *
+     * @param memo The method memo shared by the batch, or null to validate every method.
+     * @return These options.
+     */
+    public ValidationOptions memo(MethodMemoCache memo) {
+        this.memo = memo;
+        return this;
+    }
+
+    /**
+     * Sets the profiler to which the time spent validating each statement is attributed, by the
+     * line the statement was parsed from.
+     *
+     * @param profiler The profiler that recorded the program's parse, or null to record nothing.
+     * @return These options.
+     */
+    public ValidationOptions profiler(LineProfiler profiler) {
+        this.profiler = profiler;
+        return this;
+    }
+
+    /**
+     * Sets the token through which the run is stopped early.
+     *
+     * @param cancellation The token checked before every statement, or null if the run cannot be
+     *                     cancelled.
+     * @return These options.
+     */
+    public ValidationOptions cancellation(CancellationToken cancellation) {
+        this.cancellation = cancellation;
+        return this;
+    }
+
+    /**
+     * Limits the run to the global scope and the methods reachable from a set of entry methods.
+     * The bodies of the other methods are never called by the entry methods, so they are only
+     * checked by the parser: a syntax error in them is still reported, but semantic errors are not.
+     *
+     * @param roots The names of the entry methods, or null to validate every method.
+     * @return These options.
+     */
+    public ValidationOptions roots(Set<String> roots) {
+        this.roots = roots;
+        return this;
+    }
+
+    /**
+     * Sets the analyses run over the program in the same walk as the validation, called after
+     * it at every step, in order. The analyses only see a program the validation accepts up to
+     * the step they are called at.
+     *
+     * @param analyses The analyses run alongside the validation.
+     * @return These options.
+     */
+    public ValidationOptions analyses(List<? extends Analysis> analyses) {
+        this.analyses = analyses;
+        return this;
+    }
+
+    /**
+     * Retrieves the method memo.
+     *
+     * @return The method memo, or null.
+     */
+    MethodMemoCache getMemo() {
+        return memo;
+    }
+
+    /**
+     * Retrieves the profiler.
+     *
+     * @return The profiler, or null.
+     */
+    LineProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Retrieves the cancellation token.
+     *
+     * @return The token, or null.
+     */
+    CancellationToken getCancellation() {
+        return cancellation;
+    }
+
+    /**
+     * Retrieves the entry methods.
+     *
+     * @return The names of the entry methods, or null for all methods.
+     */
+    Set<String> getRoots() {
+        return roots;
+    }
+
+    /**
+     * Retrieves the further analyses.
+     *
+     * @return The analyses, possibly none.
+     */
+    List<? extends Analysis> getAnalyses() {
+        return analyses;
+    }
+}
@@ -0,0 +1,51 @@
+package ex5.verifier;
+
+/**
+ * Enum representing the possible outcomes of verifying an SJava source.
+ * Each outcome maps to the exit code printed by the command-line compiler; an abandoned
+ * verification, or one that ran out of stack, reports the same code as an I/O error, as it says
+ * nothing about whether the source is valid. Outcomes are sent to shard workers by position, so
+ * new outcomes are only ever added last.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public enum Outcome {
+    SUCCESS(0, ""),
+    COMPILATION_ERROR(1, "Compilation Error: "),
+    IO_ERROR(2, "IO Error: "),
+    CANCELLED(2, "Cancelled: "),
+    TIMED_OUT(2, "Timed out: "),
+    TOO_COMPLEX(2, "Too complex: ");
+
+    private final int exitCode; // Exit code printed by Sjavac
+    private final String messagePrefix; // Prefix used when reporting the error message
+
+    /**
+     * Constructs an Outcome.
+     *
+     * @param exitCode The exit code printed by Sjavac.
+     * @param messagePrefix The prefix used when reporting the error message.
+     */
+    Outcome(int exitCode, String messagePrefix) {
+        this.exitCode = exitCode;
+        this.messagePrefix = messagePrefix;
+    }
+
+    /**
+     * Retrieves the exit code of this outcome.
+     *
+     * @return The exit code.
+     */
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    /**
+     * Retrieves the prefix used when reporting an error of this outcome.
+     *
+     * @return The message prefix.
+     */
+    public String getMessagePrefix() {
+        return messagePrefix;
+    }
+}
@@ -0,0 +1,212 @@
+package ex5.verifier;
+
+import ex5.input.SourceInput;
+import ex5.profile.Histogram;
+import ex5.util.CancellationToken;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a candidate verification engine in the shadow of the reference one.
+ * Every source is verified by both a reference {@link Verifier}, which parses and then validates
+ * the source, and a candidate verifier configured with the engine under evaluation (pipelined
+ * validation, off-heap operands, memoization, operand caching and so on). The candidate runs on
+ * a thread of its own while the reference runs on the calling thread, so shadowing adds little to
+ * the latency of each source. The reference result is the one returned; the candidate's is only
+ * compared to it.
+ * <p>
+ * The latency of each engine is recorded in a histogram, in microseconds. When the engines
+ * disagree on the outcome or on the error reported, the source and both results are saved in the
+ * mismatch directory for triage. A ShadowVerifier may be shared by any number of threads.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class ShadowVerifier {
+    private static final String SHADOW_THREAD_NAME = "sjava-shadow";
+    private static final String DUMP_NAME_FORMAT = "%05d-%s";
+    private static final String UNSAFE_NAME_CHARACTERS = "[^A-Za-z0-9._-]";
+    private static final String SAFE_NAME_CHARACTER = "_";
+    private static final String SOURCE_SUFFIX = ".sjava";
+    private static final String REPORT_SUFFIX = ".txt";
+    private static final String REPORT_FORMAT = "source: %s%nreference: %s %s (%d us)%ncandidate: %s %s (%d us)%n";
+    private static final String JSON_FORMAT = "{\"compared\": %d, \"mismatches\": %d, \"undumped\": %d, "
+            + "\"latency_us\": {\"reference\": %s, \"candidate\": %s}}";
+    private static final long NANOS_PER_MICRO = TimeUnit.MICROSECONDS.toNanos(1);
+
+    private final Verifier reference; // The engine whose results are trusted
+    private final Verifier candidate; // The engine under evaluation
+    private final Path mismatchDirectory; // Receives the sources the engines disagree on
+    private final ExecutorService candidateThreads; // Runs the candidate alongside the reference
+    private final Histogram referenceLatency; // Reference verification times (guarded by this)
+    private final Histogram candidateLatency; // Candidate verification times (guarded by this)
+    private long compared; // Number of sources verified by both engines (guarded by this)
+    private long mismatches; // Number of sources the engines disagree on (guarded by this)
+    private long undumped; // Number of mismatches that could not be saved (guarded by this)
+
+    /**
+     * The result of one engine on one source.
+     */
+    private static class Run {
+        private final VerificationResult result; // The verification result
+        private final long micros; // The verification time, in microseconds
+
+        /**
+         * Constructs a Run.
+         *
+         * @param result The verification result.
+         * @param micros The verification time, in microseconds.
+         */
+        private Run(VerificationResult result, long micros) {
+            this.result = result;
+            this.micros = micros;
+        }
+    }
+
+    /**
+     * Constructs a ShadowVerifier, creating the mismatch directory if needed.
+     *
+     * @param reference The engine whose results are trusted and returned.
+     * @param candidate The engine under evaluation.
+     * @param mismatchDirectory The directory receiving the sources the engines disagree on.
+     * @throws IOException If the mismatch directory cannot be created.
+     */
+    public ShadowVerifier(Verifier reference, Verifier candidate, Path mismatchDirectory) throws IOException {
+        this.reference = reference;
+        this.candidate = candidate;
+        this.mismatchDirectory = Files.createDirectories(mismatchDirectory);
+        this.candidateThreads = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, SHADOW_THREAD_NAME);
+            thread.setDaemon(true); // An idle pool never keeps the JVM alive
+            return thread;
+        });
+        this.referenceLatency = new Histogram();
+        this.candidateLatency = new Histogram();
+    }
+
+    /**
+     * Verifies a source with both engines.
+     *
+     * @param source The source to verify.
+     * @param cancellation The token of the verification, or null.
+     * @return The reference engine's result.
+     */
+    public VerificationResult verify(SourceInput source, CancellationToken cancellation) {
+        String content;
+        try {
+            content = source.readContent();
+        } catch (IOException e) {
+            return new VerificationResult(Outcome.IO_ERROR, e.getMessage());
+        }
+        return verify(source, content, cancellation);
+    }
+
+    /**
+     * Verifies already read source text with both engines.
+     *
+     * @param source The source the text was read from.
+     * @param content The source text.
+     * @param cancellation The token of the verification, or null.
+     * @return The reference engine's result.
+     */
+    public VerificationResult verify(SourceInput source, String content, CancellationToken cancellation) {
+        CompletableFuture<Run> shadow = CompletableFuture.supplyAsync(
+                () -> run(candidate, content, cancellation), candidateThreads);
+        Run trusted = run(reference, content, cancellation);
+        Run evaluated;
+        try {
+            evaluated = shadow.get();
+        } catch (ExecutionException e) {
+            evaluated = new Run(new VerificationResult(Outcome.IO_ERROR, e.getCause().toString()), 0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return trusted.result; // Nothing to compare with
+        }
+        compare(source, content, trusted, evaluated);
+        return trusted.result;
+    }
+
+    /**
+     * Formats the comparison statistics as a JSON object.
+     *
+     * @return The JSON text.
+     */
+    public synchronized String toJson() {
+        return String.format(Locale.ROOT, JSON_FORMAT, compared, mismatches, undumped,
+                referenceLatency.toJson(), candidateLatency.toJson());
+    }
+
+    /**
+     * Verifies source text with one engine, timing it.
+     *
+     * @param engine The engine.
+     * @param content The source text.
+     * @param cancellation The token of the verification, or null.
+     * @return The engine's result and latency.
+     */
+    private static Run run(Verifier engine, String content, CancellationToken cancellation) {
+        long start = System.nanoTime();
+        VerificationResult result = engine.verify(content, cancellation);
+        return new Run(result, (System.nanoTime() - start) / NANOS_PER_MICRO);
+    }
+
+    /**
+     * Records the latencies of both engines and saves the source if their results differ.
+     *
+     * @param source The source.
+     * @param content The source text.
+     * @param trusted The reference engine's run.
+     * @param evaluated The candidate engine's run.
+     */
+    private void compare(SourceInput source, String content, Run trusted, Run evaluated) {
+        boolean mismatch = trusted.result.getOutcome() != evaluated.result.getOutcome()
+                || !trusted.result.formatMessage().equals(evaluated.result.formatMessage());
+        long mismatchNumber;
+        synchronized (this) {
+            compared++;
+            referenceLatency.record(trusted.micros);
+            candidateLatency.record(evaluated.micros);
+            if (!mismatch) {
+                return;
+            }
+            mismatchNumber = ++mismatches;
+        }
+        try {
+            dump(mismatchNumber, source, content, trusted, evaluated);
+        } catch (IOException e) {
+            synchronized (this) {
+                undumped++;
+            }
+        }
+    }
+
+    /**
+     * Saves a source the engines disagree on, with a report of both results.
+     *
+     * @param mismatchNumber The number of the mismatch, which names the saved files.
+     * @param source The source.
+     * @param content The source text.
+     * @param trusted The reference engine's run.
+     * @param evaluated The candidate engine's run.
+     * @throws IOException If the files cannot be written.
+     */
+    private void dump(long mismatchNumber, SourceInput source, String content, Run trusted, Run evaluated)
+            throws IOException {
+        String baseName = String.format(DUMP_NAME_FORMAT, mismatchNumber,
+                source.getName().replaceAll(UNSAFE_NAME_CHARACTERS, SAFE_NAME_CHARACTER));
+        String sourceName = baseName.endsWith(SOURCE_SUFFIX) ? baseName : baseName + SOURCE_SUFFIX;
+        Files.writeString(mismatchDirectory.resolve(sourceName), content, StandardCharsets.UTF_8);
+        String report = String.format(REPORT_FORMAT, source.getName(),
+                trusted.result.getOutcome(), trusted.result.formatMessage(), trusted.micros,
+                evaluated.result.getOutcome(), evaluated.result.formatMessage(), evaluated.micros);
+        Files.writeString(mismatchDirectory.resolve(baseName + REPORT_SUFFIX), report, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,78 @@
+package ex5.verifier;
+
+/**
+ * The immutable result of verifying a single SJava source.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class VerificationResult {
+    private static final VerificationResult SUCCESS = new VerificationResult(Outcome.SUCCESS, null);
+
+    private final Outcome outcome; // Outcome of the verification
+    private final String message; // Error message, or null on success
+
+    /**
+     * Constructs a VerificationResult.
+     *
+     * @param outcome The outcome of the verification.
+     * @param message The error message, or null on success.
+     */
+    public VerificationResult(Outcome outcome, String message) {
+        this.outcome = outcome;
+        this.message = message;
+    }
+
+    /**
+     * Retrieves the shared result of a successful verification.
+     *
+     * @return The success result.
+     */
+    public static VerificationResult success() {
+        return SUCCESS;
+    }
+
+    /**
+     * Retrieves the outcome of the verification.
+     *
+     * @return The outcome.
+     */
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Retrieves the exit code corresponding to the outcome.
+     *
+     * @return The exit code.
+     */
+    public int getExitCode() {
+        return outcome.getExitCode();
+    }
+
+    /**
+     * Retrieves the error message of a failed verification.
+     *
+     * @return The error message, or null on success.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Checks whether the verification succeeded.
+     *
+     * @return True if the source is valid SJava, otherwise false.
+     */
+    public boolean isSuccess() {
+        return outcome == Outcome.SUCCESS;
+    }
+
+    /**
+     * Formats the error message the way the command-line compiler reports it.
+     *
+     * @return The prefixed error message, or an empty string on success.
+     */
+    public String formatMessage() {
+        return isSuccess() ? "" : outcome.getMessagePrefix() + message;
+    }
+}
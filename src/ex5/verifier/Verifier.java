@@ -0,0 +1,624 @@
+package ex5.verifier;
+
+import ex5.input.CharSequenceReader;
+import ex5.input.SourceInput;
+import ex5.model.GlobalScope;
+import ex5.parser.MatchingContext;
+import ex5.parser.OperandCache;
+import ex5.parser.RegexPatterns;
+import ex5.parser.SJavaFileParser;
+import ex5.parser.SyntaxException;
+import ex5.profile.LineProfiler;
+import ex5.serial.ParseTreeReader;
+import ex5.serial.ParseTreeWriter;
+import ex5.util.CancellationToken;
+import ex5.util.OffHeapArena;
+import ex5.util.VerificationAbortedException;
+import ex5.validator.Analysis;
+import ex5.validator.MethodMemoCache;
+import ex5.validator.PipelinedValidator;
+import ex5.validator.SJavaValidator;
+import ex5.validator.SemanticException;
+import ex5.validator.ValidationOptions;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Embeddable, reusable SJava verifier.
+ * A single instance may be shared by any number of threads: every thread gets its own
+ * parser (and with it, its own reusable parsing state), so concurrent calls never contend
+ * on shared mutable data. Sources can be supplied as in-memory text, a reader, raw bytes
+ * or a {@link SourceInput}, so callers never have to write temporary files.
+ * A pipelined verifier owns the threads validating while its sources are parsed; closing it
+ * releases them once their current work is done, after which it must not be used.
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class Verifier implements AutoCloseable {
+    private static final String TOO_COMPLEX_MESSAGE = "A source line exhausted the verifier's stack";
+    private static final String INTERRUPTED_MESSAGE = "Interrupted while waiting for validation";
+    private static final String VALIDATION_THREAD_NAME = "sjava-validator";
+
+    private final Charset charset; // Charset used to decode byte buffers
+    private final MethodMemoCache memo; // Method outcomes shared across sources, or null
+    private final ThreadLocal<SJavaFileParser> parsers; // One parser per calling thread
+    private final boolean offHeapOperands; // Whether operand text is stored outside the heap
+    private final ExecutorService validationThreads; // Validates while parsing, or null if not pipelined
+    private final Set<String> roots; // Entry methods whose reachable methods are validated, or null for all
+    private final OperandCache operandCache; // Operand classifications shared across sources, or null
+
+    /**
+     * Collects the settings of a Verifier. Every setting starts at its default: byte buffers are
+     * decoded as UTF-8, blocks may nest to any depth, every method is validated, and nothing is
+     * memoized, cached, stored off-heap or pipelined.
+     */
+    public static class Builder {
+        private Charset charset = StandardCharsets.UTF_8; // Charset used to decode byte buffers
+        private MethodMemoCache memo; // Method outcomes shared across sources, or null
+        private int maxNestingDepth = SJavaFileParser.UNLIMITED_NESTING; // Deepest nesting accepted
+        private boolean offHeapOperands; // Whether operand text is stored outside the heap
+        private boolean pipelined; // Whether validation overlaps with parsing
+        private Set<String> roots; // Entry methods whose reachable methods are validated, or null for all
+        private OperandCache operandCache; // Operand classifications shared across sources, or null
+
+        /**
+         * Constructs a Builder holding the default settings; see {@link Verifier#builder()}.
+         */
+        private Builder() {
+        }
+
+        /**
+         * Sets the charset used to decode byte buffers.
+         *
+         * @param charset The charset.
+         * @return This builder.
+         */
+        public Builder charset(Charset charset) {
+            this.charset = charset;
+            return this;
+        }
+
+        /**
+         * Sets the method memo through which method validation outcomes are memoized across the
+         * sources the verifier verifies.
+         *
+         * @param memo The method memo shared by all verifications, or null to disable memoization.
+         * @return This builder.
+         */
+        public Builder memo(MethodMemoCache memo) {
+            this.memo = memo;
+            return this;
+        }
+
+        /**
+         * Sets the deepest nesting of blocks a source may have.
+         *
+         * @param maxNestingDepth The maximum number of nested blocks, counting a method body as one.
+         * @return This builder.
+         */
+        public Builder maxNestingDepth(int maxNestingDepth) {
+            this.maxNestingDepth = maxNestingDepth;
+            return this;
+        }
+
+        /**
+         * Sets whether the names and literals of every parsed source are kept outside the Java
+         * heap. Each verification then stores its operand text in its own {@link OffHeapArena},
+         * sized to the source and released as soon as the verification completes; every
+         * occurrence of a name shares one view through the arena's name table.
+         *
+         * @param offHeapOperands Whether operand text is stored outside the heap.
+         * @return This builder.
+         */
+        public Builder offHeapOperands(boolean offHeapOperands) {
+            this.offHeapOperands = offHeapOperands;
+            return this;
+        }
+
+        /**
+         * Sets whether each source is validated while it is still being parsed.
+         * A pipelined verification hands every global statement and every completed method body
+         * to a {@link PipelinedValidator}, which validates them on a separate thread as the parser
+         * moves on; its results are the same as those of parsing first and validating afterwards.
+         * Verifications that memoize methods, profile lines, save their parse tree or are limited
+         * to entry methods are never pipelined.
+         *
+         * @param pipelined Whether validation overlaps with parsing.
+         * @return This builder.
+         */
+        public Builder pipelined(boolean pipelined) {
+            this.pipelined = pipelined;
+            return this;
+        }
+
+        /**
+         * Limits semantic validation to the code reachable from a set of entry methods: the
+         * global scope and the methods the entry methods call, directly or not. The other method
+         * bodies are parsed, so syntax errors in them are still reported, but they are not
+         * validated.
+         *
+         * @param roots The names of the entry methods, or null to validate every method; an
+         *              undeclared entry method is reported in the order of the set.
+         * @return This builder.
+         */
+        public Builder roots(Set<String> roots) {
+            this.roots = (roots == null) ? null : Collections.unmodifiableSet(new LinkedHashSet<>(roots));
+            return this;
+        }
+
+        /**
+         * Sets the cache through which operands are classified. The cache is bound to the
+         * matching context of each thread for as long as one of the verifier's verifications runs
+         * on it, so verifiers with different caches, or none, never see each other's
+         * classifications.
+         *
+         * @param operandCache The operand cache shared by all verifications, or null to disable caching.
+         * @return This builder.
+         */
+        public Builder operandCache(OperandCache operandCache) {
+            this.operandCache = operandCache;
+            return this;
+        }
+
+        /**
+         * Constructs a Verifier with the current settings. The builder may be reused afterwards.
+         *
+         * @return The verifier.
+         */
+        /**
+         * Creates a Verifier with the settings collected so far.
+         *
+         * @return The verifier, to be closed once it is no longer used.
+         */
+        public Verifier build() {
+            return new Verifier(this);
+        }
+    }
+
+    /**
+     * Constructs a Verifier with the default settings of a {@link Builder}.
+     */
+    public Verifier() {
+        this(new Builder());
+    }
+
+    /**
+     * Constructs a Verifier.
+     *
+     * @param builder The builder holding the settings.
+     */
+    private Verifier(Builder builder) {
+        this.operandCache = builder.operandCache;
+        this.roots = builder.roots;
+        this.charset = builder.charset;
+        this.memo = builder.memo;
+        int maxNestingDepth = builder.maxNestingDepth;
+        this.parsers = ThreadLocal.withInitial(() -> new SJavaFileParser(maxNestingDepth));
+        this.offHeapOperands = builder.offHeapOperands;
+        this.validationThreads = builder.pipelined ? Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, VALIDATION_THREAD_NAME);
+            thread.setDaemon(true); // An idle pool never keeps the JVM alive
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Creates a builder for a Verifier, starting from the default settings.
+     *
+     * @return The builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Verifies in-memory SJava source text.
+     *
+     * @param source The source text.
+     * @return The verification result.
+     */
+    public VerificationResult verify(CharSequence source) {
+        return verify(source, null);
+    }
+
+    /**
+     * Verifies SJava source text supplied by a reader. The reader is consumed but not closed.
+     *
+     * @param source The reader supplying the source text.
+     * @return The verification result.
+     */
+    public VerificationResult verify(Reader source) {
+        return parseAndValidate(source, 0, null, null, null, List.of());
+    }
+
+    /**
+     * Verifies in-memory SJava source text, giving up as soon as the token is cancelled or expires.
+     *
+     * @param source The source text.
+     * @param cancellation The token checked at every line and statement.
+     * @return The verification result; {@link Outcome#CANCELLED} or {@link Outcome#TIMED_OUT}
+     *         if the verification was abandoned.
+     */
+    public VerificationResult verify(CharSequence source, CancellationToken cancellation) {
+        return parseAndValidate(new CharSequenceReader(source), source.length(), null, null, cancellation,
+                List.of());
+    }
+
+    /**
+     * Verifies an SJava source, giving up as soon as the token is cancelled or expires.
+     *
+     * @param source The source to verify.
+     * @param cancellation The token checked at every line and statement.
+     * @return The verification result; {@link Outcome#CANCELLED} or {@link Outcome#TIMED_OUT}
+     *         if the verification was abandoned.
+     */
+    public VerificationResult verify(SourceInput source, CancellationToken cancellation) {
+        try (BufferedReader reader = source.openReader()) {
+            return parseAndValidate(reader, source.estimateSize(), null, null, cancellation, List.of());
+        } catch (IOException e) {
+            return new VerificationResult(Outcome.IO_ERROR, e.getMessage());
+        }
+    }
+
+    /**
+     * Verifies an SJava source, attributing the cost of parsing and validating each of its
+     * lines to a profiler.
+     *
+     * @param source The source to verify.
+     * @param profiler The profiler recording per-line costs.
+     * @return The verification result.
+     */
+    public VerificationResult verify(SourceInput source, LineProfiler profiler) {
+        return verify(source, profiler, null);
+    }
+
+    /**
+     * Verifies an SJava source, attributing the cost of parsing and validating each of its
+     * lines to a profiler, and giving up as soon as the token is cancelled or expires.
+     *
+     * @param source The source to verify.
+     * @param profiler The profiler recording per-line costs.
+     * @param cancellation The token checked at every line and statement, or null.
+     * @return The verification result.
+     */
+    public VerificationResult verify(SourceInput source, LineProfiler profiler, CancellationToken cancellation) {
+        try (BufferedReader reader = source.openReader()) {
+            return parseAndValidate(reader, source.estimateSize(), null, profiler, cancellation, List.of());
+        } catch (IOException e) {
+            return new VerificationResult(Outcome.IO_ERROR, e.getMessage());
+        }
+    }
+
+    /**
+     * Verifies an SJava source and runs further analyses over it, in the same walk as its
+     * semantic validation. The analyses are only called if the source parses, and stop at the
+     * first semantic error.
+     *
+     * @param source The source to verify.
+     * @param analyses The analyses, called in this order after the semantic validation.
+     * @return The verification result, or the error of the first analysis rejecting the source.
+     */
+    public VerificationResult verify(SourceInput source, List<? extends Analysis> analyses) {
+        return verify(source, analyses, null);
+    }
+
+    /**
+     * Verifies an SJava source and runs further analyses over it, in the same walk as its
+     * semantic validation, giving up as soon as the token is cancelled or expires.
+     *
+     * @param source The source to verify.
+     * @param analyses The analyses, called in this order after the semantic validation.
+     * @param cancellation The token checked at every line and statement, or null.
+     * @return The verification result, or the error of the first analysis rejecting the source.
+     */
+    public VerificationResult verify(SourceInput source, List<? extends Analysis> analyses,
+                                     CancellationToken cancellation) {
+        try (BufferedReader reader = source.openReader()) {
+            return parseAndValidate(reader, source.estimateSize(), null, null, cancellation, analyses);
+        } catch (IOException e) {
+            return new VerificationResult(Outcome.IO_ERROR, e.getMessage());
+        }
+    }
+
+    /**
+     * Verifies an SJava source and, if it parses, saves its parse tree so that later runs can
+     * verify it with {@link #verifyParseTree(Path)} without parsing the text again.
+     *
+     * @param source The source to verify.
+     * @param parseTreeFile The file receiving the parse tree.
+     * @return The verification result.
+     */
+    public VerificationResult verify(SourceInput source, Path parseTreeFile) {
+        return verify(source, parseTreeFile, null);
+    }
+
+    /**
+     * Verifies an SJava source and, if it parses, saves its parse tree, giving up as soon as the
+     * token is cancelled or expires.
+     *
+     * @param source The source to verify.
+     * @param parseTreeFile The file receiving the parse tree.
+     * @param cancellation The token checked at every line and statement, or null.
+     * @return The verification result.
+     */
+    public VerificationResult verify(SourceInput source, Path parseTreeFile, CancellationToken cancellation) {
+        try (BufferedReader reader = source.openReader()) {
+            return parseAndValidate(reader, source.estimateSize(), parseTreeFile, null, cancellation, List.of());
+        } catch (IOException e) {
+            return new VerificationResult(Outcome.IO_ERROR, e.getMessage());
+        }
+    }
+
+    /**
+     * Checks that in-memory SJava source text is well-formed, without building its model or
+     * validating it semantically. This is the fast tier of verification: a source that fails it
+     * fails full verification with the same error, and a source that passes it still needs full
+     * verification.
+     *
+     * @param source The source text.
+     * @param cancellation The token checked at every line, or null.
+     * @return The result of the check.
+     */
+    public VerificationResult checkSyntax(CharSequence source, CancellationToken cancellation) {
+        return checkSyntax(new CharSequenceReader(source), cancellation);
+    }
+
+    /**
+     * Checks that an SJava source is well-formed, without building its model or validating it
+     * semantically.
+     *
+     * @param source The source to check.
+     * @param cancellation The token checked at every line, or null.
+     * @return The result of the check.
+     * @see #checkSyntax(CharSequence, CancellationToken)
+     */
+    public VerificationResult checkSyntax(SourceInput source, CancellationToken cancellation) {
+        try (BufferedReader reader = source.openReader()) {
+            return checkSyntax(reader, cancellation);
+        } catch (IOException e) {
+            return new VerificationResult(Outcome.IO_ERROR, e.getMessage());
+        }
+    }
+
+    /**
+     * Checks that SJava source text is well-formed.
+     *
+     * @param source The reader supplying the source text.
+     * @param cancellation The token checked at every line, or null.
+     * @return The result of the check.
+     */
+    private VerificationResult checkSyntax(Reader source, CancellationToken cancellation) {
+        try {
+            parsers.get().checkSyntax(source, cancellation);
+            return VerificationResult.success();
+        } catch (VerificationAbortedException e) {
+            return aborted(e);
+        } catch (IOException e) {
+            return new VerificationResult(Outcome.IO_ERROR, e.getMessage());
+        } catch (SyntaxException | SemanticException e) {
+            return new VerificationResult(Outcome.COMPILATION_ERROR, e.getMessage());
+        } catch (StackOverflowError e) {
+            return new VerificationResult(Outcome.TOO_COMPLEX, TOO_COMPLEX_MESSAGE);
+        }
+    }
+
+    /**
+     * Validates an already parsed program. Validation never modifies the parsed model, so a program
+     * parsed once may be kept and validated again, by any number of threads at the same time.
+     *
+     * @param program The parsed global scope.
+     * @return The verification result.
+     */
+    public VerificationResult verify(GlobalScope program) {
+        return validate(program, null, null, List.of());
+    }
+
+    /**
+     * Verifies a program saved by {@link #verify(SourceInput, Path)}, skipping parsing.
+     *
+     * @param parseTreeFile The parse-tree file.
+     * @return The verification result.
+     */
+    public VerificationResult verifyParseTree(Path parseTreeFile) {
+        return verifyParseTree(parseTreeFile, null);
+    }
+
+    /**
+     * Verifies a program saved by {@link #verify(SourceInput, Path)}, skipping parsing, and giving
+     * up as soon as the token is cancelled or expires.
+     *
+     * @param parseTreeFile The parse-tree file.
+     * @param cancellation The token checked at every statement, or null.
+     * @return The verification result.
+     */
+    public VerificationResult verifyParseTree(Path parseTreeFile, CancellationToken cancellation) {
+        try {
+            return validate(ParseTreeReader.read(parseTreeFile), null, cancellation, List.of());
+        } catch (IOException e) {
+            return new VerificationResult(Outcome.IO_ERROR, e.getMessage());
+        } catch (UncheckedIOException e) {
+            // A method body turned out to be corrupt when it was decoded
+            return new VerificationResult(Outcome.IO_ERROR, e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Parses and validates SJava source text, optionally saving the parse tree in between.
+     *
+     * @param source The reader supplying the source text.
+     * @param sizeHint The approximate number of characters of the source, or 0 if unknown; sizes
+     *                 the off-heap arena's first chunk.
+     * @param parseTreeFile The file receiving the parse tree, or null to save nothing.
+     * @param profiler The profiler recording per-line costs, or null to record nothing.
+     * @param cancellation The token checked at every line and statement, or null.
+     * @param analyses The analyses run alongside the validation.
+     * @return The verification result.
+     */
+    private VerificationResult parseAndValidate(Reader source, long sizeHint, Path parseTreeFile,
+                                                LineProfiler profiler, CancellationToken cancellation,
+                                                List<? extends Analysis> analyses) {
+        OffHeapArena arena = offHeapOperands ? new OffHeapArena(sizeHint) : null;
+        MatchingContext context = RegexPatterns.matchingContext();
+        OperandCache previousCache = context.bindOperandCache(operandCache);
+        try {
+            if (validationThreads != null && memo == null && profiler == null && parseTreeFile == null
+                    && roots == null && analyses.isEmpty()) {
+                return parseWhileValidating(source, cancellation, arena);
+            }
+            GlobalScope globalScope = parsers.get().parse(source, profiler, cancellation, arena, null);
+            if (parseTreeFile != null) {
+                ParseTreeWriter.write(globalScope, parseTreeFile);
+            }
+            return validate(globalScope, profiler, cancellation, analyses);
+        } catch (VerificationAbortedException e) {
+            return aborted(e);
+        } catch (IOException e) {
+            return new VerificationResult(Outcome.IO_ERROR, e.getMessage());
+        } catch (SyntaxException | SemanticException e) {
+            return new VerificationResult(Outcome.COMPILATION_ERROR, e.getMessage());
+        } catch (StackOverflowError e) {
+            // Only a pathological line can still exhaust the stack, inside the regex engine
+            return new VerificationResult(Outcome.TOO_COMPLEX, TOO_COMPLEX_MESSAGE);
+        } finally {
+            context.bindOperandCache(previousCache);
+            if (arena != null) {
+                // The parsed model is discarded with the result; nothing refers to the arena anymore
+                arena.close();
+            }
+        }
+    }
+
+    /**
+     * Parses SJava source text while a {@link PipelinedValidator} validates the parts already parsed.
+     *
+     * @param source The reader supplying the source text.
+     * @param cancellation The token checked at every line and statement, or null.
+     * @param arena The arena receiving operand text, or null.
+     * @return The verification result.
+     * @throws IOException If the source cannot be read.
+     * @throws SyntaxException If a syntax error is detected.
+     * @throws SemanticException If a semantic error is detected while parsing or validating.
+     */
+    private VerificationResult parseWhileValidating(Reader source, CancellationToken cancellation,
+                                                    OffHeapArena arena)
+            throws IOException, SyntaxException, SemanticException {
+        PipelinedValidator validator = new PipelinedValidator(validationThreads, cancellation, operandCache);
+        GlobalScope globalScope;
+        try {
+            globalScope = parsers.get().parse(source, null, cancellation, arena, validator);
+        } catch (IOException | SyntaxException | SemanticException | RuntimeException e) {
+            validator.abandon(); // Parse errors take precedence over anything found meanwhile
+            throw e;
+        }
+        try {
+            validator.finish(globalScope);
+        } catch (InterruptedException e) {
+            validator.abandon(); // The arena must outlive the task still running
+            Thread.currentThread().interrupt();
+            return new VerificationResult(Outcome.CANCELLED, INTERRUPTED_MESSAGE);
+        }
+        return VerificationResult.success();
+    }
+
+    /**
+     * Verifies encoded SJava source bytes. The buffer's position is left unchanged.
+     *
+     * @param source The buffer holding the encoded source text.
+     * @return The verification result.
+     */
+    public VerificationResult verify(ByteBuffer source) {
+        return verify(charset.decode(source.duplicate()));
+    }
+
+    /**
+     * Verifies an SJava source such as a file, an archive entry or a compressed file.
+     *
+     * @param source The source to verify.
+     * @return The verification result.
+     */
+    public VerificationResult verify(SourceInput source) {
+        try (BufferedReader reader = source.openReader()) {
+            return verify(reader);
+        } catch (IOException e) {
+            return new VerificationResult(Outcome.IO_ERROR, e.getMessage());
+        }
+    }
+
+    /**
+     * Verifies an SJava file, which must end with '.sjava'.
+     *
+     * @param filePath The path to the SJava source file.
+     * @return The verification result.
+     */
+    public VerificationResult verifyFile(String filePath) {
+        try {
+            SJavaFileParser.validateFileSuffix(filePath);
+            try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+                return verify(reader);
+            }
+        } catch (IOException e) {
+            return new VerificationResult(Outcome.IO_ERROR, e.getMessage());
+        }
+    }
+
+    /**
+     * Runs semantic validation over a parsed program.
+     *
+     * @param globalScope The parsed global scope.
+     * @param profiler The profiler that recorded the parse, or null to record nothing.
+     * @param cancellation The token checked at every statement, or null.
+     * @param analyses The analyses run alongside the validation.
+     * @return The verification result.
+     */
+    private VerificationResult validate(GlobalScope globalScope, LineProfiler profiler,
+                                        CancellationToken cancellation, List<? extends Analysis> analyses) {
+        MatchingContext context = RegexPatterns.matchingContext();
+        OperandCache previousCache = context.bindOperandCache(operandCache);
+        try {
+            SJavaValidator.validate(globalScope, new ValidationOptions().memo(memo).profiler(profiler)
+                    .cancellation(cancellation).roots(roots).analyses(analyses));
+            return VerificationResult.success();
+        } catch (SemanticException e) {
+            return new VerificationResult(Outcome.COMPILATION_ERROR, e.getMessage());
+        } catch (VerificationAbortedException e) {
+            return aborted(e);
+        } finally {
+            context.bindOperandCache(previousCache);
+        }
+    }
+
+    /**
+     * Converts an abandoned verification into its result.
+     *
+     * @param e The exception raised at the checkpoint.
+     * @return The cancelled or timed-out result.
+     */
+    private static VerificationResult aborted(VerificationAbortedException e) {
+        return new VerificationResult(e.isTimedOut() ? Outcome.TIMED_OUT : Outcome.CANCELLED, e.getMessage());
+    }
+
+    /**
+     * Releases the threads of a pipelined verifier. Validations already handed to them still
+     * complete; the verifier must not be used afterwards.
+     */
+    @Override
+    public void close() {
+        if (validationThreads != null) {
+            validationThreads.shutdown();
+        }
+    }
+}
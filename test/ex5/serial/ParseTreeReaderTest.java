@@ -0,0 +1,195 @@
+package ex5.serial;
+
+import ex5.model.GlobalScope;
+import ex5.parser.SJavaFileParser;
+import ex5.verifier.VerificationResult;
+import ex5.verifier.Verifier;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Regression checks for {@link ParseTreeReader}, run with assertions enabled
+ * ({@code java -ea ex5.serial.ParseTreeReaderTest}).
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class ParseTreeReaderTest {
+    private static final int THREADS = 8;
+    private static final String CORRUPT_MESSAGE = "Corrupt parse tree";
+    private static final byte[] HUGE_COUNT = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0x7F};
+    private static final byte[] NEGATIVE_COUNT = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F};
+    private static final String DIFFERENT_BYTES = "case %d: rewriting the loaded program changed its encoding";
+    private static final String DIFFERENT_RESULT = "case %d: source reported \"%s\", parse tree%s reported \"%s\"";
+    private static final String CONCURRENT_LABEL = " validated concurrently";
+    private static final String PREFIX_ACCEPTED = "case %d: a file cut to %d of %d bytes was accepted";
+    private static final String COUNT_ACCEPTED = "%s: a corrupt count was accepted";
+    private static final String WRONG_ERROR = "%s: expected \"" + CORRUPT_MESSAGE + "\", got %s";
+    private static final String[] SOURCES = {
+            // Globals, calls in both directions and nested blocks sharing strings
+            "int g = 1;\nfinal String s = \"s\";\nvoid a(int x, final double y) {\n  if (x) {\n"
+                    + "    while (y) {\n      b(s);\n    }\n  }\n  return;\n}\n"
+                    + "void b(String t) {\n  a(g, 2.5);\n  return;\n}\n",
+            // A semantic error inside a nested block
+            "void a() {\n  int x = 1;\n  while (x) {\n    if (x || x) {\n      x = \"s\";\n    }\n  }\n"
+                    + "  return;\n}\n",
+            // A call to a method that is never declared
+            "boolean b = true;\nvoid a() {\n  c(b);\n  return;\n}\n",
+            // No methods at all
+            "int a, b = 2, c;\nchar d = 'd';\n",
+    };
+
+    /**
+     * Runs every check.
+     *
+     * @param args Unused.
+     * @throws Exception If a check cannot run.
+     */
+    public static void main(String[] args) throws Exception {
+        roundTripPreservesProgram();
+        truncatedFileIsRejected();
+        corruptCountIsRejectedBeforeAllocating();
+    }
+
+    /**
+     * A loaded program must encode to the same bytes it was loaded from, and validate to the same
+     * result as its source, also when its method bodies are first decoded by several threads.
+     *
+     * @throws Exception If a check cannot run.
+     */
+    private static void roundTripPreservesProgram() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try (Verifier verifier = new Verifier()) {
+            for (int i = 0; i < SOURCES.length; i++) {
+                byte[] encoded = encode(new SJavaFileParser().parse(SOURCES[i]));
+                if (!Arrays.equals(encoded, encode(ParseTreeReader.read(ByteBuffer.wrap(encoded))))) {
+                    throw new AssertionError(String.format(DIFFERENT_BYTES, i));
+                }
+
+                VerificationResult expected = verifier.verify(SOURCES[i]);
+                checkSame(i, expected, verifier.verify(ParseTreeReader.read(ByteBuffer.wrap(encoded))), "");
+                GlobalScope shared = ParseTreeReader.read(ByteBuffer.wrap(encoded));
+                List<Future<VerificationResult>> results = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    results.add(executor.submit(() -> verifier.verify(shared)));
+                }
+                for (Future<VerificationResult> result : results) {
+                    checkSame(i, expected, result.get(), CONCURRENT_LABEL);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Every strict prefix of a valid file must be rejected as corrupt, either when it is loaded or
+     * when a method body is first decoded.
+     *
+     * @throws Exception If a check cannot run.
+     */
+    private static void truncatedFileIsRejected() throws Exception {
+        for (int i = 0; i < SOURCES.length; i++) {
+            byte[] encoded = encode(new SJavaFileParser().parse(SOURCES[i]));
+            for (int length = 0; length < encoded.length; length++) {
+                try {
+                    // Encoding the program again decodes every method body
+                    encode(ParseTreeReader.read(ByteBuffer.wrap(encoded, 0, length)));
+                    throw new AssertionError(String.format(PREFIX_ACCEPTED, i, length, encoded.length));
+                } catch (IOException | UncheckedIOException e) {
+                    // Expected
+                }
+            }
+        }
+    }
+
+    /**
+     * A count that is negative or larger than the rest of the file must be reported as a corrupt
+     * file, instead of running out of memory allocating room for its elements.
+     *
+     * @throws Exception If a check cannot run.
+     */
+    private static void corruptCountIsRejectedBeforeAllocating() throws Exception {
+        checkCorrupt("string count", header(HUGE_COUNT));
+        checkCorrupt("negative string count", header(NEGATIVE_COUNT));
+        // An empty string table and global block, followed by the method count
+        checkCorrupt("method count", header(new byte[]{0, 0}, HUGE_COUNT));
+        // A one-string table, and a global block holding one call to a method named by it
+        checkCorrupt("argument count", header(new byte[]{1, 1, 'a', 1, ParseTreeFormat.METHOD_CALL_CODE, 0},
+                HUGE_COUNT));
+    }
+
+    /**
+     * Checks that loading a file fails with the corrupt parse tree error.
+     *
+     * @param name The name of the case.
+     * @param contents The file contents.
+     */
+    private static void checkCorrupt(String name, byte[] contents) {
+        try {
+            ParseTreeReader.read(ByteBuffer.wrap(contents));
+        } catch (IOException e) {
+            if (!CORRUPT_MESSAGE.equals(e.getMessage())) {
+                throw new AssertionError(String.format(WRONG_ERROR, name, e));
+            }
+            return;
+        } catch (OutOfMemoryError e) {
+            throw new AssertionError(String.format(WRONG_ERROR, name, e));
+        }
+        throw new AssertionError(String.format(COUNT_ACCEPTED, name));
+    }
+
+    /**
+     * Builds file contents starting with a valid header.
+     *
+     * @param parts The bytes following the header, in order.
+     * @return The file contents.
+     */
+    private static byte[] header(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES + Short.BYTES);
+        header.putInt(ParseTreeFormat.MAGIC).putShort(ParseTreeFormat.VERSION);
+        out.writeBytes(header.array());
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Encodes a program in the parse-tree format.
+     *
+     * @param program The program.
+     * @return The encoded program.
+     * @throws IOException If the program cannot be encoded.
+     */
+    private static byte[] encode(GlobalScope program) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ParseTreeWriter.write(program, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Checks that a parse-tree verification has the outcome of the source verification.
+     *
+     * @param index The index of the case.
+     * @param expected The source result.
+     * @param actual The parse-tree result.
+     * @param label A label describing the parse-tree verification.
+     */
+    private static void checkSame(int index, VerificationResult expected, VerificationResult actual, String label) {
+        if (expected.getOutcome() != actual.getOutcome()
+                || !String.valueOf(expected.getMessage()).equals(String.valueOf(actual.getMessage()))) {
+            throw new AssertionError(String.format(DIFFERENT_RESULT, index, expected.formatMessage(), label,
+                    actual.formatMessage()));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package ex5.validator;
+
+import ex5.verifier.VerificationResult;
+import ex5.verifier.Verifier;
+
+/**
+ * Regression checks for {@link MethodMemoCache}, run with assertions enabled
+ * ({@code java -ea ex5.validator.MethodMemoCacheTest}).
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class MethodMemoCacheTest {
+    private static final String INT_GLOBAL = "double d = 5;\nvoid foo(int x) {\n  foo(d);\n  return;\n}\n";
+    private static final String DOUBLE_GLOBAL = "double d = 5.0;\nvoid foo(int x) {\n  foo(d);\n  return;\n}\n";
+    private static final int CAPACITY = 100;
+    private static final String UNEXPECTED_RESULT = "%s: expected success=%b, got %s";
+
+    /**
+     * Runs every check.
+     *
+     * @param args Unused.
+     */
+    public static void main(String[] args) {
+        globalsWithDifferentValueTypesDoNotShareOutcome();
+    }
+
+    /**
+     * Two identical method bodies whose referenced global holds values of different types must
+     * not share a memoized outcome: passing an int-valued double to an int parameter is valid,
+     * passing a double value is not.
+     */
+    private static void globalsWithDifferentValueTypesDoNotShareOutcome() {
+        for (boolean intFirst : new boolean[]{true, false}) {
+            try (Verifier verifier = Verifier.builder().memo(new MethodMemoCache(CAPACITY)).build()) {
+                if (intFirst) {
+                    check("int value", verifier.verify(INT_GLOBAL), true);
+                    check("double value", verifier.verify(DOUBLE_GLOBAL), false);
+                } else {
+                    check("double value", verifier.verify(DOUBLE_GLOBAL), false);
+                    check("int value", verifier.verify(INT_GLOBAL), true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks the outcome of a verification.
+     *
+     * @param name The name of the case.
+     * @param result The verification result.
+     * @param success Whether the verification should succeed.
+     */
+    private static void check(String name, VerificationResult result, boolean success) {
+        if (result.isSuccess() != success) {
+            throw new AssertionError(String.format(UNEXPECTED_RESULT, name, success, result.formatMessage()));
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package ex5.validator;
+
+import ex5.model.GlobalScope;
+import ex5.model.VariableType;
+import ex5.model.statements.VarDeclarationStatement;
+import ex5.verifier.VerificationResult;
+import ex5.verifier.Verifier;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Regression checks for {@link PipelinedValidator}, run with assertions enabled
+ * ({@code java -ea ex5.validator.PipelinedValidatorTest}).
+ *
+ * @author Joshua Kolodny, Itamar Lev Ari
+ */
+public class PipelinedValidatorTest {
+    private static final long FINISH_TIMEOUT_MILLIS = 10_000;
+    private static final String INJECTED_ERROR = "injected by the test";
+    private static final String FINISH_HUNG = "finish() did not return after a task failed with an error";
+    private static final String UNEXPECTED_OUTCOME = "finish() should rethrow the injected error, got %s";
+    private static final String DIFFERENT_RESULT = "case %d: sequential reported \"%s\", pipelined%s reported \"%s\"";
+    private static final String OFF_HEAP_LABEL = " off-heap";
+    private static final String[] MULTI_METHOD_SOURCES = {
+            // Valid, with calls in both directions
+            "int g = 1;\nvoid a(int x) {\n  b(\"s\");\n  return;\n}\nvoid b(String s) {\n  a(g);\n  return;\n}\n",
+            // Both bodies are invalid; the first in declaration order is reported
+            "void a() {\n  int x = \"s\";\n  return;\n}\nvoid b() {\n  boolean y = 'c';\n  return;\n}\n",
+            // The second body fails before the first is complete; the first is still reported
+            "void a() {\n  int x = 1;\n  while (x) {\n    x = \"s\";\n  }\n  return;\n}\n"
+                    + "void b() {\n  char c = 5;\n  return;\n}\n",
+            // A call to a method declared later, with an argument of the wrong type
+            "void a() {\n  b(1);\n  return;\n}\nvoid b(String s) {\n  return;\n}\n",
+            // A call to a method that is never declared, after a valid body
+            "void a() {\n  return;\n}\nvoid b() {\n  c();\n  return;\n}\n",
+            // A global declared after the body using it makes the speculative outcome stale
+            "void a() {\n  x = 5;\n  return;\n}\nString x;\n",
+            "void a() {\n  x = 5;\n  return;\n}\nint x;\n",
+            // A global error is reported before any method error, wherever it appears
+            "void a() {\n  boolean y = 'c';\n  return;\n}\nint g = \"s\";\nint h = 'c';\n",
+            // Only the first global error is reported
+            "int g = \"s\";\nvoid a() {\n  return;\n}\nboolean h = 'c';\n",
+            // A duplicate method is reported by the parser in both modes
+            "void a() {\n  return;\n}\nvoid a() {\n  return;\n}\n",
+    };
+
+    /**
+     * An operand whose characters cannot be read, making any task that classifies it fail with
+     * an error, as a task running out of stack would.
+     */
+    private static class FailingText implements CharSequence {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int length() {
+            throw new StackOverflowError(INJECTED_ERROR);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public char charAt(int index) {
+            throw new StackOverflowError(INJECTED_ERROR);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            throw new StackOverflowError(INJECTED_ERROR);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            throw new StackOverflowError(INJECTED_ERROR);
+        }
+    }
+
+    /**
+     * Runs every check.
+     *
+     * @param args Unused.
+     * @throws InterruptedException If the test is interrupted.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        finishReturnsAfterTaskError();
+        pipelinedReportsSameFirstErrorAsSequential();
+    }
+
+    /**
+     * Pipelined validation must report exactly what sequential validation reports, including
+     * which error comes first, on sources whose methods fail in different places and orders.
+     */
+    private static void pipelinedReportsSameFirstErrorAsSequential() {
+        try (Verifier sequential = Verifier.builder().build();
+             Verifier pipelined = Verifier.builder().pipelined(true).build();
+             Verifier pipelinedOffHeap = Verifier.builder().pipelined(true).offHeapOperands(true).build()) {
+            for (int i = 0; i < MULTI_METHOD_SOURCES.length; i++) {
+                VerificationResult expected = sequential.verify(MULTI_METHOD_SOURCES[i]);
+                checkSame(i, expected, pipelined.verify(MULTI_METHOD_SOURCES[i]), "");
+                checkSame(i, expected, pipelinedOffHeap.verify(MULTI_METHOD_SOURCES[i]), OFF_HEAP_LABEL);
+            }
+        }
+    }
+
+    /**
+     * Checks that a pipelined verification has the outcome of the sequential one.
+     *
+     * @param index The index of the case.
+     * @param expected The sequential result.
+     * @param actual The pipelined result.
+     * @param label A label describing the pipelined verifier.
+     */
+    private static void checkSame(int index, VerificationResult expected, VerificationResult actual, String label) {
+        if (expected.getOutcome() != actual.getOutcome()
+                || !String.valueOf(expected.getMessage()).equals(String.valueOf(actual.getMessage()))) {
+            throw new AssertionError(String.format(DIFFERENT_RESULT, index, expected.formatMessage(), label,
+                    actual.formatMessage()));
+        }
+    }
+
+    /**
+     * A task failing with an error must not strand the tasks queued behind it: finish() must
+     * return, rethrowing the error, instead of waiting forever for its own task to run.
+     *
+     * @throws InterruptedException If the test is interrupted.
+     */
+    private static void finishReturnsAfterTaskError() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            PipelinedValidator validator = new PipelinedValidator(executor, null, null);
+            GlobalScope program = new GlobalScope(null);
+            VarDeclarationStatement failing = new VarDeclarationStatement(false, VariableType.INT,
+                    new String[]{"a"}, new CharSequence[]{new FailingText()});
+            VarDeclarationStatement valid = new VarDeclarationStatement(false, VariableType.INT,
+                    new String[]{"b"}, new CharSequence[]{"1"});
+            program.addStatement(failing);
+            program.addStatement(valid);
+            validator.globalStatementParsed(failing);
+            validator.globalStatementParsed(valid);
+
+            AtomicReference<Throwable> outcome = new AtomicReference<>();
+            Thread finisher = new Thread(() -> {
+                try {
+                    validator.finish(program);
+                } catch (Throwable e) {
+                    outcome.set(e);
+                }
+            });
+            finisher.setDaemon(true); // A hung finish() must not keep the test from failing
+            finisher.start();
+            finisher.join(FINISH_TIMEOUT_MILLIS);
+            if (finisher.isAlive()) {
+                throw new AssertionError(FINISH_HUNG);
+            }
+            Throwable thrown = outcome.get();
+            if (!(thrown instanceof StackOverflowError) || !INJECTED_ERROR.equals(thrown.getMessage())) {
+                throw new AssertionError(String.format(UNEXPECTED_OUTCOME, thrown));
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(FINISH_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+}